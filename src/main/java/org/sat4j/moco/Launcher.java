@@ -30,10 +30,19 @@ import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.sat4j.moco.algorithm.BiObjectiveDichotomic;
+import org.sat4j.moco.algorithm.ComponentDecomposition;
+import org.sat4j.moco.algorithm.CoreGuidedPareto;
+import org.sat4j.moco.algorithm.DistributedParetoMCS;
+import org.sat4j.moco.algorithm.GuidedImprovement;
 import org.sat4j.moco.algorithm.MOCOAlgorithm;
 import org.sat4j.moco.algorithm.MOEADFactory;
 import org.sat4j.moco.algorithm.NSGAIIFactory;
+import org.sat4j.moco.algorithm.ParallelParetoMCS;
 import org.sat4j.moco.algorithm.ParetoMCS;
+import org.sat4j.moco.algorithm.ParetoLocalSearch;
+import org.sat4j.moco.algorithm.ParetoMCSWorker;
+import org.sat4j.moco.algorithm.WeightedScalarization;
 import org.sat4j.moco.analysis.Result;
 import org.sat4j.moco.parsing.OPBReader;
 import org.sat4j.moco.problem.Instance;
@@ -148,7 +157,16 @@ public class Launcher {
             Clock.instance().updtParams(params);
             Instance moco = readMOCO(cl);
             Log.comment(0, "Version from 9 December");
-            if (params.getAlgorithm().equals("NSGAII")){
+            if (params.getWorkerPort() > 0) {
+                new ParetoMCSWorker(moco, params).run(params.getWorkerPort(), params.getWorkerSlot());
+            }
+            else if (params.getDecompose() && ComponentDecomposition.supports(moco)){
+                ComponentDecomposition solver = new ComponentDecomposition(moco);
+                setShutdownHandler(solver);
+                solver.updtParams(params);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("NSGAII")){
                 NSGAIIFactory solver = new NSGAIIFactory(moco, params.getStructureImprovements(), params.getUnitaryPropagation());
                 setShutdownHandler(solver);
                 solver.setParams(params);
@@ -168,6 +186,48 @@ public class Launcher {
                 solver.updtParams(params);
                 solver.solve();
             }
+            else if (params.getAlgorithm().equals("PMCSE") && params.getWorkerProcs() > 0){
+                DistributedParetoMCS solver = new DistributedParetoMCS(moco, args);
+                setShutdownHandler(solver);
+                solver.updtParams(params);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("PMCSE")){
+                ParallelParetoMCS solver = new ParallelParetoMCS(moco);
+                setShutdownHandler(solver);
+                solver.updtParams(params);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("DICHO") && BiObjectiveDichotomic.supports(moco)){
+                BiObjectiveDichotomic solver = new BiObjectiveDichotomic(moco);
+                setShutdownHandler(solver);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("GIA") || params.getAlgorithm().equals("DICHO")){
+                if (params.getAlgorithm().equals("DICHO")) {
+                    Log.comment("DICHO requires two linear objectives, falling back to GIA");
+                }
+                GuidedImprovement solver = new GuidedImprovement(moco);
+                setShutdownHandler(solver);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("CORE")){
+                CoreGuidedPareto solver = new CoreGuidedPareto(moco);
+                setShutdownHandler(solver);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("PLS")){
+                ParetoLocalSearch solver = new ParetoLocalSearch(moco);
+                setShutdownHandler(solver);
+                solver.updtParams(params);
+                solver.solve();
+            }
+            else if (params.getAlgorithm().equals("WS")){
+                WeightedScalarization solver = new WeightedScalarization(moco);
+                setShutdownHandler(solver);
+                solver.updtParams(params);
+                solver.solve();
+            }
             else {
                 printHelpMessage(options);
             }
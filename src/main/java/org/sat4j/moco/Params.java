@@ -59,11 +59,36 @@ public class Params {
      */
     private static final String DEFAULT_TT = "20";
 
+    /**
+     * Default conflict budget scheme for stratified algorithms.
+     */
+    private static final String DEFAULT_CBS = "fixed";
+
     /**
      * Default algorithm to be used.
      */
     private static final String DEFAULT_ALG = "MCSE";
 
+    /**
+     * Default number of threads for parallel algorithms (0 stands for the number of available processors).
+     */
+    private static final String DEFAULT_THREADS = "0";
+
+    /**
+     * Default number of divisions of the weight simplex for weighted scalarization algorithms.
+     */
+    private static final String DEFAULT_WD = "10";
+
+    /**
+     * Default search space splitting strategy for parallel Pareto-MCS.
+     */
+    private static final String DEFAULT_SPLIT = "cube";
+
+    /**
+     * Default number of worker processes for parallel Pareto-MCS (0 stands for in-process threads).
+     */
+    private static final String DEFAULT_WP = "0";
+
     /**
      * Default value for the crossover rate.
      */
@@ -121,6 +146,41 @@ public class Params {
 
 
     private static final String DEFAULT_SEED = "-1";
+
+    /**
+     * Default number of islands for stochastic algorithms (1 stands for a single population).
+     */
+    private static final String DEFAULT_ISLANDS = "1";
+
+    /**
+     * Default island migration topology for stochastic algorithms.
+     */
+    private static final String DEFAULT_MT = "ring";
+
+    /**
+     * Default number of generations between island migrations for stochastic algorithms.
+     */
+    private static final String DEFAULT_MI = "10";
+
+    /**
+     * Default number of threads for offspring evaluation in stochastic algorithms (1 stands for sequential).
+     */
+    private static final String DEFAULT_PE = "1";
+
+    /**
+     * Default number of asynchronous smart operator workers (0 stands for inline smart operators).
+     */
+    private static final String DEFAULT_ASW = "0";
+
+    /**
+     * Default rate of the propagation-based repair operator (0 stands for disabled).
+     */
+    private static final String DEFAULT_RPR = "0.0";
+
+    /**
+     * Default maximum number of solutions kept by stochastic algorithms (0 stands for unbounded).
+     */
+    private static final String DEFAULT_AC = "0";
     
     /**
      * Builds an {@link Options} object with the solver's configuration parameters to be used for parsing
@@ -145,8 +205,34 @@ public class Params {
         o.addOption("tt", "trivial-thres", true,
                     "Set the trivial threshold for stratified algorithms (number of trivially solved partitions " +
                     "in a row before merging the remaining ones). Default is " + DEFAULT_TT + ".");
-        o.addOption("alg", "algorithm", true, "Set the algorithm to be used (between MCSE, NSGAII and MOEAD). Default is "
+        o.addOption("cbs", "confl-budget-scheme", true,
+                    "Set the scheme used to assign conflict limits to partitions in stratified algorithms (between " +
+                    "fixed, luby and geom). The luby and geom schemes adapt limits to the remaining time and to " +
+                    "past timeouts. Default is " + DEFAULT_CBS + ".");
+        o.addOption("dc", "dominance-cuts", false,
+                    "Enable dominance cuts in the MCS based algorithm, excluding solutions weakly dominated by the " +
+                    "ones already found from the search.");
+        o.addOption("cc", "components", false,
+                    "Enable decomposition of the instance into the connected components of its constraint graph, " +
+                    "solving each one independently with the selected exact algorithm.");
+        o.addOption("alg", "algorithm", true, "Set the algorithm to be used (between MCSE, PMCSE, GIA, CORE, WS, DICHO, PLS, NSGAII and MOEAD). Default is "
                     + DEFAULT_ALG + ".");
+        o.addOption("nt", "threads", true,
+                    "Set the number of threads for parallel algorithms. Default is " + DEFAULT_THREADS +
+                    " (number of available processors).");
+        o.addOption("wd", "weight-divisions", true,
+                    "Set the number of divisions of the weight simplex used by the weighted scalarization algorithm " +
+                    "on instances with more than two objectives. Default is " + DEFAULT_WD + ".");
+        o.addOption("split", "split-mode", true,
+                    "Set how the parallel MCS based algorithm splits the search (between cube, over variables, and " +
+                    "box, over objective space). Default is " + DEFAULT_SPLIT + ".");
+        o.addOption("wp", "worker-procs", true,
+                    "Set the number of local worker processes for the parallel MCS based algorithm, instead of " +
+                    "threads in a single process. Default is " + DEFAULT_WP + " (threads).");
+        o.addOption("wport", "worker-port", true,
+                    "Internal. Run as a worker process of the coordinator listening on the given local port.");
+        o.addOption("wslot", "worker-slot", true,
+                    "Internal. Set the slot of the worker process in the coordinator.");
         o.addOption("cr", "crossover-rate", true,
                 "Set the crossover rate for the stochastic algorithms. Default value is " + DEFAULT_CR + ".");
         o.addOption("mr", "mutation-rate", true,
@@ -179,6 +265,29 @@ public class Params {
                 "Selects the seed value for the PRNG class.");
         o.addOption("um", "uniform-mutation", false,
                 "Enables the uniform mutation operator from the moea framework, instead of the single point mutation.");
+        o.addOption("isl", "islands", true,
+                "Set the number of islands, each on its own thread, for the stochastic algorithms. Default is " +
+                DEFAULT_ISLANDS + " (single population).");
+        o.addOption("mt", "migration-topology", true,
+                "Set the island migration topology (between ring, full and random). Default is " + DEFAULT_MT + ".");
+        o.addOption("mi", "migration-interval", true,
+                "Set the number of generations between island migrations. Default is " + DEFAULT_MI + ".");
+        o.addOption("pe", "parallel-evaluation", true,
+                "Set the number of threads used to evaluate offspring in the stochastic algorithms (0 for the " +
+                "number of available processors). Default is " + DEFAULT_PE + ".");
+        o.addOption("asw", "async-smart-workers", true,
+                "Set the number of worker threads that apply smart operators asynchronously in the stochastic " +
+                "algorithms. Default is " + DEFAULT_ASW + " (smart operators are applied inline).");
+        o.addOption("rpr", "repair-rate", true,
+                "Set the rate of the propagation-based repair operator for the stochastic algorithms. Default is " +
+                DEFAULT_RPR + " (disabled).");
+        o.addOption("aos", "adaptive-operators", false,
+                "Enables adaptive operator selection, which picks the variation operator of each offspring in " +
+                "the stochastic algorithms by its reward per CPU time.");
+        o.addOption("ac", "archive-capacity", true,
+                "Set the maximum number of nondominated solutions kept by the stochastic algorithms. Once full, " +
+                "the solution with the smallest hypervolume contribution is evicted. Default is " + DEFAULT_AC +
+                " (unbounded).");
         return o;
     }
     
@@ -228,11 +337,58 @@ public class Params {
      */
     private int tt = 20;
 
+    /**
+     * Stores the name of the scheme used to assign conflict limits to partitions in stratified algorithms.
+     */
+    private String cbs = "fixed";
+
+    /**
+     * Stores if dominance cuts are to be enabled for Pareto-MCS based algorithms.
+     */
+    private boolean dom_cuts = false;
+
+    /**
+     * Stores if the instance is to be decomposed into independent connected components.
+     */
+    private boolean decompose = false;
+
     /**
      * Stores the name of the algorithm to be used.
      */
     private String alg = "MCSE";
 
+    /**
+     * Stores the number of threads to be used by parallel algorithms.
+     * If 0, then the number of available processors is used.
+     */
+    private int threads = 0;
+
+    /**
+     * Stores the number of divisions of the weight simplex for weighted scalarization algorithms.
+     */
+    private int wd = 10;
+
+    /**
+     * Stores the search space splitting strategy for parallel Pareto-MCS.
+     */
+    private String split = "cube";
+
+    /**
+     * Stores the number of worker processes for parallel Pareto-MCS.
+     * If 0, then workers are threads in the same process.
+     */
+    private int wp = 0;
+
+    /**
+     * Stores the local port of the coordinator, if running as a worker process, or 0 otherwise.
+     */
+    private int wport = 0;
+
+    /**
+     * Stores the slot of this worker process in the coordinator.
+     */
+    private int wslot = 0;
+
     /**
      * Stores the crossover ratio to be used with stochastic algorithms.
      */
@@ -308,6 +464,47 @@ public class Params {
      */
     private boolean um = false;
 
+    /**
+     * Stores the number of islands for stochastic algorithms.
+     */
+    private int islands = 1;
+
+    /**
+     * Stores the island migration topology for stochastic algorithms.
+     */
+    private String mt = "ring";
+
+    /**
+     * Stores the number of generations between island migrations for stochastic algorithms.
+     */
+    private int mi = 10;
+
+    /**
+     * Stores the number of threads for offspring evaluation in stochastic algorithms.
+     * If 0, then the number of available processors is used.
+     */
+    private int pe = 1;
+
+    /**
+     * Stores the number of asynchronous smart operator workers for stochastic algorithms.
+     */
+    private int asw = 0;
+
+    /**
+     * Stores the rate of the propagation-based repair operator for stochastic algorithms.
+     */
+    private double rpr = 0.0;
+
+    /**
+     * Stores if adaptive operator selection is to be used by stochastic algorithms.
+     */
+    private boolean aos = false;
+
+    /**
+     * Stores the maximum number of nondominated solutions kept by stochastic algorithms (0 for unbounded).
+     */
+    private int ac = 0;
+
     /**
      * Creates a parameters object with default configuration options.
      */
@@ -317,7 +514,12 @@ public class Params {
         this.lwr = Double.parseDouble(DEFAULT_LWR);
         this.pmc = Integer.parseInt(DEFAULT_PMC);
         this.tt = Integer.parseInt(DEFAULT_TT);
+        this.cbs = DEFAULT_CBS;
         this.alg = DEFAULT_ALG;
+        this.threads = Integer.parseInt(DEFAULT_THREADS);
+        this.wd = Integer.parseInt(DEFAULT_WD);
+        this.split = DEFAULT_SPLIT;
+        this.wp = Integer.parseInt(DEFAULT_WP);
         this.cr = Double.parseDouble(DEFAULT_CR);
         this.mr = Double.parseDouble(DEFAULT_MR);
         this.timeout = Integer.parseInt(DEFAULT_TIMEOUT);
@@ -330,6 +532,13 @@ public class Params {
         this.max_conflicts = Integer.parseInt(DEFAULT_MAX_CONFLICTS);
         this.improve_max_conflicts = Integer.parseInt(DEFAULT_IMPROVEMENT_MAX_CONFLICTS);
         this.seed = Integer.parseInt(DEFAULT_SEED);
+        this.islands = Integer.parseInt(DEFAULT_ISLANDS);
+        this.mt = DEFAULT_MT;
+        this.mi = Integer.parseInt(DEFAULT_MI);
+        this.pe = Integer.parseInt(DEFAULT_PE);
+        this.asw = Integer.parseInt(DEFAULT_ASW);
+        this.rpr = Double.parseDouble(DEFAULT_RPR);
+        this.ac = Integer.parseInt(DEFAULT_AC);
     }
     
     /**
@@ -344,7 +553,16 @@ public class Params {
         this.lwr = Double.parseDouble(cl.getOptionValue("lwr", DEFAULT_LWR));
         this.pmc = Integer.parseInt(cl.getOptionValue("pmc", DEFAULT_PMC));
         this.tt = Integer.parseInt(cl.getOptionValue("tt", DEFAULT_TT));
+        this.cbs = cl.getOptionValue("cbs", DEFAULT_CBS);
+        this.dom_cuts = cl.hasOption("dc");
+        this.decompose = cl.hasOption("cc");
         this.alg = cl.getOptionValue("alg", DEFAULT_ALG);
+        this.threads = Integer.parseInt(cl.getOptionValue("nt", DEFAULT_THREADS));
+        this.wd = Integer.parseInt(cl.getOptionValue("wd", DEFAULT_WD));
+        this.split = cl.getOptionValue("split", DEFAULT_SPLIT);
+        this.wp = Integer.parseInt(cl.getOptionValue("wp", DEFAULT_WP));
+        this.wport = Integer.parseInt(cl.getOptionValue("wport", "0"));
+        this.wslot = Integer.parseInt(cl.getOptionValue("wslot", "0"));
         this.cr = Double.parseDouble(cl.getOptionValue("cr", DEFAULT_CR));
         this.mr = Double.parseDouble(cl.getOptionValue("mr", DEFAULT_MR));
         this.timeout = Integer.parseInt(cl.getOptionValue("t", DEFAULT_TIMEOUT));
@@ -360,6 +578,14 @@ public class Params {
         this.evolutionary_smart = cl.hasOption("eso");
         this.unitary_propagation = !cl.hasOption("up");
         this.seed = Integer.parseInt(cl.getOptionValue("seed", DEFAULT_SEED));
+        this.islands = Integer.parseInt(cl.getOptionValue("isl", DEFAULT_ISLANDS));
+        this.mt = cl.getOptionValue("mt", DEFAULT_MT);
+        this.mi = Integer.parseInt(cl.getOptionValue("mi", DEFAULT_MI));
+        this.pe = Integer.parseInt(cl.getOptionValue("pe", DEFAULT_PE));
+        this.asw = Integer.parseInt(cl.getOptionValue("asw", DEFAULT_ASW));
+        this.rpr = Double.parseDouble(cl.getOptionValue("rpr", DEFAULT_RPR));
+        this.aos = cl.hasOption("aos");
+        this.ac = Integer.parseInt(cl.getOptionValue("ac", DEFAULT_AC));
         this.um = cl.hasOption("um");
     }
     
@@ -421,12 +647,68 @@ public class Params {
      */
     public int getTrivialThres() { return this.tt; }
 
+    /**
+     * Retrieves the name of the scheme used to assign conflict limits to partitions in stratified algorithms.
+     * @return The conflict budget scheme.
+     */
+    public String getConflBudgetScheme() { return this.cbs; }
+
+    /**
+     * Checks if dominance cuts are to be enabled for Pareto-MCS based algorithms.
+     * @return True if dominance cuts are enabled, false otherwise.
+     */
+    public boolean getDominanceCuts() { return this.dom_cuts; }
+
+    /**
+     * Checks if the instance is to be decomposed into independent connected components.
+     * @return True if decomposition is enabled, false otherwise.
+     */
+    public boolean getDecompose() { return this.decompose; }
+
     /**
      * Retrieves the algorithm to be used.
      * @return The name of the algorithm.
      */
     public String getAlgorithm() { return this.alg; }
 
+    /**
+     * Retrieves the number of threads to be used by parallel algorithms.
+     * @return The number of threads, or the number of available processors if none was given.
+     */
+    public int getThreads() {
+        return this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Retrieves the number of divisions of the weight simplex for weighted scalarization algorithms.
+     * @return The number of weight divisions.
+     */
+    public int getWeightDivisions() { return this.wd; }
+
+    /**
+     * Retrieves the search space splitting strategy for parallel Pareto-MCS.
+     * @return The name of the splitting strategy.
+     */
+    public String getSplitMode() { return this.split; }
+
+    /**
+     * Retrieves the number of worker processes for parallel Pareto-MCS.
+     * @return The number of worker processes, or 0 if workers are to be threads.
+     */
+    public int getWorkerProcs() { return this.wp; }
+
+    /**
+     * Retrieves the local port of the coordinator, if running as a worker process.
+     * @return The port, or 0 if not running as a worker process.
+     */
+    public int getWorkerPort() { return this.wport; }
+
+    /**
+     * Retrieves the slot of this worker process in the coordinator.
+     * @return The slot.
+     */
+    public int getWorkerSlot() { return this.wslot; }
+
     /**
      * Retrieves the mutation rate to be used in the stochastic algorithm.
      * @return The mutation rate.
@@ -510,4 +792,54 @@ public class Params {
      * @return True if it should be used, false otherwise.
      */
     public boolean getUM(){ return this.um; }
+
+    /**
+     * Retrieves the number of islands for stochastic algorithms.
+     * @return The number of islands.
+     */
+    public int getIslands() { return this.islands; }
+
+    /**
+     * Retrieves the island migration topology for stochastic algorithms.
+     * @return The name of the topology.
+     */
+    public String getMigrationTopology() { return this.mt; }
+
+    /**
+     * Retrieves the number of generations between island migrations for stochastic algorithms.
+     * @return The migration interval.
+     */
+    public int getMigrationInterval() { return this.mi; }
+
+    /**
+     * Retrieves the number of threads for offspring evaluation in stochastic algorithms.
+     * @return The number of threads, or the number of available processors if 0 was given.
+     */
+    public int getEvalThreads() {
+        return this.pe > 0 ? this.pe : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Retrieves the number of asynchronous smart operator workers for stochastic algorithms.
+     * @return The number of workers, or 0 if smart operators are to be applied inline.
+     */
+    public int getAsyncSmartWorkers() { return this.asw; }
+
+    /**
+     * Retrieves the rate of the propagation-based repair operator for stochastic algorithms.
+     * @return The repair rate, or 0 if the operator is disabled.
+     */
+    public double getRepairRate() { return this.rpr; }
+
+    /**
+     * Checks if adaptive operator selection is to be used by stochastic algorithms.
+     * @return True if adaptive operator selection is enabled, false otherwise.
+     */
+    public boolean getAdaptiveOperators() { return this.aos; }
+
+    /**
+     * Retrieves the maximum number of nondominated solutions kept by stochastic algorithms.
+     * @return The archive capacity, or 0 if the archive is unbounded.
+     */
+    public int getArchiveCapacity() { return this.ac; }
 }
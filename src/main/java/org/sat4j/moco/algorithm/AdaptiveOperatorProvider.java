@@ -0,0 +1,44 @@
+package org.sat4j.moco.algorithm;
+
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.spi.OperatorFactory;
+import org.moeaframework.core.spi.OperatorProvider;
+import org.moeaframework.util.TypedProperties;
+import org.sat4j.moco.analysis.MOCOProblem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class AdaptiveOperatorProvider extends OperatorProvider {
+
+    @Override
+    public String getMutationHint(Problem problem) { return null; }
+
+    @Override
+    public String getVariationHint(Problem problem) { return null; }
+
+    @Override
+    public Variation getVariation(String s, Properties properties, Problem problem) {
+        if (!s.equals("aos")) { return null; }
+        TypedProperties typed_props = new TypedProperties(properties);
+        boolean bits = ((MOCOProblem)problem).usesBitGenome();
+        List<String> names = new ArrayList<String>();
+        names.add(bits ? "bux" : "ux");
+        names.add(bits ? "bspm" : "spm");
+        names.add(bits ? "bum" : "um");
+        if (typed_props.getDouble("sm.rate", 0.0) > 0.0) { names.add("sm"); }
+        if (typed_props.getDouble("rp.rate", 0.0) > 0.0) { names.add("rp"); }
+        Properties arm_props = new Properties();
+        arm_props.putAll(properties);
+        arm_props.setProperty("sm.rate", "1.0");
+        arm_props.setProperty("sm.async_workers", "0");
+        arm_props.setProperty("rp.rate", "1.0");
+        List<Variation> arms = new ArrayList<Variation>(names.size());
+        for (int i = 0; i < names.size(); ++i) {
+            arms.add(OperatorFactory.getInstance().getVariation(names.get(i), arm_props, problem));
+        }
+        return new AdaptiveOperatorSelection(names, arms, (MOCOProblem)problem);
+    }
+}
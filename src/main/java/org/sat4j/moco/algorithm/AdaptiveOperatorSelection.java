@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.sat4j.moco.analysis.MOCOProblem;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.util.Log;
+
+/**
+ * Variation operator that selects, for each pair of parents, one of several operators through a multi-armed
+ * bandit. An operator's reward is the number of offspring that improve the result, i.e., that are feasible and
+ * not weakly dominated by it, or that the operator itself stored in the result. Offspring are tagged with the
+ * operator that created them and credited through {@link #credit(Solution, boolean)} once the algorithm has
+ * evaluated them and they were offered to the result, so they are never evaluated twice. Operators are ranked
+ * by reward per millisecond of CPU time, so that expensive operators, such as {@link SmartMutation}, are only
+ * chosen while they pay off. Selection follows UCB1 over the normalized reward rates, with exponentially discounted
+ * statistics so that the choice tracks the search's progress.
+ * Operators with arity 1 are applied to a copy of each parent.
+ */
+public class AdaptiveOperatorSelection implements Variation {
+
+    /**
+     * Weight of the exploration term of UCB1.
+     */
+    private static final double EXPLORATION = 0.5;
+
+    /**
+     * Discount factor applied to an operator's statistics each time it is applied.
+     */
+    private static final double DECAY = 0.995;
+
+    /**
+     * Number of operator applications between logs of the operators' statistics.
+     */
+    private static final int LOG_INTERVAL = 500;
+
+    /**
+     * Name of the attribute that tags offspring with the operator that created them.
+     */
+    private static final String ARM_ATTRIBUTE = "aos.arm";
+
+    /**
+     * Tag of the offspring created by one operator application.
+     */
+    private static class Tag implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The operator selection layer that applied the operator, lost if the offspring is serialized.
+         */
+        transient AdaptiveOperatorSelection owner;
+
+        /**
+         * The operator's index.
+         */
+        int arm;
+
+        Tag(AdaptiveOperatorSelection owner, int arm) {
+            this.owner = owner;
+            this.arm = arm;
+        }
+    }
+
+    /**
+     * Stores the name of each operator.
+     */
+    private String[] names;
+
+    /**
+     * Stores the operators.
+     */
+    private Variation[] arms;
+
+    /**
+     * Stores the discounted number of applications, reward and CPU time, in milliseconds, of each operator.
+     */
+    private double[] pulls;
+    private double[] rewards;
+    private double[] costs;
+
+    /**
+     * Stores the total number of operator applications.
+     */
+    private long npulls = 0;
+
+    private Result result;
+
+    /**
+     * Stores the bean used to measure CPU time, or null if CPU time is not supported.
+     */
+    private ThreadMXBean cpu = null;
+
+    /**
+     * Creates an instance of the adaptive operator selection layer for a given set of operators.
+     * @param names The operators' names, for logging.
+     * @param arms The operators.
+     * @param problem The problem.
+     */
+    public AdaptiveOperatorSelection(List<String> names, List<Variation> arms, MOCOProblem problem) {
+        this.names = names.toArray(new String[names.size()]);
+        this.arms = arms.toArray(new Variation[arms.size()]);
+        this.pulls = new double[this.arms.length];
+        this.rewards = new double[this.arms.length];
+        this.costs = new double[this.arms.length];
+        this.result = problem.getResult();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean.isCurrentThreadCpuTimeSupported()) {
+            this.cpu = bean;
+        }
+        Log.comment(1, ":aos-arms " + this.arms.length);
+    }
+
+    @Override
+    public int getArity() { return 2; }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        int arm = select();
+        long improvements = this.result.getThreadImprovements();
+        long start = now();
+        Solution[] offspring;
+        if (this.arms[arm].getArity() == 1) {
+            offspring = new Solution[parents.length];
+            for (int i = 0; i < parents.length; ++i) {
+                offspring[i] = this.arms[arm].evolve(new Solution[] { parents[i].copy() })[0];
+            }
+        }
+        else {
+            offspring = this.arms[arm].evolve(parents);
+        }
+        double cost = Math.max((now() - start) / 1e6, 1e-3);
+        update(arm, this.result.getThreadImprovements() - improvements, cost);
+        Tag tag = new Tag(this, arm);
+        for (int i = 0; i < offspring.length; ++i) {
+            offspring[i].setAttribute(ARM_ATTRIBUTE, tag);
+        }
+        return offspring;
+    }
+
+    /**
+     * Credits the operator that created a given offspring, if any, after the offspring was evaluated and
+     * offered to the result, and removes the offspring's tag.
+     * @param s The offspring.
+     * @param improved True if {@code s} was stored in the result, false otherwise.
+     */
+    public static void credit(Solution s, boolean improved) {
+        Object tag = s.removeAttribute(ARM_ATTRIBUTE);
+        if (improved && tag instanceof Tag && ((Tag)tag).owner != null) {
+            ((Tag)tag).owner.reward(((Tag)tag).arm, 1.0);
+        }
+    }
+
+    /**
+     * Measures the current time, in nanoseconds, as CPU time of the current thread if supported, or wall
+     * clock time otherwise.
+     * @return The current time.
+     */
+    private long now() {
+        return this.cpu != null ? this.cpu.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Selects the operator to apply next. Operators that were never applied are selected first.
+     * @return The operator's index.
+     */
+    private synchronized int select() {
+        double best_rate = 0.0, total = 0.0;
+        for (int i = 0; i < this.arms.length; ++i) {
+            if (this.pulls[i] == 0.0) { return i; }
+            best_rate = Math.max(best_rate, this.rewards[i] / this.costs[i]);
+            total += this.pulls[i];
+        }
+        int best = 0;
+        double best_value = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.arms.length; ++i) {
+            double rate = best_rate > 0.0 ? this.rewards[i] / this.costs[i] / best_rate : 0.0;
+            double value = rate + EXPLORATION * Math.sqrt(2.0 * Math.log(total) / this.pulls[i]);
+            if (value > best_value) {
+                best_value = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a reward to an operator, obtained after it was applied.
+     * @param arm The operator's index.
+     * @param reward The reward.
+     */
+    private synchronized void reward(int arm, double reward) { this.rewards[arm] += reward; }
+
+    /**
+     * Updates the statistics of an operator after it was applied.
+     * @param arm The operator's index.
+     * @param reward The reward obtained.
+     * @param cost The CPU time spent, in milliseconds.
+     */
+    private synchronized void update(int arm, double reward, double cost) {
+        this.pulls[arm] = DECAY * this.pulls[arm] + 1.0;
+        this.rewards[arm] = DECAY * this.rewards[arm] + reward;
+        this.costs[arm] = DECAY * this.costs[arm] + cost;
+        if (++this.npulls % LOG_INTERVAL == 0) {
+            for (int i = 0; i < this.arms.length; ++i) {
+                Log.comment(1, ":aos-arm " + this.names[i] + " :pulls " + this.pulls[i] +
+                               " :reward " + this.rewards[i] + " :cost-ms " + this.costs[i]);
+            }
+        }
+    }
+
+}
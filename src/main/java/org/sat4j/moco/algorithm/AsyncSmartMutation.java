@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.sat4j.moco.analysis.MOCOProblem;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+
+/**
+ * Smart operator that runs smart mutation and smart improvement asynchronously.
+ * Individuals chosen for a smart operator are queued to a pool of worker threads, each owning its own
+ * {@link SmartMutation} operator and PB solver. Repaired or improved individuals are injected back as offspring
+ * in a later generation, so the evolutionary algorithm never waits on the PB solvers. Workers also store the
+ * solutions they find in the result, as the synchronous operator does.
+ */
+public class AsyncSmartMutation implements Variation {
+
+    /**
+     * Number of queued individuals per worker beyond which new requests are dropped.
+     */
+    private static final int QUEUE_PER_WORKER = 4;
+
+    /**
+     * Number of completed requests between statistics log entries.
+     */
+    private static final int LOG_PERIOD = 100;
+
+    /**
+     * Time, in milliseconds, a worker waits for a request before checking if it should stop.
+     */
+    private static final long POLL_MS = 100;
+
+    /**
+     * Stores the smart operator of each worker.
+     */
+    private List<SmartMutation> operators;
+
+    /**
+     * Stores the MOEA framework problem.
+     */
+    private MOCOProblem problem;
+
+    /**
+     * Stores the individuals waiting for a smart operator, along with their enqueue time.
+     */
+    private BlockingQueue<Request> pending;
+
+    /**
+     * Stores the repaired or improved individuals waiting to be injected as offspring.
+     */
+    private Queue<Solution> done = new ConcurrentLinkedQueue<Solution>();
+
+    /**
+     * Counters for the statistics log entries.
+     */
+    private AtomicInteger submitted = new AtomicInteger();
+    private AtomicInteger dropped = new AtomicInteger();
+    private AtomicInteger completed = new AtomicInteger();
+    private AtomicInteger succeeded = new AtomicInteger();
+    private AtomicInteger injected = new AtomicInteger();
+    private AtomicLong latency_ns = new AtomicLong();
+
+    /**
+     * An individual waiting for a smart operator.
+     */
+    private static class Request {
+
+        /**
+         * Stores a copy of the individual.
+         */
+        private Solution sol;
+
+        /**
+         * Stores the time, in nanoseconds, at which the individual was queued.
+         */
+        private long time;
+
+        /**
+         * Creates a request.
+         * @param sol A copy of the individual.
+         */
+        Request(Solution sol) {
+            this.sol = sol;
+            this.time = System.nanoTime();
+        }
+
+    }
+
+    /**
+     * Creates an instance of the asynchronous smart operator and starts its workers.
+     * @param operators The smart operator of each worker. The first one also sets the probability of applying
+     * a smart operator.
+     * @param problem The MOEA framework problem.
+     */
+    public AsyncSmartMutation(List<SmartMutation> operators, MOCOProblem problem) {
+        this.operators = new ArrayList<SmartMutation>(operators);
+        this.problem = problem;
+        this.pending = new ArrayBlockingQueue<Request>(QUEUE_PER_WORKER * operators.size());
+        for (int i = 0; i < operators.size(); ++i) {
+            final SmartMutation sm = operators.get(i);
+            Thread worker = new Thread(new Runnable() {
+                public void run() { work(sm); }
+            }, "smart-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Log.comment(":smart-workers " + operators.size());
+    }
+
+    /**
+     * Checks if the workers should stop.
+     * @return True if the time limit was reached or the Pareto front was found, false otherwise.
+     */
+    private boolean stopped() {
+        return Clock.instance().timedOut() || this.problem.getResult().isParetoFront();
+    }
+
+    /**
+     * Serves requests with a given smart operator until the workers should stop.
+     * @param sm The worker's smart operator.
+     */
+    private void work(SmartMutation sm) {
+        try {
+            while (!stopped()) {
+                Request r = this.pending.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (r == null) { continue; }
+                Solution sol = sm.apply(r.sol);
+                this.latency_ns.addAndGet(System.nanoTime() - r.time);
+                if (sol != r.sol) {
+                    this.succeeded.incrementAndGet();
+                    this.done.offer(sol);
+                }
+                if (this.completed.incrementAndGet() % LOG_PERIOD == 0) {
+                    logStats();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Logs the queue depth, the average latency from enqueue to completion and the success rate.
+     */
+    private void logStats() {
+        int ncompleted = this.completed.get();
+        Log.comment(1, ":sm-queue " + this.pending.size() +
+                       " :sm-submitted " + this.submitted.get() + " :sm-dropped " + this.dropped.get() +
+                       " :sm-completed " + ncompleted + " :sm-succeeded " + this.succeeded.get() +
+                       " :sm-injected " + this.injected.get() +
+                       " :sm-latency " + (ncompleted > 0 ? this.latency_ns.get() / 1e9 / ncompleted : 0.0));
+    }
+
+    /**
+     * Computes the probability of applying a smart operator, averaged over the workers' operators, which
+     * adapt it if evolutionary smart operators are enabled.
+     * @return The probability.
+     */
+    private double probability() {
+        double p = 0.0;
+        for (int i = 0; i < this.operators.size(); ++i) {
+            p += this.operators.get(i).getMutationProbability();
+        }
+        return p / this.operators.size();
+    }
+
+    @Override
+    public int getArity() { return 1; }
+
+    @Override
+    public Solution[] evolve(Solution[] solutions) {
+        Solution ready = this.done.poll();
+        if (ready != null) {
+            this.injected.incrementAndGet();
+            return new Solution[] { ready };
+        }
+        if (stopped() || PRNG.nextDouble() > probability()) {
+            return solutions;
+        }
+        if (this.pending.offer(new Request(solutions[0].copy()))) {
+            this.submitted.incrementAndGet();
+        }
+        else {
+            this.dropped.incrementAndGet();
+        }
+        return solutions;
+    }
+
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sat4j.core.Vec;
+import org.sat4j.moco.pb.ConstrID;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVec;
+
+/**
+ * Class that implements an exact algorithm for bi-objective MOCO instances with linear objectives.
+ * The supported Pareto-optimal solutions are found first through dichotomic search between the lexicographic
+ * optima. Then, the non-supported ones are found through epsilon-constraint steps inside the box between each
+ * pair of neighbouring supported solutions, bounding the second objective while lexicographically minimizing
+ * both. Every solution is saved in the result as soon as it is found.
+ */
+public class BiObjectiveDichotomic extends MOCOAlgorithm {
+
+    /**
+     * Stores the PB solver to be used by the algorithm.
+     */
+    private PBSolver solver = null;
+
+    /**
+     * Stores the encoder of the objective bound constraints.
+     */
+    private ObjectiveCuts cuts = null;
+
+    /**
+     * Checks if the algorithm can be applied to a given MOCO instance, i.e., if it has exactly two objectives
+     * and both are linear.
+     * @param m The instance.
+     * @return True if the algorithm supports {@code m}, false otherwise.
+     */
+    public static boolean supports(Instance m) {
+        return m.nObjs() == 2 && ObjectiveCuts.supports(m);
+    }
+
+    /**
+     * Creates an instance of a MOCO solver, for a given bi-objective instance, that applies dichotomic search
+     * followed by epsilon-constraint steps.
+     * @param m The MOCO instance. Must satisfy {@link #supports(Instance)}.
+     */
+    public BiObjectiveDichotomic(Instance m) {
+        super(m, false, false);
+        assert(supports(m));
+        this.cuts = new ObjectiveCuts(m);
+        try {
+            this.solver = buildSolver();
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "Contradiction in BiObjectiveDichotomic.buildSolver");
+            this.result.setParetoFrontFound();
+        }
+    }
+
+    /**
+     * Creates a PB oracle initialized with the MOCO's constraints.
+     * @return The oracle.
+     * @throws ContradictionException if the oracle detects that the MOCO's constraint set is unsatisfiable.
+     */
+    private PBSolver buildSolver() throws ContradictionException {
+        PBSolver solver = new PBSolver();
+        solver.newVars(this.problem.nVars());
+        for (int i = 0; i < this.problem.nConstrs(); ++i) {
+            solver.addConstr(this.problem.getConstr(i));
+        }
+        return solver;
+    }
+
+    /**
+     * Applies dichotomic search followed by epsilon-constraint steps to the MOCO instance provided in
+     * {@link #BiObjectiveDichotomic(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "BiObjectiveDichotomic.solve called on already solved instance");
+            return;
+        }
+        Log.comment(3, "in BiObjectiveDichotomic.solve");
+        Real[] first = lexMinimize(0, null, null);
+        if (first == null) {
+            if (this.solver.isSolved()) { this.result.setParetoFrontFound(); }
+            return;
+        }
+        Real[] second = lexMinimize(1, null, null);
+        if (second == null) { return; }
+        List<Real[]> supported = new ArrayList<Real[]>();
+        supported.add(first);
+        if (!dichotomic(first, second, supported)) { return; }
+        if (first[0].lessThan(second[0])) { supported.add(second); }
+        Log.comment(1, ":supported-points " + supported.size() + " :elapsed " + Clock.instance().getElapsed());
+        for (int i = 0; i+1 < supported.size(); ++i) {
+            if (!fillBox(supported.get(i), supported.get(i+1))) { return; }
+        }
+        Log.comment(1, ":pareto-points " + this.result.nSolutions() + " :elapsed " + Clock.instance().getElapsed());
+        this.result.setParetoFrontFound();
+        Log.comment(3, "out BiObjectiveDichotomic.solve");
+    }
+
+    /**
+     * Searches for the supported solutions strictly between two neighbouring supported solutions and appends
+     * them to a list, sorted by the first objective.
+     * @param a The cost vector that is better on the first objective.
+     * @param b The cost vector that is better on the second objective.
+     * @param supported The list of supported cost vectors.
+     * @return True if the search finished, false if the solver ran out of time.
+     */
+    private boolean dichotomic(Real[] a, Real[] b, List<Real[]> supported) {
+        if (!a[0].lessThan(b[0]) || !b[1].lessThan(a[1])) { return true; }
+        Real[] w = new Real[] { a[1].subtract(b[1]), b[0].subtract(a[0]) };
+        Real[] c = minimize(w);
+        if (c == null) { return false; }
+        if (ObjectiveCuts.weightedSum(w, c).lessThan(ObjectiveCuts.weightedSum(w, a))) {
+            if (!dichotomic(a, c, supported)) { return false; }
+            supported.add(c);
+            return dichotomic(c, b, supported);
+        }
+        return true;
+    }
+
+    /**
+     * Searches for the non-supported solutions strictly between two neighbouring supported solutions, through
+     * epsilon-constraint steps on the second objective.
+     * @param a The cost vector that is better on the first objective.
+     * @param b The cost vector that is better on the second objective.
+     * @return True if the search finished, false if the solver ran out of time.
+     */
+    private boolean fillBox(Real[] a, Real[] b) {
+        Real ub0 = b[0].subtract(this.cuts.getUnit(0));
+        Real[] cur = a;
+        while (true) {
+            Real ub1 = cur[1].subtract(this.cuts.getUnit(1));
+            if (ub1.lessOrEqual(b[1])) { return true; }
+            Real[] c = lexMinimize(0, ub0, ub1);
+            if (c == null) { return this.solver.isSolved(); }
+            cur = c;
+        }
+    }
+
+    /**
+     * Computes a lexicographic optimum, subject to optional upper bounds on the objectives, and saves its model
+     * in the result.
+     * @param first The index of the objective to be minimized first.
+     * @param ub0 The upper bound on the first objective, or null if none.
+     * @param ub1 The upper bound on the second objective, or null if none.
+     * @return The cost vector of the lexicographic optimum, or null if the bounded constraints are
+     * unsatisfiable or if the solver ran out of time.
+     */
+    private Real[] lexMinimize(int first, Real ub0, Real ub1) {
+        IVec<ConstrID> ids = new Vec<ConstrID>();
+        try {
+            if (ub0 != null) { ids.push(this.solver.addRemovableConstr(this.cuts.mkUpperBound(0, ub0))); }
+            if (ub1 != null) { ids.push(this.solver.addRemovableConstr(this.cuts.mkUpperBound(1, ub1))); }
+            Real[] w = new Real[] { Real.ZERO, Real.ZERO };
+            w[first] = Real.ONE;
+            Real[] point = minimize(w);
+            if (point == null) { return null; }
+            ids.push(this.solver.addRemovableConstr(this.cuts.mkUpperBound(first, point[first])));
+            w[first] = Real.ZERO;
+            w[1-first] = Real.ONE;
+            point = minimize(w);
+            if (point != null) {
+                Log.comment(2, ":pareto-point " + point[0] + " " + point[1]);
+            }
+            return point;
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "contradiction bounding objectives");
+            return null;
+        }
+        finally {
+            this.solver.removeConstrs(ids);
+        }
+    }
+
+    /**
+     * Minimizes a weighted sum of the objectives, through linear search, subject to the constraints currently
+     * in the solver. Every improving model is saved in the result.
+     * @param w The weight vector.
+     * @return The cost vector of the optimum, or null if the constraints are unsatisfiable or if the solver ran
+     * out of time.
+     */
+    private Real[] minimize(Real[] w) {
+        LinearObj f = this.cuts.scalarize(w);
+        Real unit = ObjectiveCuts.unitOf(f);
+        this.solver.check();
+        if (!this.solver.isSolved() || this.solver.isUnsat()) { return null; }
+        Real[] point = this.cuts.evaluate(this.solver);
+        this.result.saveModel(this.solver);
+        while (true) {
+            IVec<ConstrID> ids = new Vec<ConstrID>();
+            try {
+                Real ub = ObjectiveCuts.weightedSum(w, point).subtract(unit);
+                ids.push(this.solver.addRemovableConstr(PBFactory.instance().mkLE(f.getLits(), f.getCoeffs(), ub)));
+            }
+            catch (ContradictionException e) {
+                return point;
+            }
+            this.solver.check();
+            boolean solved = this.solver.isSolved(), improved = solved && this.solver.isSat();
+            if (improved) {
+                point = this.cuts.evaluate(this.solver);
+                this.result.saveModel(this.solver);
+            }
+            this.solver.removeConstrs(ids);
+            if (!solved) { return null; }
+            if (!improved) { return point; }
+        }
+    }
+
+}
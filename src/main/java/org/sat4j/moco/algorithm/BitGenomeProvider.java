@@ -0,0 +1,34 @@
+package org.sat4j.moco.algorithm;
+
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.spi.OperatorProvider;
+import org.moeaframework.util.TypedProperties;
+import org.sat4j.moco.analysis.MOCOProblem;
+
+import java.util.Properties;
+
+public class BitGenomeProvider extends OperatorProvider {
+
+    @Override
+    public String getMutationHint(Problem problem) { return null; }
+
+    @Override
+    public String getVariationHint(Problem problem) { return null; }
+
+    @Override
+    public Variation getVariation(String s, Properties properties, Problem problem) {
+        TypedProperties typed_props = new TypedProperties(properties);
+        if (s.equals("bux")) {
+            return new BitUniformCrossover(typed_props.getDouble("ux.rate", 1.0));
+        }
+        else if (s.equals("bspm")) {
+            return new BitMutation(typed_props.getDouble("spm.rate", 0.05), false);
+        }
+        else if (s.equals("bum")) {
+            int nbits = Math.max(1, ((MOCOProblem)problem).getNumberOfFreeVariables());
+            return new BitMutation(typed_props.getDouble("um.rate", 1.0 / nbits), true);
+        }
+        return null;
+    }
+}
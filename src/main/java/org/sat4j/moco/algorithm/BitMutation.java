@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.variable.BinaryVariable;
+
+/**
+ * Mutation for individuals encoded as a single bitset variable.
+ * In single point mode, a random bit is assigned a random value with a given probability, as in
+ * {@link SinglePointMutation}. In uniform mode, each bit is assigned a random value with a given probability;
+ * the positions of those bits are sampled directly from the geometric distribution, so the cost is
+ * proportional to the number of mutated bits rather than to the genome's length.
+ */
+public class BitMutation implements Variation {
+
+    /**
+     * Stores the mutation probability, per individual in single point mode and per bit in uniform mode.
+     */
+    private double probability;
+
+    /**
+     * Stores if uniform mode is in use.
+     */
+    private boolean uniform;
+
+    /**
+     * Creates an instance of the bitset mutation.
+     * @param probability The mutation probability, per individual in single point mode and per bit in uniform
+     * mode.
+     * @param uniform True if uniform mode is to be used, false for single point mode.
+     */
+    public BitMutation(double probability, boolean uniform) {
+        this.probability = probability;
+        this.uniform = uniform;
+    }
+
+    @Override
+    public int getArity() { return 1; }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        int nbits = ((BinaryVariable)parents[0].getVariable(0)).getNumberOfBits();
+        if (nbits == 0 || this.probability <= 0.0) { return parents; }
+        if (!this.uniform) {
+            if (PRNG.nextDouble() > this.probability) { return parents; }
+            Solution result = parents[0].copy();
+            ((BinaryVariable)result.getVariable(0)).set(PRNG.nextInt(nbits), PRNG.nextBoolean());
+            return new Solution[] { result };
+        }
+        int i = nextPosition(-1);
+        if (i >= nbits) { return parents; }
+        Solution result = parents[0].copy();
+        BinaryVariable genes = (BinaryVariable)result.getVariable(0);
+        for (; i < nbits; i = nextPosition(i)) {
+            genes.set(i, PRNG.nextBoolean());
+        }
+        return new Solution[] { result };
+    }
+
+    /**
+     * Samples the position of the next bit to mutate in uniform mode.
+     * @param i The position of the last bit mutated, or -1 if none.
+     * @return The position of the next bit to mutate.
+     */
+    private int nextPosition(int i) {
+        if (this.probability >= 1.0) { return i+1; }
+        double skip = Math.floor(Math.log(1.0 - PRNG.nextDouble()) / Math.log(1.0 - this.probability));
+        return (int)Math.min((long)i + 1 + (long)skip, Integer.MAX_VALUE);
+    }
+
+}
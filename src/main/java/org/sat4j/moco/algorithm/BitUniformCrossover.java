@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.BitSet;
+
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.variable.BinaryVariable;
+
+/**
+ * Uniform crossover for individuals encoded as a single bitset variable.
+ * The bits where the parents differ are found with word-wide operations, and only those bits are exchanged,
+ * each with probability 0.5.
+ */
+public class BitUniformCrossover implements Variation {
+
+    /**
+     * Stores the probability of applying the crossover.
+     */
+    private double probability;
+
+    /**
+     * Creates an instance of the bitset uniform crossover.
+     * @param probability The probability of applying the crossover.
+     */
+    public BitUniformCrossover(double probability) {
+        this.probability = probability;
+    }
+
+    @Override
+    public int getArity() { return 2; }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        Solution c1 = parents[0].copy();
+        Solution c2 = parents[1].copy();
+        if (PRNG.nextDouble() <= this.probability) {
+            BinaryVariable g1 = (BinaryVariable)c1.getVariable(0);
+            BinaryVariable g2 = (BinaryVariable)c2.getVariable(0);
+            BitSet diff = g1.getBitSet();
+            diff.xor(g2.getBitSet());
+            for (int i = diff.nextSetBit(0); i >= 0; i = diff.nextSetBit(i+1)) {
+                if (PRNG.nextBoolean()) {
+                    boolean b = g1.get(i);
+                    g1.set(i, !b);
+                    g2.set(i, b);
+                }
+            }
+        }
+        return new Solution[] { c1, c2 };
+    }
+
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sat4j.core.ReadOnlyVecInt;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Shared log of globally valid clauses (e.g. MCS blocking clauses) published by concurrent workers.
+ * Each worker reads the log from its own cursor, so workers that start late still receive every clause
+ * published before them.
+ */
+public class ClauseExchange {
+
+    /**
+     * Stores the published clauses, in publication order.
+     */
+    private List<ReadOnlyVecInt> clauses = new ArrayList<ReadOnlyVecInt>();
+
+    /**
+     * Stores the identifier of the worker that published each clause.
+     */
+    private List<Integer> origins = new ArrayList<Integer>();
+
+    /**
+     * Publishes a clause to every other worker.
+     * @param worker The identifier of the publishing worker.
+     * @param clause The clause.
+     */
+    public synchronized void publish(int worker, IVecInt clause) {
+        IVecInt cpy = new VecInt(clause.size());
+        clause.copyTo(cpy);
+        this.clauses.add(new ReadOnlyVecInt(cpy));
+        this.origins.add(worker);
+    }
+
+    /**
+     * Retrieves the clauses published by other workers since a given position in the log.
+     * @param worker The identifier of the worker retrieving the clauses.
+     * @param from The log position to start from.
+     * @param out The vector to which the clauses are added.
+     * @return The log position to start from in the next call.
+     */
+    public synchronized int fetch(int worker, int from, IVec<IVecInt> out) {
+        for (int i = from; i < this.clauses.size(); ++i) {
+            if (this.origins.get(i) != worker) {
+                out.push(this.clauses.get(i));
+            }
+        }
+        return this.clauses.size();
+    }
+
+    /**
+     * Retrieves the number of clauses published so far.
+     * @return The number of clauses.
+     */
+    public synchronized int size() { return this.clauses.size(); }
+
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.InstanceComponents;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+
+/**
+ * Class that decomposes a MOCO instance with linear objectives into the connected components of its
+ * constraint graph, solves each component independently and in parallel with an exact algorithm, and
+ * combines the component fronts.
+ * Since the cost vector of a solution is the sum of the cost vectors of its restrictions to the components,
+ * the front of the instance is given by the nondominated elements of the Minkowski sum of the component
+ * fronts.
+ */
+public class ComponentDecomposition extends MOCOAlgorithm {
+
+    /**
+     * Stores the connected components of the MOCO instance.
+     */
+    private InstanceComponents comps = null;
+
+    /**
+     * Stores the configuration passed to the algorithms that solve the components.
+     */
+    private Params params = new Params();
+
+    /**
+     * Stores the name of the algorithm used to solve each component.
+     */
+    private String alg = "MCSE";
+
+    /**
+     * Stores the number of components solved simultaneously.
+     */
+    private int nthreads = 1;
+
+    /**
+     * Checks if a given MOCO instance can be decomposed, i.e., if all its objectives are linear.
+     * @param m The instance.
+     * @return True if {@code m} can be decomposed, false otherwise.
+     */
+    public static boolean supports(Instance m) { return InstanceComponents.supports(m); }
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that solves each connected component of the
+     * instance separately.
+     * @param m The MOCO instance. All its objectives must be linear.
+     */
+    public ComponentDecomposition(Instance m) {
+        super(m, false, false);
+        this.comps = new InstanceComponents(m);
+    }
+
+    /**
+     * Sets the algorithm configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.params = p;
+        this.nthreads = p.getThreads();
+        this.alg = p.getAlgorithm();
+        if (this.alg.equals("PMCSE")) {
+            this.alg = "MCSE";                  // components already run in parallel
+        }
+        else if (!this.alg.equals("MCSE") && !this.alg.equals("GIA") && !this.alg.equals("CORE") &&
+                 !this.alg.equals("WS") && !this.alg.equals("DICHO")) {
+            Log.comment(this.alg + " is not an exact algorithm, solving components with MCSE");
+            this.alg = "MCSE";
+        }
+        Log.comment(":components " + this.comps.size() + " :component-alg " + this.alg + " :threads " + this.nthreads);
+    }
+
+    /**
+     * Builds the algorithm that solves a given sub-instance.
+     * @param sub The sub-instance.
+     * @return The algorithm.
+     */
+    private MOCOAlgorithm mkSolver(Instance sub) {
+        if (this.alg.equals("GIA") || (this.alg.equals("DICHO") && !BiObjectiveDichotomic.supports(sub))) {
+            return new GuidedImprovement(sub);
+        }
+        else if (this.alg.equals("DICHO")) {
+            return new BiObjectiveDichotomic(sub);
+        }
+        else if (this.alg.equals("CORE")) {
+            return new CoreGuidedPareto(sub);
+        }
+        else if (this.alg.equals("WS")) {
+            WeightedScalarization solver = new WeightedScalarization(sub);
+            solver.updtParams(this.params);
+            return solver;
+        }
+        ParetoMCS solver = new ParetoMCS(sub);
+        solver.updtParams(this.params);
+        return solver;
+    }
+
+    /**
+     * Task that solves the sub-instance of a single component.
+     */
+    private class ComponentTask implements Callable<Result> {
+
+        /**
+         * Stores the component index.
+         */
+        private int k;
+
+        /**
+         * Creates a task that solves a given component.
+         * @param k The component index.
+         */
+        ComponentTask(int k) { this.k = k; }
+
+        /**
+         * Solves the component's sub-instance.
+         * @return The component's result.
+         */
+        public Result call() {
+            Instance sub = comps.getInstance(this.k);
+            MOCOAlgorithm solver = mkSolver(sub);
+            solver.getResult().setLogProgress(false);
+            solver.solve();
+            Result r = solver.getResult();
+            Log.comment(1, ":component " + this.k + " :vars " + sub.nVars() + " :constrs " + sub.nConstrs() +
+                           " :front-size " + r.nSolutions() + " :optimal " + r.isParetoFront() +
+                           " :elapsed " + Clock.instance().getElapsed());
+            return r;
+        }
+
+    }
+
+    /**
+     * Applies the component decomposition algorithm to the MOCO instance provided in
+     * {@link #ComponentDecomposition(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "ComponentDecomposition.solve called on already solved instance");
+            return;
+        }
+        Log.comment(3, "in ComponentDecomposition.solve");
+        ExecutorService pool = Executors.newFixedThreadPool(this.nthreads);
+        List<Future<Result>> futures = new ArrayList<Future<Result>>(this.comps.size());
+        for (int k = 0; k < this.comps.size(); ++k) {
+            futures.add(pool.submit(new ComponentTask(k)));
+        }
+        pool.shutdown();
+        List<Result> fronts = new ArrayList<Result>(this.comps.size());
+        try {
+            for (int k = 0; k < futures.size(); ++k) {
+                fronts.add(futures.get(k).get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            return;
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        boolean done = true;
+        for (int k = 0; k < fronts.size(); ++k) {
+            if (fronts.get(k).nSolutions() == 0) {
+                if (fronts.get(k).isParetoFront()) {
+                    Log.comment(1, "component " + k + " is unsatisfiable");
+                    this.result.setParetoFrontFound();
+                }
+                Log.comment(3, "out ComponentDecomposition.solve");
+                return;
+            }
+            done = done && fronts.get(k).isParetoFront();
+        }
+        combine(fronts);
+        if (done) {
+            this.result.setParetoFrontFound();
+        }
+        Log.comment(3, "out ComponentDecomposition.solve");
+    }
+
+    /**
+     * A combination of solutions, one from each of a prefix of the components, and the sum of their cost
+     * vectors.
+     */
+    static class Combination {
+
+        /**
+         * Stores the sum of the cost vectors.
+         */
+        private double[] costs;
+
+        /**
+         * Stores the index of the solution chosen for each component in the prefix.
+         */
+        private int[] picks;
+
+        /**
+         * Creates a combination.
+         * @param costs The sum of the cost vectors.
+         * @param picks The index of the solution chosen for each component in the prefix.
+         */
+        Combination(double[] costs, int[] picks) {
+            this.costs = costs;
+            this.picks = picks;
+        }
+
+    }
+
+    /**
+     * Orders combinations lexicographically by their cost vectors.
+     */
+    private static final Comparator<Combination> LEX_ORDER = new Comparator<Combination>() {
+        public int compare(Combination a, Combination b) {
+            for (int i = 0; i < a.costs.length; ++i) {
+                int c = Double.compare(a.costs[i], b.costs[i]);
+                if (c != 0) { return c; }
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Combines the fronts of the components into the front of the MOCO instance and stores the corresponding
+     * solutions in the result.
+     * The nondominated Minkowski sum is built one component at a time, filtering dominated sums after each
+     * step.
+     * @param fronts The result of each component.
+     */
+    private void combine(List<Result> fronts) {
+        List<Combination> acc = new ArrayList<Combination>();
+        acc.add(new Combination(new double[this.problem.nObjs()], new int[0]));
+        for (int k = 0; k < fronts.size(); ++k) {
+            Result r = fronts.get(k);
+            List<Combination> sums = new ArrayList<Combination>(acc.size() * r.nSolutions());
+            for (int j = 0; j < r.nSolutions(); ++j) {
+                double[] costs = r.getCosts(j);
+                for (int a = 0; a < acc.size(); ++a) {
+                    Combination c = acc.get(a);
+                    double[] sum = new double[costs.length];
+                    for (int i = 0; i < costs.length; ++i) {
+                        sum[i] = c.costs[i] + costs[i];
+                    }
+                    int[] picks = Arrays.copyOf(c.picks, k+1);
+                    picks[k] = j;
+                    sums.add(new Combination(sum, picks));
+                }
+            }
+            acc = nondominated(sums);
+            Log.comment(2, ":combined-components " + (k+1) + " :front-size " + acc.size());
+        }
+        boolean[] a = new boolean[this.problem.nVars()];
+        for (int c = 0; c < acc.size(); ++c) {
+            int[] picks = acc.get(c).picks;
+            for (int k = 0; k < picks.length; ++k) {
+                this.comps.lift(k, fronts.get(k).getAssignment(picks[k]), a);
+            }
+            this.result.saveAssignment(a);
+        }
+    }
+
+    /**
+     * Filters the dominated and duplicate combinations out of a given list.
+     * After sorting lexicographically, a combination can only be weakly dominated by the ones before it, so a
+     * single pass against the combinations kept so far suffices; with two objectives, comparing with the last
+     * one kept is enough.
+     * @param sums The combinations.
+     * @return The nondominated combinations, one for each cost vector.
+     */
+    static List<Combination> nondominated(List<Combination> sums) {
+        Combination[] sorted = sums.toArray(new Combination[sums.size()]);
+        Arrays.sort(sorted, LEX_ORDER);
+        List<Combination> kept = new ArrayList<Combination>();
+        for (int s = 0; s < sorted.length; ++s) {
+            double[] costs = sorted[s].costs;
+            boolean dominated = false;
+            if (costs.length == 2) {
+                dominated = !kept.isEmpty() && kept.get(kept.size()-1).costs[1] <= costs[1];
+            }
+            else {
+                for (int c = kept.size()-1; !dominated && c >= 0; --c) {
+                    double[] other = kept.get(c).costs;
+                    int i = 0;
+                    while (i < costs.length && other[i] <= costs[i]) { ++i; }
+                    dominated = i == costs.length;
+                }
+            }
+            if (!dominated) {
+                kept.add(sorted[s]);
+            }
+        }
+        return kept;
+    }
+
+}
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.pb.ConstrID;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Class that implements a core-guided Pareto enumeration algorithm for MOCO with linear objectives.
+ * Each Pareto-optimal solution is obtained as the lexicographic optimum of the region not yet weakly dominated
+ * by the solutions found so far, after which that region is excluded.
+ * Each objective is minimized by first extracting disjoint unsatisfiable cores over the assumption that its
+ * literals take their cheapest values, stratified by coefficient, which yields a lower bound. The gap between
+ * that lower bound and the cost of the models found is then closed through binary search.
+ */
+public class CoreGuidedPareto extends MOCOAlgorithm {
+
+    /**
+     * Stores the PB solver to be used by the algorithm.
+     */
+    private PBSolver solver = null;
+
+    /**
+     * Stores the encoder of the objective bound and dominance constraints.
+     */
+    private ObjectiveCuts cuts = null;
+
+    /**
+     * Stores the number of unsatisfiable cores extracted so far.
+     */
+    int ncores = 0;
+
+    /**
+     * Stores the number of objective minimizations that were solved by the core lower bound alone.
+     */
+    int nlb_hits = 0;
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies core-guided Pareto enumeration.
+     * @param m The MOCO instance.
+     */
+    public CoreGuidedPareto(Instance m) {
+        super(m, false, false);
+        if (ObjectiveCuts.supports(m)) {
+            this.cuts = new ObjectiveCuts(m);
+        }
+        try {
+            this.solver = buildSolver();
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "Contradiction in CoreGuidedPareto.buildSolver");
+            this.result.setParetoFrontFound();
+        }
+    }
+
+    /**
+     * Creates a PB oracle initialized with the MOCO's constraints.
+     * @return The oracle.
+     * @throws ContradictionException if the oracle detects that the MOCO's constraint set is unsatisfiable.
+     */
+    private PBSolver buildSolver() throws ContradictionException {
+        PBSolver solver = new PBSolver();
+        solver.newVars(this.problem.nVars());
+        for (int i = 0; i < this.problem.nConstrs(); ++i) {
+            solver.addConstr(this.problem.getConstr(i));
+        }
+        return solver;
+    }
+
+    /**
+     * Applies core-guided Pareto enumeration to the MOCO instance provided in
+     * {@link #CoreGuidedPareto(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "CoreGuidedPareto.solve called on already solved instance");
+            return;
+        }
+        if (this.cuts == null) {
+            Log.comment("core-guided enumeration requires linear objectives");
+            return;
+        }
+        Log.comment(3, "in CoreGuidedPareto.solve");
+        int npoints = 0;
+        boolean done = false;
+        while (!done) {
+            Real[] point = lexMinimize();
+            if (!this.solver.isSolved()) { break; }
+            if (point == null) {
+                done = true;
+                break;
+            }
+            ++npoints;
+            Log.comment(1, ":pareto-points " + npoints + " :cores " + this.ncores + " :lb-hits " + this.nlb_hits +
+                           " :elapsed " + Clock.instance().getElapsed());
+            try {
+                this.cuts.addNotWeaklyDominated(this.solver, point);
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction excluding dominated region");
+                done = true;
+            }
+        }
+        if (done) {
+            this.result.setParetoFrontFound();
+        }
+        else {
+            Log.comment(1, "core-guided enumeration timeout");
+        }
+        Log.comment(3, "out CoreGuidedPareto.solve");
+    }
+
+    /**
+     * Computes the lexicographic optimum, with respect to the objective order, of the solutions not yet
+     * excluded from the oracle, and saves its model in the result.
+     * If the oracle runs out of time, its state is left unsolved.
+     * @return The cost vector of the lexicographic optimum, or null if no solution is left or if the oracle
+     * ran out of time.
+     */
+    private Real[] lexMinimize() {
+        Real[] point = new Real[this.cuts.nObjs()];
+        IVec<ConstrID> fixed = new Vec<ConstrID>();
+        try {
+            for (int i = 0; i < this.cuts.nObjs(); ++i) {
+                point[i] = minimize(i);
+                if (point[i] == null) { return null; }
+                fixed.push(this.solver.addRemovableConstr(this.cuts.mkUpperBound(i, point[i])));
+            }
+            this.solver.check();
+            if (!this.solver.isSolved()) { return null; }
+            assert(this.solver.isSat());
+            this.result.saveModel(this.solver);
+            return point;
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "contradiction fixing lexicographic bounds");
+            return null;
+        }
+        finally {
+            this.solver.removeConstrs(fixed);
+        }
+    }
+
+    /**
+     * Minimizes a given objective subject to the constraints currently in the oracle.
+     * If the oracle runs out of time, its state is left unsolved.
+     * @param i The objective index.
+     * @return The optimum value of the {@code i}-th objective, or null if the constraints are unsatisfiable or if
+     * the oracle ran out of time.
+     */
+    Real minimize(int i) {
+        Real[] bounds = coreLowerBound(i);
+        if (bounds == null) { return null; }
+        Real lb = bounds[0], ub = bounds[1];
+        if (lb.equals(ub)) {
+            this.nlb_hits++;
+            return ub;
+        }
+        Real unit = this.cuts.getUnit(i);
+        while (lb.lessThan(ub)) {
+            Real half_steps = new Real(ub.subtract(lb).divide(unit).asBigInteger().shiftRight(1));
+            Real mid = lb.add(unit.multiply(half_steps));
+            IVec<ConstrID> ids = new Vec<ConstrID>();
+            try {
+                ids.push(this.solver.addRemovableConstr(this.cuts.mkUpperBound(i, mid)));
+                this.solver.check();
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction bounding objective " + i);
+                this.solver.removeConstrs(ids);
+                lb = mid.add(unit);
+                continue;
+            }
+            if (!this.solver.isSolved()) {
+                this.solver.removeConstrs(ids);
+                return null;
+            }
+            if (this.solver.isSat()) {
+                ub = this.cuts.getObj(i).evaluate(this.solver);
+                this.result.saveModel(this.solver);
+            }
+            else {
+                lb = mid.add(unit);
+            }
+            this.solver.removeConstrs(ids);
+        }
+        Log.comment(2, ":obj " + i + " :opt " + ub);
+        return ub;
+    }
+
+    /**
+     * Computes a lower bound on a given objective, subject to the constraints currently in the oracle, from
+     * disjoint unsatisfiable cores over the assumption that the objective's literals take their cheapest values.
+     * Assumptions are introduced in strata of decreasing coefficient, so that the first cores extracted are the
+     * most expensive ones.
+     * If the oracle runs out of time, its state is left unsolved.
+     * @param i The objective index.
+     * @return A pair with the lower bound and the cost of the model found once the remaining assumptions become
+     * satisfiable, or null if the constraints are unsatisfiable or if the oracle ran out of time.
+     */
+    Real[] coreLowerBound(int i) {
+        LinearObj obj = this.cuts.getObj(i);
+        Map<Integer, Real> weights = new HashMap<Integer, Real>();
+        Real lb = Real.ZERO;
+        for (int j = 0; j < obj.getLits().size(); ++j) {
+            int lit = obj.getLits().get(j);
+            Real coeff = obj.getCoeffs().get(j);
+            if (coeff.isNegative()) {
+                lb = lb.add(coeff);
+                lit = -lit;
+                coeff = coeff.negate();
+            }
+            if (coeff.isPositive()) {
+                Real w = weights.get(-lit);
+                weights.put(-lit, w == null ? coeff : w.add(coeff));
+            }
+        }
+        Real threshold = maxWeight(weights, null);
+        while (true) {
+            IVecInt asms = new VecInt();
+            for (Iterator<Map.Entry<Integer, Real>> it = weights.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Integer, Real> entry = it.next();
+                if (threshold != null && entry.getValue().greaterOrEqual(threshold)) {
+                    asms.push(entry.getKey());
+                }
+            }
+            this.solver.check(asms);
+            if (!this.solver.isSolved()) { return null; }
+            if (this.solver.isSat()) {
+                this.result.saveModel(this.solver);
+                threshold = maxWeight(weights, threshold);
+                if (threshold == null) {
+                    return new Real[] { lb, obj.evaluate(this.solver) };
+                }
+                continue;
+            }
+            IVecInt core = this.solver.unsatExplanation();
+            Real core_w = null;
+            for (int j = 0; j < core.size(); ++j) {
+                Real w = weights.get(core.get(j));
+                if (w != null && (core_w == null || w.lessThan(core_w))) {
+                    core_w = w;
+                }
+            }
+            if (core_w == null) { return null; }        // constraints alone are unsatisfiable
+            for (int j = 0; j < core.size(); ++j) {
+                weights.remove(core.get(j));
+            }
+            lb = lb.add(core_w);
+            this.ncores++;
+            Log.comment(3, ":obj " + i + " :core-size " + core.size() + " :lb " + lb);
+        }
+    }
+
+    /**
+     * Computes the largest assumption weight smaller than a given threshold.
+     * @param weights The assumption weights.
+     * @param below The threshold, or null for no threshold.
+     * @return The largest weight in {@code weights} strictly smaller than {@code below}, or null if there is
+     * none.
+     */
+    private Real maxWeight(Map<Integer, Real> weights, Real below) {
+        Real max = null;
+        for (Iterator<Real> it = weights.values().iterator(); it.hasNext();) {
+            Real w = it.next();
+            if ((below == null || w.lessThan(below)) && (max == null || w.greaterThan(max))) {
+                max = w;
+            }
+        }
+        return max;
+    }
+
+}
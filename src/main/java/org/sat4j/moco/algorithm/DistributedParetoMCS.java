@@ -0,0 +1,593 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.sat4j.moco.Launcher;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Class that runs the Pareto-MCS algorithm on local worker processes, each with its own heap.
+ * The coordinator splits the search into subspaces (cubes or boxes, see {@link Subspace}) and hands them to
+ * {@link ParetoMCSWorker} processes over local TCP connections. Workers stream back nondominated models, which
+ * are merged into the coordinator's result, and MCS blocking clauses, which are relayed to the other workers.
+ * Workers parse the instance file themselves; the file is shared through the operating system's page cache.
+ * If a worker fails, its current subspace is handed to another worker and the process is restarted. Models
+ * and clauses already received are kept, and the clauses are replayed to the restarted worker.
+ * Messages to each worker go through a {@link MessageWriter}, so no socket is written while holding the
+ * coordinator's lock. The workers' standard output is relayed as comments with verbosity 2 or higher.
+ */
+public class DistributedParetoMCS extends MOCOAlgorithm {
+
+    /**
+     * Number of subspaces created per worker, so that workers that finish early can pick up more work.
+     */
+    private static final int SPLITS_PER_WORKER = 4;
+
+    /**
+     * Maximum number of times each worker slot is restarted after a failure.
+     */
+    static final int MAX_RESTARTS = 3;
+
+    /**
+     * Interval, in milliseconds, between checks for dominated subspaces and timeouts.
+     */
+    private static final long POLL_MS = 100;
+
+    /**
+     * Stores the command line arguments given to the solver, to be passed on to the workers.
+     */
+    private String[] args;
+
+    /**
+     * Stores the number of worker processes.
+     */
+    private int nprocs = 1;
+
+    /**
+     * Stores the splitting strategy.
+     */
+    private String split = ParallelParetoMCS.CUBE;
+
+    /**
+     * Stores the subspaces not yet assigned to a worker.
+     */
+    LinkedList<Subspace> pending = new LinkedList<Subspace>();
+
+    /**
+     * Stores the number of subspaces not yet finished.
+     */
+    int nleft = 0;
+
+    /**
+     * Boolean indicating if every finished subspace was fully enumerated.
+     */
+    private boolean complete = true;
+
+    /**
+     * Stores the clauses received from workers, in the wire format, to be relayed and replayed.
+     */
+    private List<String> clauses = new ArrayList<String>();
+
+    /**
+     * Stores the worker slots.
+     */
+    Slot[] slots = new Slot[0];
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies the Pareto-MCS algorithm over
+     * subspaces on local worker processes.
+     * @param m The MOCO instance.
+     * @param args The command line arguments given to the solver.
+     */
+    public DistributedParetoMCS(Instance m, String[] args) {
+        super(m, false, false);
+        this.args = args;
+    }
+
+    /**
+     * Sets the algorithm configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.nprocs = Math.max(1, p.getWorkerProcs());
+        this.split = p.getSplitMode();
+        if (this.split.equals(ParallelParetoMCS.BOX) && !ObjectiveCuts.supports(this.problem)) {
+            Log.comment("box splitting requires linear objectives, splitting into cubes");
+            this.split = ParallelParetoMCS.CUBE;
+        }
+        else if (!this.split.equals(ParallelParetoMCS.BOX)) {
+            this.split = ParallelParetoMCS.CUBE;
+        }
+        Log.comment(":worker-procs " + this.nprocs + " :split " + this.split);
+    }
+
+    /**
+     * Applies the Pareto-MCS algorithm on worker processes to the MOCO instance provided in
+     * {@link #DistributedParetoMCS(Instance, String[])}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "DistributedParetoMCS.solve called on already solved instance");
+            return;
+        }
+        Log.comment(3, "in DistributedParetoMCS.solve");
+        int nsubspaces = this.nprocs > 1 ? SPLITS_PER_WORKER * this.nprocs : 1;
+        List<Subspace> split = this.split.equals(ParallelParetoMCS.BOX) ? Subspace.boxes(this.problem, nsubspaces) :
+                                                                          Subspace.cubes(this.problem, nsubspaces);
+        synchronized (this) {
+            this.pending.addAll(split);
+            this.nleft = split.size();
+        }
+        Log.comment(1, ":subspaces " + split.size());
+        ServerSocket server = null;
+        Thread cleanup = new Thread() {
+            public void run() { destroyAll(); }
+        };
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        try {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            final ServerSocket srv = server;
+            Thread acceptor = new Thread() {
+                public void run() { acceptLoop(srv); }
+            };
+            acceptor.setDaemon(true);
+            acceptor.start();
+            this.slots = new Slot[this.nprocs];
+            for (int i = 0; i < this.nprocs; ++i) {
+                this.slots[i] = new Slot(i);
+                this.slots[i].launch(server.getLocalPort());
+            }
+            while (!finished() && !Clock.instance().timedOut()) {
+                Thread.sleep(POLL_MS);
+                cancelDominated();
+                checkProcesses();
+            }
+        }
+        catch (IOException e) {
+            Log.comment("coordinator error: " + e.getMessage());
+            this.complete = false;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            destroyAll();
+            try {
+                if (server != null) { server.close(); }
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            }
+            catch (IOException e) { /* intentionally left empty */ }
+            catch (IllegalStateException e) { /* already shutting down */ }
+        }
+        Log.comment(1, ":shared-clauses " + this.clauses.size() + " :elapsed " + Clock.instance().getElapsed());
+        synchronized (this) {
+            if (this.nleft == 0 && this.complete) {
+                this.result.setParetoFrontFound();
+            }
+            else {
+                Log.comment(1, "MCS extraction timeout");
+            }
+        }
+        Log.comment(3, "out DistributedParetoMCS.solve");
+    }
+
+    /**
+     * Checks if the search is over, either because every subspace was finished or because every worker slot
+     * failed permanently.
+     * @return True if the search is over, false otherwise.
+     */
+    synchronized boolean finished() {
+        if (this.nleft == 0) { return true; }
+        for (int i = 0; i < this.slots.length; ++i) {
+            if (this.slots[i].restarts <= MAX_RESTARTS) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Accepts worker connections and attaches them to their slots.
+     * @param server The server socket.
+     */
+    private void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                String hello = in.readLine();
+                if (hello == null || !hello.startsWith("HELLO ")) {
+                    socket.close();
+                    continue;
+                }
+                int slot = Integer.parseInt(hello.substring(6).trim());
+                this.slots[slot].attach(socket, in);
+            }
+            catch (IOException e) { /* server closed or failed handshake */ }
+            catch (RuntimeException e) { Log.comment(1, "invalid worker handshake"); }
+        }
+    }
+
+    /**
+     * Restarts worker processes that exited, whether or not they had connected.
+     */
+    private void checkProcesses() {
+        for (int i = 0; i < this.slots.length; ++i) {
+            Slot s = this.slots[i];
+            Process p = s.process;
+            if (p != null && exited(p)) {
+                Log.comment(1, ":worker " + i + (s.connected ? " exited" : " exited before connecting"));
+                s.fail(p);
+            }
+        }
+    }
+
+    /**
+     * Checks if a given process has exited.
+     * @param p The process.
+     * @return True if {@code p} has exited, false otherwise.
+     */
+    private static boolean exited(Process p) {
+        try {
+            p.exitValue();
+            return true;
+        }
+        catch (IllegalThreadStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cancels the pending and running boxes whose best achievable cost vector is weakly dominated by some
+     * solution in the result.
+     */
+    private synchronized void cancelDominated() {
+        for (Iterator<Subspace> it = this.pending.iterator(); it.hasNext();) {
+            Subspace sub = it.next();
+            if (sub.getCorner() != null && this.result.isWeaklyDominated(sub.getCorner())) {
+                it.remove();
+                this.nleft--;
+                Log.comment(2, ":cancel-subspace " + sub.getId());
+            }
+        }
+        for (int i = 0; i < this.slots.length; ++i) {
+            Subspace sub = this.slots[i].task;
+            if (sub != null && sub.getCorner() != null && !this.slots[i].cancel_sent &&
+                this.result.isWeaklyDominated(sub.getCorner())) {
+                this.slots[i].send("CANCEL " + sub.getId());
+                this.slots[i].cancel_sent = true;
+            }
+        }
+    }
+
+    /**
+     * Assigns pending subspaces to the idle connected workers.
+     */
+    private synchronized void assignPending() {
+        for (int i = 0; i < this.slots.length && !this.pending.isEmpty(); ++i) {
+            Slot s = this.slots[i];
+            if (s.connected && s.task == null) {
+                s.task = this.pending.removeFirst();
+                s.cancel_sent = false;
+                s.send("TASK " + s.task.encode());
+            }
+        }
+    }
+
+    /**
+     * Handles a finished subspace.
+     * @param s The slot of the worker that finished it.
+     * @param done True if the subspace was fully enumerated, false otherwise.
+     */
+    private synchronized void finish(Slot s, boolean done) {
+        if (s.task == null) { return; }
+        Log.comment(1, ":subspace " + s.task.getId() + " :done " + done);
+        s.task = null;
+        this.nleft--;
+        this.complete = this.complete && done;
+        assignPending();
+    }
+
+    /**
+     * Records a clause received from a worker and relays it to the other connected workers.
+     * @param from The slot of the worker that sent the clause.
+     * @param line The clause message.
+     */
+    private synchronized void relay(Slot from, String line) {
+        this.clauses.add(line);
+        for (int i = 0; i < this.slots.length; ++i) {
+            if (this.slots[i] != from && this.slots[i].connected) {
+                this.slots[i].send(line);
+            }
+        }
+    }
+
+    /**
+     * Terminates every worker process.
+     */
+    private void destroyAll() {
+        for (int i = 0; i < this.slots.length; ++i) {
+            this.slots[i].send("QUIT");
+            Process p = this.slots[i].process;
+            if (p != null) { p.destroy(); }
+        }
+    }
+
+    /**
+     * Builds the command line of a worker process.
+     * @param port The coordinator's local port.
+     * @param slot The worker's slot.
+     * @return The command line.
+     */
+    private List<String> workerCommand(int port, int slot) {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(Launcher.class.getName());
+        for (int i = 0; i < this.args.length; ++i) {
+            if (this.args[i].equals("-t") || this.args[i].equals("--timeout")) {
+                ++i;                                            // replaced by the remaining time
+            }
+            else {
+                cmd.add(this.args[i]);
+            }
+        }
+        if (Clock.instance().hasTimeout()) {
+            cmd.add("-t");
+            cmd.add(Integer.toString(Clock.instance().getRemaining()));
+        }
+        cmd.add("-wport");
+        cmd.add(Integer.toString(port));
+        cmd.add("-wslot");
+        cmd.add(Integer.toString(slot));
+        return cmd;
+    }
+
+    /**
+     * Slot of a worker process in the coordinator, which survives the process's restarts.
+     */
+    class Slot {
+
+        /**
+         * Stores the slot index.
+         */
+        private int idx;
+
+        /**
+         * Stores the current worker process.
+         */
+        volatile Process process = null;
+
+        /**
+         * Stores the writer of the connection to the current worker process, or null if not connected.
+         */
+        private MessageWriter out = null;
+
+        /**
+         * Stores the connection to the current worker process, or null if not connected.
+         */
+        private Socket socket = null;
+
+        /**
+         * Boolean indicating if the current worker process is connected.
+         */
+        private volatile boolean connected = false;
+
+        /**
+         * Stores the subspace assigned to the current worker process, or null if idle.
+         */
+        volatile Subspace task = null;
+
+        /**
+         * Boolean indicating if the current subspace's worker was told to cancel it.
+         */
+        private boolean cancel_sent = false;
+
+        /**
+         * Stores the number of times the slot's worker failed.
+         */
+        int restarts = 0;
+
+        /**
+         * Stores the coordinator's local port.
+         */
+        private int port = 0;
+
+        /**
+         * Creates a worker slot.
+         * @param idx The slot index.
+         */
+        Slot(int idx) { this.idx = idx; }
+
+        /**
+         * Launches a worker process for the slot.
+         * @param port The coordinator's local port.
+         * @throws IOException if an error occurs launching the process.
+         */
+        void launch(int port) throws IOException {
+            this.port = port;
+            ProcessBuilder pb = new ProcessBuilder(workerCommand(port, this.idx));
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            this.process = pb.start();
+            final BufferedReader stdout =
+                    new BufferedReader(new InputStreamReader(this.process.getInputStream(), "UTF-8"));
+            Thread relay = new Thread() {
+                public void run() { relayOutput(stdout); }
+            };
+            relay.setDaemon(true);
+            relay.start();
+            Log.comment(1, ":worker " + this.idx + " :launched");
+        }
+
+        /**
+         * Relays the standard output of the slot's worker process as comments until the process exits.
+         * The output must be consumed, or the worker blocks once the pipe is full.
+         * @param stdout The reader of the worker's standard output.
+         */
+        private void relayOutput(BufferedReader stdout) {
+            try {
+                for (String line = stdout.readLine(); line != null; line = stdout.readLine()) {
+                    Log.comment(2, ":worker " + this.idx + " " + line);
+                }
+            }
+            catch (IOException e) { /* process exited */ }
+            finally {
+                try { stdout.close(); }
+                catch (IOException e) { /* intentionally left empty */ }
+            }
+        }
+
+        /**
+         * Attaches a connection from the slot's worker process, replays the clauses received so far, and
+         * starts reading the worker's messages.
+         * @param socket The connection.
+         * @param in The reader of the connection.
+         * @throws IOException if an error occurs writing to the connection.
+         */
+        void attach(final Socket socket, final BufferedReader in) throws IOException {
+            final Process proc;
+            synchronized (DistributedParetoMCS.this) {
+                proc = this.process;
+                this.socket = socket;
+                this.out = new MessageWriter(socket.getOutputStream());
+                for (int i = 0; i < clauses.size(); ++i) {
+                    send(clauses.get(i));
+                }
+                this.connected = true;
+                assignPending();
+            }
+            Thread reader = new Thread() {
+                public void run() {
+                    readLoop(in);
+                    try { socket.close(); }
+                    catch (IOException e) { /* intentionally left empty */ }
+                    fail(proc);
+                }
+            };
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Reads and handles the messages of the slot's worker process until the connection is closed.
+         * @param in The reader of the connection.
+         */
+        private void readLoop(BufferedReader in) {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("MODEL")) {
+                        IVecInt vars = ParetoMCSWorker.parseLits(line.substring(5));
+                        boolean[] a = new boolean[problem.nVars()];
+                        for (int i = 0; i < vars.size(); ++i) {
+                            a[vars.get(i)-1] = true;
+                        }
+                        result.saveAssignment(a);
+                    }
+                    else if (line.startsWith("CLAUSE ")) {
+                        relay(this, line);
+                    }
+                    else if (line.startsWith("DONE ")) {
+                        finish(this, line.trim().endsWith(" 1"));
+                    }
+                }
+            }
+            catch (IOException e) {
+                Log.comment(1, ":worker " + this.idx + " connection lost: " + e.getMessage());
+            }
+            catch (RuntimeException e) {
+                Log.comment(1, ":worker " + this.idx + " sent an invalid message");
+            }
+        }
+
+        /**
+         * Queues a message to the slot's worker process, if connected. Never blocks on the connection.
+         * @param msg The message.
+         */
+        void send(String msg) {
+            synchronized (DistributedParetoMCS.this) {
+                if (this.out != null) { this.out.send(msg); }
+            }
+        }
+
+        /**
+         * Handles the failure of a worker process of the slot: its subspace is handed back to the pending
+         * ones and the process is restarted, unless the search is over or the slot failed too many times.
+         * Failures of a process that was already replaced are ignored, since they may be reported both by the
+         * connection's reader and by {@link DistributedParetoMCS#checkProcesses()}.
+         * @param proc The process that failed.
+         */
+        void fail(Process proc) {
+            synchronized (DistributedParetoMCS.this) {
+                if (proc != this.process) { return; }
+                this.connected = false;
+                if (this.out != null) { this.out.discard(); }
+                this.out = null;
+                if (this.socket != null) {
+                    try { this.socket.close(); }
+                    catch (IOException e) { /* intentionally left empty */ }
+                }
+                this.socket = null;
+                if (this.process != null) { this.process.destroy(); }
+                this.process = null;
+                if (this.task != null) {
+                    pending.addFirst(this.task);
+                    this.task = null;
+                    assignPending();
+                }
+                if (nleft == 0 || Clock.instance().timedOut()) { return; }
+                this.restarts++;
+                if (this.restarts > MAX_RESTARTS) {
+                    Log.comment(":worker " + this.idx + " failed too many times");
+                    return;
+                }
+                Log.comment(1, ":worker " + this.idx + " :restart " + this.restarts);
+                try {
+                    launch(this.port);
+                }
+                catch (IOException e) {
+                    Log.comment(":worker " + this.idx + " could not be restarted: " + e.getMessage());
+                    this.restarts = MAX_RESTARTS + 1;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.moeaframework.core.FastNondominatedSorting;
+import org.moeaframework.core.NondominatedSortingPopulation;
+import org.moeaframework.core.Settings;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.comparator.ParetoDominanceComparator;
+
+/**
+ * Population for NSGAII that ranks its solutions with the Efficient Non-dominated Sort, proposed in:<br>
+ *      Zhang, X., Tian, Y., Cheng, R., & Jin, Y. (2015).
+ *      An Efficient Approach to Nondominated Sorting for Evolutionary Multiobjective Optimization.
+ *      IEEE Transactions on Evolutionary Computation, 19(2), 201-213.<br>
+ * Solutions are sorted lexicographically, so that each one can only be dominated by solutions before it, and
+ * then placed, by binary search, in the first front with no solution that dominates it. Crowding distances
+ * are computed as each front is finished. Objectives are copied into primitive arrays once per sort.
+ * Ranks are the same as those of {@link FastNondominatedSorting} with a {@link ParetoDominanceComparator}:
+ * solutions with smaller aggregate constraint violation dominate, and duplicates of a solution are pushed to
+ * the next front. So are crowding distances, except that ties between the extremes of an objective may be
+ * broken differently, and objectives with a single value in a front contribute nothing instead of NaN.
+ */
+public class ENSPopulation extends NondominatedSortingPopulation {
+
+    /**
+     * Stores the objective values of the solutions being sorted.
+     */
+    private double[][] objs = null;
+
+    /**
+     * Stores the aggregate constraint violation of the solutions being sorted.
+     */
+    private double[] viol = null;
+
+    /**
+     * Creates an instance of an empty population.
+     */
+    public ENSPopulation() {
+        super(new ParetoDominanceComparator());
+    }
+
+    /**
+     * Computes the rank and crowding distance of every solution in the population.
+     */
+    @Override
+    public void update() {
+        int n = size();
+        if (n == 0) { return; }
+        this.objs = new double[n][];
+        this.viol = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i) {
+            Solution s = get(i);
+            this.objs[i] = s.getObjectives();
+            for (int j = 0; j < s.getNumberOfConstraints(); ++j) {
+                this.viol[i] += Math.abs(s.getConstraint(j));
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(viol[a], viol[b]);
+                for (int k = 0; c == 0 && k < objs[a].length; ++k) {
+                    c = Double.compare(objs[a][k], objs[b][k]);
+                }
+                return c;
+            }
+        });
+        int[][] fronts = new int[n][];
+        int[] sizes = new int[n];
+        int nfronts = 0;
+        for (int i = 0; i < n; ++i) {
+            int s = order[i], lo = 0, hi = nfronts;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (isCovered(fronts[mid], sizes[mid], s)) { lo = mid + 1; }
+                else { hi = mid; }
+            }
+            if (lo == nfronts) {
+                fronts[nfronts++] = new int[8];
+            }
+            else if (sizes[lo] == fronts[lo].length) {
+                fronts[lo] = Arrays.copyOf(fronts[lo], 2 * sizes[lo]);
+            }
+            fronts[lo][sizes[lo]++] = s;
+        }
+        for (int r = 0; r < nfronts; ++r) {
+            double[] dist = crowdingDistances(fronts[r], sizes[r]);
+            for (int i = 0; i < sizes[r]; ++i) {
+                Solution s = get(fronts[r][i]);
+                s.setAttribute(FastNondominatedSorting.RANK_ATTRIBUTE, r);
+                s.setAttribute(FastNondominatedSorting.CROWDING_ATTRIBUTE, dist[i]);
+            }
+        }
+        this.objs = null;
+        this.viol = null;
+    }
+
+    /**
+     * Checks if a solution is dominated by, or a duplicate of, some solution in a front.
+     * Since solutions are inserted in lexicographic order, the solution cannot dominate any in the front. The
+     * front is scanned from its last solution, the most likely to dominate the new one.
+     * @param front The indexes of the solutions in the front.
+     * @param size The number of solutions in the front.
+     * @param s The solution's index.
+     * @return True if {@code s} cannot be placed in the front, false otherwise.
+     */
+    private boolean isCovered(int[] front, int size, int s) {
+        for (int i = size - 1; i >= 0; --i) {
+            int t = front[i];
+            if (this.viol[t] < this.viol[s]) { return true; }
+            if (this.viol[t] > this.viol[s]) { continue; }
+            boolean better = false, worse = false;
+            double dist = 0.0;
+            for (int k = 0; k < this.objs[s].length; ++k) {
+                double d = this.objs[s][k] - this.objs[t][k];
+                better |= d > 0.0;
+                worse |= d < 0.0;
+                dist += d * d;
+            }
+            if ((better && !worse) || dist < Settings.EPS * Settings.EPS) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the crowding distances of the solutions in a front.
+     * The extreme solutions on each objective get an infinite distance, as do all solutions in fronts with
+     * fewer than 3 solutions. Objectives with a single value in the front do not contribute.
+     * @param front The indexes of the solutions in the front.
+     * @param size The number of solutions in the front.
+     * @return The crowding distances, where the {@code i}-th element is the distance of {@code front[i]}.
+     */
+    private double[] crowdingDistances(final int[] front, int size) {
+        double[] dist = new double[size];
+        if (size < 3) {
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            return dist;
+        }
+        Integer[] order = new Integer[size];
+        for (int k = 0; k < this.objs[front[0]].length; ++k) {
+            final int obj = k;
+            for (int i = 0; i < size; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(objs[front[a]][obj], objs[front[b]][obj]);
+                }
+            });
+            double min = this.objs[front[order[0]]][k], range = this.objs[front[order[size-1]]][k] - min;
+            dist[order[0]] = Double.POSITIVE_INFINITY;
+            dist[order[size-1]] = Double.POSITIVE_INFINITY;
+            if (range <= 0.0) { continue; }
+            for (int i = 1; i < size - 1; ++i) {
+                dist[order[i]] += (this.objs[front[order[i+1]]][k] - this.objs[front[order[i-1]]][k]) / range;
+            }
+        }
+        return dist;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import org.sat4j.moco.pb.ConstrID;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Class that implements the Guided Improvement Algorithm for MOCO, proposed in:<br>
+ *      Rayside, D., Estler, H. C., & Jackson, D. (2009).
+ *      The Guided Improvement Algorithm for Exact, General-Purpose, Many-Objective Combinatorial
+ *      Optimization. MIT CSAIL Technical Report MIT-CSAIL-TR-2009-033.<br>
+ * Each Pareto-optimal solution is reached by repeatedly asking the oracle for a solution that dominates the
+ * current one. Once none exists, the region weakly dominated by that solution is excluded from the search.
+ * Requires linear objectives.
+ */
+public class GuidedImprovement extends MOCOAlgorithm {
+
+    /**
+     * Stores the PB solver to be used by the algorithm.
+     */
+    private PBSolver solver = null;
+
+    /**
+     * Stores the encoder of the objective bound and dominance constraints.
+     */
+    private ObjectiveCuts cuts = null;
+
+    /**
+     * Stores the number of SAT calls performed in the last call to {@link #improve()}.
+     */
+    private int last_improve_calls = 0;
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies the Guided Improvement
+     * Algorithm.
+     * @param m The MOCO instance.
+     */
+    public GuidedImprovement(Instance m) {
+        super(m, false, false);
+        if (ObjectiveCuts.supports(m)) {
+            this.cuts = new ObjectiveCuts(m);
+        }
+        try {
+            this.solver = buildSolver();
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "Contradiction in GuidedImprovement.buildSolver");
+            this.result.setParetoFrontFound();
+        }
+    }
+
+    /**
+     * Creates a PB oracle initialized with the MOCO's constraints.
+     * @return The oracle.
+     * @throws ContradictionException if the oracle detects that the MOCO's constraint set is unsatisfiable.
+     */
+    private PBSolver buildSolver() throws ContradictionException {
+        PBSolver solver = new PBSolver();
+        solver.newVars(this.problem.nVars());
+        for (int i = 0; i < this.problem.nConstrs(); ++i) {
+            solver.addConstr(this.problem.getConstr(i));
+        }
+        return solver;
+    }
+
+    /**
+     * Applies the Guided Improvement Algorithm to the MOCO instance provided in
+     * {@link #GuidedImprovement(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "GuidedImprovement.solve called on already solved instance");
+            return;
+        }
+        if (this.cuts == null) {
+            Log.comment("GIA requires linear objectives");
+            return;
+        }
+        Log.comment(3, "in GuidedImprovement.solve");
+        int npoints = 0, ncalls = 1;
+        this.solver.check();
+        while (this.solver.isSolved() && this.solver.isSat()) {
+            Real[] point = improve();
+            ncalls += this.last_improve_calls;
+            if (!this.solver.isSolved()) { break; }
+            ++npoints;
+            Log.comment(1, ":pareto-points " + npoints + " :sat-calls " + ncalls +
+                           " :elapsed " + Clock.instance().getElapsed());
+            try {
+                this.cuts.addNotWeaklyDominated(this.solver, point);
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction excluding dominated region");
+                break;
+            }
+            this.solver.check();
+            ++ncalls;
+        }
+        Log.comment(1, ":pareto-points " + npoints + " :sat-calls " + ncalls);
+        if (this.solver.isSolved()) {
+            this.result.setParetoFrontFound();
+        }
+        else {
+            Log.comment(1, "GIA timeout");
+        }
+        Log.comment(3, "out GuidedImprovement.solve");
+    }
+
+    /**
+     * Searches for a model that satisfies given assumptions and improves it until it is Pareto-optimal,
+     * without excluding the region it weakly dominates.
+     * @param asms The assumptions that the starting model must satisfy.
+     * @return The cost vector of the last model found, or null if no model satisfies {@code asms}.
+     */
+    Real[] improveFrom(IVecInt asms) {
+        this.solver.check(asms);
+        if (!this.solver.isSolved() || !this.solver.isSat()) { return null; }
+        return improve();
+    }
+
+    /**
+     * Starting from the model in the oracle, repeatedly searches for models that dominate the current one
+     * until none exists.
+     * On return, if the oracle's state is solved, then the returned cost vector is Pareto-optimal.
+     * @return The cost vector of the last model found.
+     */
+    private Real[] improve() {
+        this.last_improve_calls = 0;
+        Real[] point = this.cuts.evaluate(this.solver);
+        this.result.saveModel(this.solver);
+        while (true) {
+            IVec<ConstrID> ids;
+            try {
+                ids = this.cuts.addDominating(this.solver, point);
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction bounding objectives");
+                return point;
+            }
+            this.solver.check();
+            ++this.last_improve_calls;
+            boolean improved = this.solver.isSolved() && this.solver.isSat();
+            if (improved) {
+                point = this.cuts.evaluate(this.solver);
+                this.result.saveModel(this.solver);
+            }
+            this.solver.removeConstrs(ids);
+            if (!improved) { return point; }
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.moeaframework.core.Algorithm;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+
+/**
+ * Island model for stochastic algorithms.
+ * Each island runs its own evolutionary algorithm, with its own smart mutation oracle, on its own thread and
+ * with its own PRNG stream. Every few generations, an island sends copies of some of its feasible
+ * nondominated solutions to its neighbours in the migration topology, which inject them as offspring in a
+ * later generation.
+ */
+public class IslandModel {
+
+    /**
+     * Name of the topology where each island sends migrants to the next one.
+     */
+    public static final String RING = "ring";
+
+    /**
+     * Name of the topology where each island sends migrants to every other island.
+     */
+    public static final String FULL = "full";
+
+    /**
+     * Name of the topology where each island sends migrants to a random other island.
+     */
+    public static final String RANDOM = "random";
+
+    /**
+     * Number of migrants sent by an island in each migration.
+     */
+    private static final int MIGRANTS = 2;
+
+    /**
+     * Maximum number of migrants waiting to be injected in an island. Older migrants are dropped first.
+     */
+    private static final int MAX_PENDING = 8 * MIGRANTS;
+
+    /**
+     * Stores the migrants waiting to be injected in each island.
+     */
+    private List<Queue<Solution>> inboxes;
+
+    /**
+     * Stores the name of the migration topology.
+     */
+    private String topology = RING;
+
+    /**
+     * Stores the number of generations between migrations.
+     */
+    private int interval = 10;
+
+    /**
+     * Stores the seed from which the PRNG stream of each island is derived.
+     */
+    private long seed = 0;
+
+    /**
+     * Creates an instance of an island model.
+     * @param n The number of islands.
+     * @param topology The name of the migration topology.
+     * @param interval The number of generations between migrations.
+     * @param seed The seed from which the PRNG stream of each island is derived.
+     */
+    public IslandModel(int n, String topology, int interval, long seed) {
+        this.inboxes = new ArrayList<Queue<Solution>>(n);
+        for (int i = 0; i < n; ++i) {
+            this.inboxes.add(new ConcurrentLinkedQueue<Solution>());
+        }
+        this.topology = topology.equals(FULL) || topology.equals(RANDOM) ? topology : RING;
+        this.interval = Math.max(1, interval);
+        this.seed = seed;
+    }
+
+    /**
+     * Retrieves the number of islands.
+     * @return The number of islands.
+     */
+    public int size() { return this.inboxes.size(); }
+
+    /**
+     * Retrieves the name of the migration topology.
+     * @return The topology's name.
+     */
+    public String getTopology() { return this.topology; }
+
+    /**
+     * Decorates a variation operator of a given island so that pending migrants replace the offspring it
+     * produces.
+     * @param island The island index.
+     * @param v The variation operator.
+     * @return The decorated operator.
+     */
+    public Variation withImmigration(int island, Variation v) {
+        return new Immigration(this.inboxes.get(island), v);
+    }
+
+    /**
+     * Variation operator that replaces the first offspring of another operator with a pending migrant, if
+     * any.
+     */
+    private static class Immigration implements Variation {
+
+        /**
+         * Stores the island's pending migrants.
+         */
+        private Queue<Solution> inbox;
+
+        /**
+         * Stores the decorated operator.
+         */
+        private Variation variation;
+
+        /**
+         * Creates an instance of the immigration operator.
+         * @param inbox The island's pending migrants.
+         * @param variation The decorated operator.
+         */
+        Immigration(Queue<Solution> inbox, Variation variation) {
+            this.inbox = inbox;
+            this.variation = variation;
+        }
+
+        @Override
+        public int getArity() { return this.variation.getArity(); }
+
+        @Override
+        public Solution[] evolve(Solution[] parents) {
+            Solution[] offspring = this.variation.evolve(parents);
+            Solution migrant = this.inbox.poll();
+            if (migrant != null && offspring.length > 0) {
+                offspring[0] = migrant;
+            }
+            return offspring;
+        }
+
+    }
+
+    /**
+     * Sends copies of some feasible nondominated solutions of a given island to its neighbours.
+     * @param island The island index.
+     * @param front The island's nondominated solutions.
+     */
+    private void emigrate(int island, NondominatedPopulation front) {
+        List<Solution> feasible = new ArrayList<Solution>();
+        for (int i = 0; i < front.size(); ++i) {
+            if (!front.get(i).violatesConstraints()) {
+                feasible.add(front.get(i));
+            }
+        }
+        if (feasible.isEmpty()) { return; }
+        PRNG.shuffle(feasible);
+        List<Solution> migrants = feasible.subList(0, Math.min(MIGRANTS, feasible.size()));
+        int n = size();
+        for (int k = 1; k < n; ++k) {
+            int target = (island + k) % n;
+            if (this.topology.equals(RANDOM)) {
+                target = (island + 1 + PRNG.nextInt(n-1)) % n;
+            }
+            Queue<Solution> inbox = this.inboxes.get(target);
+            for (int i = 0; i < migrants.size(); ++i) {
+                inbox.offer(migrants.get(i).copy());
+            }
+            while (inbox.size() > MAX_PENDING) { inbox.poll(); }
+            if (!this.topology.equals(FULL)) { break; }
+        }
+    }
+
+    /**
+     * Runs the islands in parallel until the time limit is reached or the Pareto front is found.
+     * @param islands The algorithm of each island.
+     * @param result The result shared by the islands.
+     */
+    public void run(final List<Algorithm> islands, final Result result) {
+        assert(islands.size() == size());
+        final StreamRandom rng = new StreamRandom();
+        Random old_rng = PRNG.getRandom();
+        PRNG.setRandom(rng);
+        ExecutorService pool = Executors.newFixedThreadPool(size());
+        List<Future<?>> futures = new ArrayList<Future<?>>(size());
+        for (int i = 0; i < size(); ++i) {
+            final int island = i;
+            futures.add(pool.submit(new Runnable() {
+                public void run() {
+                    rng.setStream(seed + island);
+                    Algorithm alg = islands.get(island);
+                    int generation = 0;
+                    while (!alg.isTerminated() && !result.isParetoFront() && !Clock.instance().timedOut()) {
+                        alg.step();
+                        if (++generation % interval == 0 && size() > 1) {
+                            emigrate(island, alg.getResult());
+                        }
+                    }
+                    alg.terminate();
+                    Log.comment(1, ":island " + island + " :generations " + generation +
+                                   " :evaluations " + alg.getNumberOfEvaluations());
+                }
+            }));
+        }
+        pool.shutdown();
+        try {
+            for (int i = 0; i < futures.size(); ++i) {
+                futures.get(i).get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            PRNG.setRandom(old_rng);
+        }
+    }
+
+    /**
+     * PRNG that forwards each request to a stream owned by the calling thread, so that islands draw from
+     * independent streams through the static {@link PRNG} methods.
+     */
+    private static class StreamRandom extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Stores the stream of each thread.
+         */
+        private final ThreadLocal<Random> streams = new ThreadLocal<Random>() {
+            @Override
+            protected Random initialValue() { return new Random(); }
+        };
+
+        /**
+         * Sets the stream of the calling thread.
+         * @param seed The seed of the stream.
+         */
+        void setStream(long seed) { this.streams.set(new Random(seed)); }
+
+        @Override
+        protected int next(int bits) { return this.streams.get().nextInt() >>> (32 - bits); }
+
+        @Override
+        public double nextGaussian() { return this.streams.get().nextGaussian(); }
+
+        @Override
+        public void setSeed(long seed) {
+            if (this.streams != null) {         // null while the superclass constructor runs
+                setStream(seed);
+            }
+        }
+
+    }
+
+}
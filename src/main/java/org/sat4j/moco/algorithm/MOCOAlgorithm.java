@@ -28,6 +28,17 @@ public abstract class MOCOAlgorithm {
         this.result = new Result(m, b, b2);
     }
 
+    /**
+     * Creates an algorithm for a given MOCO instance that reports into an existing result, possibly shared
+     * with other algorithms running concurrently.
+     * @param m The MOCO instance.
+     * @param r The result.
+     */
+    MOCOAlgorithm(Instance m, Result r) {
+        this.problem = m;
+        this.result = r;
+    }
+
     public Instance getProblem(){
         return this.problem;
     }
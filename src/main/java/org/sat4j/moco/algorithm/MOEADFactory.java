@@ -41,19 +41,14 @@ public class MOEADFactory extends StochasticAlgorithm{
                 int pop_size =
                         typed_props.getInt("populationSize", Math.max(100, problem.getNumberOfObjectives()));
                 RandomInitialization initialization = new RandomInitialization(problem, pop_size);
-                String vars;
-                if (typed_props.getBoolean("um", false)){
-                    vars = "ux+um+sm";
-                }
-                else {
-                    vars = "ux+spm+sm";
-                }
-                Variation variation = OperatorFactory.getInstance().getVariation(vars, properties, problem);
+                String vars = variationName(typed_props, problem);
+                OffspringRecorder variation = recordOffspring(
+                        withImmigration(OperatorFactory.getInstance().getVariation(vars, properties, problem), typed_props));
                 int neighbordhoodSize = (int)(typed_props.getDouble("neighborhoodSize", 0.1) * pop_size);
                 neighbordhoodSize = Math.max(2, Math.min(pop_size, neighbordhoodSize));
                 int eta = Math.max(2, (int)(typed_props.getDouble("eta", 0.01) * pop_size));
                 double delta = typed_props.getDouble("delta", 0.9);
-                return decorateWithPeriodicActions(new MOEAD(problem, neighbordhoodSize, initialization, variation, delta, eta));
+                return decorateWithPeriodicActions(new MOEAD(problem, neighbordhoodSize, initialization, variation, delta, eta), variation);
             }
             return null;
         }
@@ -61,15 +56,15 @@ public class MOEADFactory extends StochasticAlgorithm{
     }
 
     public void setNeighborhoodSize(double ns) {
-        this.exec = this.exec.withProperty("neighbordhoodSize", ns);
+        setProperty("neighbordhoodSize", ns);
     }
 
     public void setEta(double eta) {
-        this.exec = this.exec.withProperty("eta", eta);
+        setProperty("eta", eta);
     }
 
     public void setDelta(double delta) {
-        this.exec = this.exec.withProperty("delta", delta);
+        setProperty("delta", delta);
     }
 
     public void setParams(Params params){
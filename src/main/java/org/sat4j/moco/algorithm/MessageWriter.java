@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writer of line based messages to a connection, used by {@link DistributedParetoMCS} and
+ * {@link ParetoMCSWorker}.
+ * Messages are queued and written by a dedicated thread, so that senders never block on the connection, and
+ * in particular never write to it while holding a lock that the reader of the connection may need.
+ */
+class MessageWriter {
+
+    /**
+     * Message that tells the writer thread to stop.
+     */
+    private static final String STOP = new String("STOP");
+
+    /**
+     * Stores the messages not yet written.
+     */
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<String>();
+
+    /**
+     * The thread that writes the queued messages.
+     */
+    private final Thread writer;
+
+    /**
+     * Creates a message writer for a given connection and starts its writer thread.
+     * @param os The output stream of the connection.
+     * @throws IOException if the stream's encoding is not supported.
+     */
+    MessageWriter(OutputStream os) throws IOException {
+        final PrintWriter out = new PrintWriter(new OutputStreamWriter(os, "UTF-8"));
+        this.writer = new Thread() {
+            public void run() {
+                try {
+                    for (String msg = queue.take(); msg != STOP; msg = queue.take()) {
+                        out.println(msg);
+                        if (queue.isEmpty()) { out.flush(); }
+                        if (out.checkError()) { return; }
+                    }
+                    out.flush();
+                }
+                catch (InterruptedException e) { /* stopped */ }
+            }
+        };
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a message to be written.
+     * @param msg The message.
+     */
+    void send(String msg) { this.queue.add(msg); }
+
+    /**
+     * Writes the messages already queued and stops the writer thread.
+     * @param timeout Maximum time, in milliseconds, to wait for the queued messages to be written.
+     */
+    void close(long timeout) {
+        this.queue.add(STOP);
+        try {
+            this.writer.join(timeout);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.writer.interrupt();
+    }
+
+    /**
+     * Stops the writer thread, discarding the messages not yet written.
+     */
+    void discard() {
+        this.queue.clear();
+        this.queue.add(STOP);
+        this.writer.interrupt();
+    }
+
+}
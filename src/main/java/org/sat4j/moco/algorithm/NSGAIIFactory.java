@@ -6,7 +6,6 @@ import org.moeaframework.algorithm.NSGAII;
 import org.moeaframework.core.*;
 import org.moeaframework.core.comparator.ChainedComparator;
 import org.moeaframework.core.comparator.CrowdingComparator;
-import org.moeaframework.core.comparator.DominanceComparator;
 import org.moeaframework.core.comparator.ParetoDominanceComparator;
 import org.moeaframework.core.operator.RandomInitialization;
 import org.moeaframework.core.operator.TournamentSelection;
@@ -45,20 +44,14 @@ public class NSGAIIFactory extends StochasticAlgorithm {
                 TypedProperties typed_props = new TypedProperties(properties);
                 int pop_size = typed_props.getInt("populationSize", 100);
                 RandomInitialization initialization = new RandomInitialization(problem, pop_size);
-                DominanceComparator comparator = new ParetoDominanceComparator();
-                NondominatedSortingPopulation population = new NondominatedSortingPopulation(comparator);
+                NondominatedSortingPopulation population = new ENSPopulation();
                 TournamentSelection selection =
                         new TournamentSelection(2, new ChainedComparator(new ParetoDominanceComparator(),
                                 new CrowdingComparator()));
-                String vars;
-                if (typed_props.getBoolean("um", false)){
-                    vars = "ux+um+sm";
-                }
-                else {
-                    vars = "ux+spm+sm";
-                }
-                Variation variation = OperatorFactory.getInstance().getVariation(vars, properties, problem);
-                return decorateWithPeriodicActions(new NSGAII(problem, population, null, selection, variation, initialization));
+                String vars = variationName(typed_props, problem);
+                OffspringRecorder variation = recordOffspring(
+                        withImmigration(OperatorFactory.getInstance().getVariation(vars, properties, problem), typed_props));
+                return decorateWithPeriodicActions(new NSGAII(problem, population, null, selection, variation, initialization), variation);
             }
             return null;
         }
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import org.sat4j.core.ReadOnlyVec;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.pb.ConstrID;
+import org.sat4j.moco.pb.PBConstr;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Class that encodes objective space cuts (objective bounds and dominance constraints) of a MOCO instance
+ * with linear objectives as PB constraints in a PB solver.
+ */
+public class ObjectiveCuts {
+
+    /**
+     * The MOCO instance whose objectives are encoded.
+     */
+    private Instance problem = null;
+
+    /**
+     * Stores, for each objective, the smallest positive difference between two of its values.
+     * Used to encode strict bounds.
+     */
+    private Real[] units = null;
+
+    /**
+     * Checks if objective cuts can be encoded for a given MOCO instance, i.e., if all its objectives are
+     * linear.
+     * @param m The instance.
+     * @return True if cuts can be encoded for {@code m}, false otherwise.
+     */
+    public static boolean supports(Instance m) {
+        for (int i = 0; i < m.nObjs(); ++i) {
+            if (!(m.getObj(i) instanceof LinearObj)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates an instance of an objective cut encoder for a given MOCO instance.
+     * @param m The instance. All its objectives must be linear.
+     */
+    public ObjectiveCuts(Instance m) {
+        assert(supports(m));
+        this.problem = m;
+        this.units = new Real[m.nObjs()];
+        for (int i = 0; i < m.nObjs(); ++i) {
+            this.units[i] = unitOf(getObj(i));
+        }
+    }
+
+    /**
+     * Computes the smallest positive difference between two values of a given linear objective.
+     * @param obj The objective.
+     * @return The objective's unit.
+     */
+    public static Real unitOf(LinearObj obj) {
+        ReadOnlyVec<Real> coeffs = obj.getCoeffs();
+        int decimals = 0;
+        for (int j = 0; j < coeffs.size(); ++j) {
+            decimals = Math.max(decimals, coeffs.get(j).nDecimals());
+        }
+        return Real.ONE.scaleByPowerOfTen(-decimals);
+    }
+
+    /**
+     * Retrieves the number of objectives encoded.
+     * @return The number of objectives.
+     */
+    public int nObjs() { return this.problem.nObjs(); }
+
+    /**
+     * Retrieves one of the encoded objectives.
+     * @param i The objective index.
+     * @return The {@code i}-th objective.
+     */
+    public LinearObj getObj(int i) { return (LinearObj)this.problem.getObj(i); }
+
+    /**
+     * Retrieves the smallest positive difference between two values of a given objective.
+     * @param i The objective index.
+     * @return The {@code i}-th objective's unit.
+     */
+    public Real getUnit(int i) { return this.units[i]; }
+
+    /**
+     * Computes the cost vector of the model stored in a given PB solver.
+     * @param s The solver.
+     * @return The cost vector of the model in {@code s}.
+     */
+    public Real[] evaluate(PBSolver s) {
+        Real[] costs = new Real[nObjs()];
+        for (int i = 0; i < nObjs(); ++i) {
+            costs[i] = getObj(i).evaluate(s);
+        }
+        return costs;
+    }
+
+    /**
+     * Builds the weighted sum of the encoded objectives for a given weight vector.
+     * @param w The weight vector.
+     * @return The scalarized objective.
+     */
+    public LinearObj scalarize(Real[] w) {
+        IVecInt lits = new VecInt();
+        IVec<Real> coeffs = new Vec<Real>();
+        for (int i = 0; i < nObjs(); ++i) {
+            if (w[i].signum() == 0) { continue; }
+            LinearObj obj = getObj(i);
+            for (int j = 0; j < obj.getLits().size(); ++j) {
+                lits.push(obj.getLits().get(j));
+                coeffs.push(obj.getCoeffs().get(j).multiply(w[i]));
+            }
+        }
+        return new LinearObj(lits, coeffs);
+    }
+
+    /**
+     * Computes the weighted sum of a cost vector.
+     * @param w The weight vector.
+     * @param point The cost vector.
+     * @return The weighted sum of {@code point}.
+     */
+    public static Real weightedSum(Real[] w, Real[] point) {
+        Real sum = Real.ZERO;
+        for (int i = 0; i < w.length; ++i) {
+            sum = sum.add(w[i].multiply(point[i]));
+        }
+        return sum;
+    }
+
+    /**
+     * Creates a constraint that imposes an upper bound on a given objective.
+     * @param i The objective index.
+     * @param ub The upper bound.
+     * @return The constraint {@code obj_i <= ub}.
+     */
+    public PBConstr mkUpperBound(int i, Real ub) {
+        return PBFactory.instance().mkLE(getObj(i).getLits(), getObj(i).getCoeffs(), ub);
+    }
+
+    /**
+     * Creates a constraint that imposes a strict upper bound on a given objective.
+     * @param i The objective index.
+     * @param ub The upper bound.
+     * @return The constraint {@code obj_i < ub}.
+     */
+    public PBConstr mkStrictUpperBound(int i, Real ub) { return mkUpperBound(i, ub.subtract(getUnit(i))); }
+
+    /**
+     * Creates a constraint that imposes a lower bound on a given objective.
+     * @param i The objective index.
+     * @param lb The lower bound.
+     * @return The constraint {@code obj_i >= lb}.
+     */
+    public PBConstr mkLowerBound(int i, Real lb) {
+        return PBFactory.instance().mkGE(getObj(i).getLits(), getObj(i).getCoeffs(), lb);
+    }
+
+    /**
+     * Adds, for each objective, a fresh literal that implies a strict upper bound on that objective.
+     * @param s The solver.
+     * @param point The upper bounds.
+     * @return A vector with the fresh literals, where the {@code i}-th literal implies
+     * {@code obj_i < point[i]}.
+     * @throws ContradictionException if {@code s} detects that the formula becomes unsatisfiable.
+     */
+    private IVecInt addStrictBoundSelectors(PBSolver s, Real[] point) throws ContradictionException {
+        IVecInt sels = new VecInt(nObjs());
+        for (int i = 0; i < nObjs(); ++i) {
+            s.newVar();
+            int sel = s.nVars();
+            PBConstr c = mkStrictUpperBound(i, point[i]);
+            c.setActivator(sel);
+            s.addConstr(c);
+            sels.unsafePush(sel);
+        }
+        return sels;
+    }
+
+    /**
+     * Adds a constraint to a given PB solver that excludes all solutions weakly dominated by a given cost
+     * vector, i.e., at least one objective must be strictly better than in that cost vector.
+     * @param s The solver.
+     * @param point The cost vector.
+     * @throws ContradictionException if {@code s} detects that the formula becomes unsatisfiable, meaning
+     * that every solution is weakly dominated by some cost vector already excluded.
+     */
+    public void addNotWeaklyDominated(PBSolver s, Real[] point) throws ContradictionException {
+        s.addConstr(PBFactory.instance().mkClause(addStrictBoundSelectors(s, point)));
+    }
+
+    /**
+     * Adds removable constraints to a given PB solver that restrict the solutions to the ones that
+     * dominate a given cost vector. The strict bounds are selectable, so that only one of them needs to hold,
+     * and removing the returned constraints disables everything that was added.
+     * @param s The solver.
+     * @param point The cost vector.
+     * @return The IDs of the added constraints, to be removed with {@link PBSolver#removeConstrs(IVec)}.
+     * @throws ContradictionException if {@code s} detects that the formula becomes unsatisfiable.
+     */
+    public IVec<ConstrID> addDominating(PBSolver s, Real[] point) throws ContradictionException {
+        IVec<ConstrID> ids = new Vec<ConstrID>();
+        IVecInt sels = new VecInt(nObjs());
+        try {
+            for (int i = 0; i < nObjs(); ++i) {
+                ConstrID id = s.addSelectableConstr(mkStrictUpperBound(i, point[i]));
+                ids.push(id);
+                sels.unsafePush(s.getSelector(id));
+            }
+            for (int i = 0; i < nObjs(); ++i) {
+                ids.push(s.addRemovableConstr(mkUpperBound(i, point[i])));
+            }
+            ids.push(s.addRemovableConstr(PBFactory.instance().mkClause(sels)));
+        }
+        catch (ContradictionException e) {
+            s.removeConstrs(ids);
+            throw e;
+        }
+        return ids;
+    }
+
+}
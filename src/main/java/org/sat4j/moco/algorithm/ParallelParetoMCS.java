@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.sat4j.moco.Params;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.specs.ContradictionException;
+
+/**
+ * Class that runs the Pareto-MCS algorithm in parallel by splitting the search into subspaces.
+ * Subspaces are either cubes over the variables with the largest objective coefficients, or boxes in
+ * objective space over up to two objectives (linear objectives only).
+ * Each subspace is enumerated by a {@link ParetoMCS} worker with its own PB solver, and all workers report
+ * into the same result. MCS blocking clauses only exclude solutions weakly dominated by the MCS's model, so
+ * they are valid in every subspace and are shared between workers through a {@link ClauseExchange}.
+ * Boxes whose ideal corner becomes weakly dominated by a solution found elsewhere are cancelled.
+ */
+public class ParallelParetoMCS extends MOCOAlgorithm {
+
+    /**
+     * Name of the strategy that splits the search into cubes over variables.
+     */
+    public static final String CUBE = "cube";
+
+    /**
+     * Name of the strategy that splits the search into boxes in objective space.
+     */
+    public static final String BOX = "box";
+
+    /**
+     * Number of subspaces created per thread, so that threads that finish early can pick up more work.
+     */
+    private static final int SPLITS_PER_THREAD = 4;
+
+    /**
+     * Interval, in milliseconds, between checks for dominated boxes.
+     */
+    private static final long POLL_MS = 100;
+
+    /**
+     * Stores the number of worker threads.
+     */
+    private int nthreads = 1;
+
+    /**
+     * Stores the splitting strategy.
+     */
+    private String split = CUBE;
+
+    /**
+     * Stores the parameters to be passed to each worker, or null if none were provided.
+     */
+    private Params params = null;
+
+    /**
+     * Stores the log through which workers share MCS blocking clauses.
+     */
+    private ClauseExchange exchange = new ClauseExchange();
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies the Pareto-MCS algorithm over
+     * subspaces in parallel.
+     * @param m The MOCO instance.
+     */
+    public ParallelParetoMCS(Instance m) {
+        super(m, false, false);
+    }
+
+    /**
+     * Sets the algorithm configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.params = p;
+        this.nthreads = p.getThreads();
+        this.split = p.getSplitMode();
+        if (this.split.equals(BOX) && !ObjectiveCuts.supports(this.problem)) {
+            Log.comment("box splitting requires linear objectives, splitting into cubes");
+            this.split = CUBE;
+        }
+        else if (!this.split.equals(BOX)) {
+            this.split = CUBE;
+        }
+        Log.comment(":threads " + this.nthreads + " :split " + this.split);
+    }
+
+    /**
+     * Applies the Pareto-MCS algorithm in parallel to the MOCO instance provided in
+     * {@link #ParallelParetoMCS(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "ParallelParetoMCS.solve called on already solved instance");
+            return;
+        }
+        Log.comment(3, "in ParallelParetoMCS.solve");
+        int nsubspaces = this.nthreads > 1 ? SPLITS_PER_THREAD * this.nthreads : 1;
+        List<Subspace> split = this.split.equals(BOX) ? Subspace.boxes(this.problem, nsubspaces) :
+                                                        Subspace.cubes(this.problem, nsubspaces);
+        Log.comment(1, ":subspaces " + split.size());
+        List<SubspaceTask> subspaces = new ArrayList<SubspaceTask>(split.size());
+        ExecutorService pool = Executors.newFixedThreadPool(this.nthreads);
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(split.size());
+        for (int i = 0; i < split.size(); ++i) {
+            subspaces.add(new SubspaceTask(split.get(i)));
+            futures.add(pool.submit(subspaces.get(i)));
+        }
+        pool.shutdown();
+        boolean done = true;
+        try {
+            while (!pool.awaitTermination(POLL_MS, TimeUnit.MILLISECONDS)) {
+                cancelDominated(subspaces);
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                done = futures.get(i).get() && done;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done = false;
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        Log.comment(1, ":shared-clauses " + this.exchange.size() + " :elapsed " + Clock.instance().getElapsed());
+        if (done) {
+            this.result.setParetoFrontFound();
+        }
+        else {
+            Log.comment(1, "MCS extraction timeout");
+        }
+        Log.comment(3, "out ParallelParetoMCS.solve");
+    }
+
+    /**
+     * Cancels the boxes whose best achievable cost vector is weakly dominated by some solution in the result.
+     * @param subspaces The subspace tasks.
+     */
+    void cancelDominated(List<SubspaceTask> subspaces) {
+        for (int i = 0; i < subspaces.size(); ++i) {
+            SubspaceTask task = subspaces.get(i);
+            double[] corner = task.sub.getCorner();
+            if (corner != null && !task.cancelled && this.result.isWeaklyDominated(corner)) {
+                Log.comment(2, ":cancel-subspace " + task.sub.getId());
+                task.cancel();
+            }
+        }
+    }
+
+    /**
+     * Task that enumerates the MCSs in a subspace of the search.
+     */
+    class SubspaceTask implements Callable<Boolean> {
+
+        /**
+         * Stores the subspace.
+         */
+        private Subspace sub;
+
+        /**
+         * Stores the worker enumerating the subspace, or null if it has not started.
+         */
+        private volatile ParetoMCS worker = null;
+
+        /**
+         * Boolean indicating if the subspace was cancelled because its solutions are all dominated.
+         */
+        volatile boolean cancelled = false;
+
+        /**
+         * Creates a task for a given subspace.
+         * @param sub The subspace.
+         */
+        SubspaceTask(Subspace sub) { this.sub = sub; }
+
+        /**
+         * Cancels the enumeration of the subspace.
+         */
+        void cancel() {
+            this.cancelled = true;
+            ParetoMCS w = this.worker;
+            if (w != null) { w.cancel(); }
+        }
+
+        /**
+         * Enumerates the MCSs in the subspace.
+         * @return True if the enumeration finished or was cancelled, false if it ran out of time.
+         */
+        public Boolean call() {
+            if (this.cancelled) { return true; }
+            if (Clock.instance().timedOut()) { return false; }
+            ParetoMCS w = new ParetoMCS(problem, result);
+            if (result.isParetoFront()) { return true; }      // hard formula is unsatisfiable
+            if (params != null) { w.updtParams(params); }
+            try {
+                this.sub.restrict(w, problem);
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "empty subspace " + this.sub.getId());
+                return true;
+            }
+            w.setExchange(exchange, this.sub.getId());
+            this.worker = w;
+            if (this.cancelled) { return true; }
+            boolean done = w.enumerate();
+            Log.comment(1, ":subspace " + this.sub.getId() + " :done " + done);
+            return done;
+        }
+
+    }
+
+}
@@ -0,0 +1,559 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sat4j.core.ReadOnlyVec;
+import org.sat4j.core.ReadOnlyVecInt;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.ConstraintIndex;
+import org.sat4j.moco.analysis.MOCOProblem;
+import org.sat4j.moco.pb.PBConstr;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Class that implements Pareto local search for MOCO, as described in:<br>
+ *      Paquete, L., Chiarandini, M., & Stutzle, T. (2004).
+ *      Pareto Local Optimum Sets in the Biobjective Traveling Salesman Problem: An Experimental Study.
+ *      Metaheuristics for Multiobjective Optimisation, 177-199.<br>
+ * Each solution accepted into the result is explored by evaluating its flip neighbours and, for the one-hot
+ * constraints found by {@link MOCOProblem#findRemovableConstraints(boolean)}, its swap neighbours.
+ * Constraint left-hand sides and objective values are maintained incrementally, so evaluating a neighbour costs
+ * time proportional to the number of occurrences of the changed variables.
+ * The objective space is split into regions along the first objective, one per worker thread. Each worker
+ * explores the solutions in its region and steals from the other regions when it runs out of work. Once every
+ * region is exhausted, workers restart from perturbed solutions of the result until the time limit.
+ * Requires linear objectives. The result is never proven to be the Pareto front.
+ */
+public class ParetoLocalSearch extends MOCOAlgorithm {
+
+    /**
+     * Maximum number of random flips applied to a solution when restarting.
+     */
+    private static final int PERTURB_FLIPS = 10;
+
+    /**
+     * Maximum number of flips performed to repair a perturbed solution.
+     */
+    private static final int MAX_REPAIR_STEPS = 10000;
+
+    /**
+     * Probability of flipping a random variable of a violated constraint, instead of the one that breaks the
+     * fewest constraints, while repairing a perturbed solution.
+     */
+    private static final double NOISE = 0.2;
+
+    /**
+     * Stores the number of worker threads.
+     */
+    private int nthreads = 1;
+
+    /**
+     * Stores the seed from which each worker's PRNG is derived.
+     */
+    private long seed = 0;
+
+    /**
+     * Stores the occurrence index and compiled form of the instance's constraints.
+     */
+    private ConstraintIndex index;
+
+    /**
+     * Stores, for each objective and variable, by how much the objective changes when the variable goes from
+     * false to true.
+     */
+    private double[][] obj_deltas = null;
+
+    /**
+     * Stores a lower bound and the width of the range of values of the first objective, used to map cost
+     * vectors to regions.
+     */
+    private double region_lb = 0.0;
+    private double region_width = 1.0;
+
+    /**
+     * Stores the variables of each one-hot constraint whose literals are all positive.
+     */
+    List<int[]> groups = new ArrayList<int[]>();
+
+    /**
+     * Stores the queue of solutions to explore of each region.
+     */
+    List<ConcurrentLinkedDeque<boolean[]>> queues = new ArrayList<ConcurrentLinkedDeque<boolean[]>>();
+
+    /**
+     * Stores the number of solutions queued or being explored. Once it reaches 0, every region is exhausted,
+     * since only explorations queue new solutions.
+     */
+    AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Statistics on the number of neighbours evaluated, solutions explored and restarts.
+     */
+    private AtomicLong nneighbours = new AtomicLong();
+    private AtomicLong nexplored = new AtomicLong();
+    private AtomicLong nrestarts = new AtomicLong();
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies Pareto local search.
+     * @param m The MOCO instance.
+     */
+    public ParetoLocalSearch(Instance m) {
+        super(m, false, false);
+        this.index = this.result.getProblem().getConstraintIndex();
+        this.seed = System.nanoTime();
+        if (ObjectiveCuts.supports(m)) {
+            initObjDeltas();
+            initGroups();
+        }
+    }
+
+    /**
+     * Sets the algorithm configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.nthreads = p.getThreads();
+        if (p.getSeed() > 0) { this.seed = p.getSeed(); }
+        Log.comment(":threads " + this.nthreads);
+    }
+
+    /**
+     * Computes the change of each objective when each variable is flipped from false to true, and the range of
+     * values of the first objective.
+     */
+    private void initObjDeltas() {
+        this.obj_deltas = new double[this.problem.nObjs()][this.problem.nVars()+1];
+        for (int i = 0; i < this.problem.nObjs(); ++i) {
+            LinearObj obj = (LinearObj)this.problem.getObj(i);
+            ReadOnlyVecInt lits = obj.getLits();
+            ReadOnlyVec<Real> coeffs = obj.getCoeffs();
+            double lb = 0.0, ub = 0.0;
+            for (int j = 0; j < lits.size(); ++j) {
+                double c = coeffs.get(j).asDouble();
+                this.obj_deltas[i][Math.abs(lits.get(j))] += lits.get(j) > 0 ? c : -c;
+                lb += Math.min(c, 0.0);
+                ub += Math.max(c, 0.0);
+            }
+            if (i == 0) {
+                this.region_lb = lb;
+                this.region_width = Math.max(ub - lb, Double.MIN_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Collects the one-hot constraints over positive literals, whose variables define the swap neighbourhood.
+     */
+    private void initGroups() {
+        IVecInt removable = this.result.getProblem().findRemovableConstraints(true);
+        for (int i = 0; i < removable.size(); ++i) {
+            PBConstr c = this.problem.getConstr(removable.get(i));
+            ReadOnlyVecInt lits = c.getLits();
+            int[] vars = new int[lits.size()];
+            boolean positive = true;
+            for (int j = 0; j < lits.size() && positive; ++j) {
+                positive = lits.get(j) > 0;
+                vars[j] = lits.get(j);
+            }
+            if (positive) { this.groups.add(vars); }
+        }
+        Log.comment(1, ":swap-groups " + this.groups.size());
+    }
+
+    /**
+     * Applies Pareto local search to the MOCO instance provided in {@link #ParetoLocalSearch(Instance)}.
+     * If the instance has already been solved, nothing happens.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "ParetoLocalSearch.solve called on already solved instance");
+            return;
+        }
+        if (this.obj_deltas == null || !this.index.isCompiled()) {
+            Log.comment("PLS requires linear objectives and constraints with coefficients that fit in a long");
+            return;
+        }
+        Log.comment(3, "in ParetoLocalSearch.solve");
+        boolean[] initial = findInitialSolution();
+        if (initial == null) {
+            Log.comment(3, "out ParetoLocalSearch.solve");
+            return;
+        }
+        search(initial);
+        Log.comment(1, ":pls-explored " + this.nexplored.get() + " :pls-neighbours " + this.nneighbours.get() +
+                       " :pls-restarts " + this.nrestarts.get() + " :elapsed " + Clock.instance().getElapsed());
+        Log.comment(3, "out ParetoLocalSearch.solve");
+    }
+
+    /**
+     * Creates one queue of solutions to explore per worker thread.
+     */
+    void initQueues() {
+        this.queues.clear();
+        for (int i = 0; i < this.nthreads; ++i) {
+            this.queues.add(new ConcurrentLinkedDeque<boolean[]>());
+        }
+    }
+
+    /**
+     * Stores a feasible solution in the result and runs the worker threads from it until every region is
+     * exhausted or, if a time limit is set, until the time limit.
+     * @param initial The solution's assignment.
+     */
+    void search(boolean[] initial) {
+        initQueues();
+        this.result.saveAssignment(initial);
+        Worker first = new Worker(0);
+        first.load(initial);
+        this.pending.incrementAndGet();
+        this.queues.get(first.region()).add(initial);
+        List<Thread> threads = new ArrayList<Thread>(this.nthreads);
+        for (int i = 0; i < this.nthreads; ++i) {
+            Thread t = new Thread(i == 0 ? first : new Worker(i), "pls-worker-" + i);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        try {
+            for (int i = 0; i < threads.size(); ++i) {
+                threads.get(i).join();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Finds a feasible solution of the MOCO instance with a PB solver.
+     * If the instance is unsatisfiable, the result is marked as the Pareto front.
+     * @return The solution's assignment, or null if none was found.
+     */
+    private boolean[] findInitialSolution() {
+        PBSolver solver = new PBSolver();
+        try {
+            solver.newVars(this.problem.nVars());
+            for (int i = 0; i < this.problem.nConstrs(); ++i) {
+                solver.addConstr(this.problem.getConstr(i));
+            }
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "Contradiction in ParetoLocalSearch.findInitialSolution");
+            this.result.setParetoFrontFound();
+            return null;
+        }
+        solver.check();
+        if (!solver.isSolved()) { return null; }
+        if (solver.isUnsat()) {
+            this.result.setParetoFrontFound();
+            return null;
+        }
+        boolean[] a = new boolean[this.problem.nVars()];
+        for (int lit = 1; lit <= a.length; ++lit) {
+            a[lit-1] = solver.modelValue(lit);
+        }
+        return a;
+    }
+
+    /**
+     * Checks if the search should stop.
+     * @return True if the time limit was reached or the instance was solved, false otherwise.
+     */
+    private boolean shouldStop() {
+        return Clock.instance().timedOut() || this.result.isParetoFront();
+    }
+
+    /**
+     * Worker that explores solutions, keeping its current assignment's constraint left-hand sides, violated
+     * constraints and objective values up to date under flips.
+     */
+    class Worker implements Runnable {
+
+        /**
+         * Stores the worker's region.
+         */
+        private int id;
+
+        private Random rnd;
+
+        /**
+         * Stores the current assignment, where {@code a[v-1]} is the value of variable {@code v}.
+         */
+        boolean[] a;
+
+        /**
+         * Stores the scaled left-hand side of each constraint under {@link #a}.
+         */
+        long[] lhs;
+
+        /**
+         * Stores the violated constraints under {@link #a}, and the position of each constraint in that list
+         * (-1 if satisfied).
+         */
+        private int[] violated;
+        private int[] violated_pos;
+        int nviolated = 0;
+
+        /**
+         * Stores the objective values under {@link #a}, and a buffer for the values of a neighbour.
+         */
+        double[] costs;
+        private double[] neighbour_costs;
+
+        /**
+         * Creates a worker for a given region.
+         * @param id The region.
+         */
+        Worker(int id) {
+            this.id = id;
+            this.rnd = new Random(seed + id);
+            this.a = new boolean[problem.nVars()];
+            this.lhs = new long[index.nConstrs()];
+            this.violated = new int[index.nConstrs()];
+            this.violated_pos = new int[index.nConstrs()];
+            this.costs = new double[problem.nObjs()];
+            this.neighbour_costs = new double[problem.nObjs()];
+        }
+
+        @Override
+        public void run() {
+            while (!shouldStop()) {
+                boolean[] next = poll();
+                if (next != null) {
+                    load(next);
+                    explore();
+                    pending.decrementAndGet();
+                    nexplored.incrementAndGet();
+                }
+                else if (pending.get() > 0) {
+                    Thread.yield();
+                }
+                else if (Clock.instance().hasTimeout()) {
+                    restart();
+                }
+                else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Takes the next solution to explore from the worker's region, or from another region if empty.
+         * The solution stays counted as pending until its exploration is over.
+         * @return The solution's assignment, or null if every region is empty.
+         */
+        private boolean[] poll() {
+            boolean[] next = queues.get(this.id).pollFirst();
+            for (int i = 1; next == null && i < queues.size(); ++i) {
+                next = queues.get((this.id + i) % queues.size()).pollLast();
+            }
+            return next;
+        }
+
+        /**
+         * Computes the region of the current assignment.
+         * @return The region.
+         */
+        int region() {
+            int r = (int)((this.costs[0] - region_lb) / region_width * queues.size());
+            return Math.max(0, Math.min(queues.size() - 1, r));
+        }
+
+        /**
+         * Sets the current assignment and recomputes its left-hand sides and objective values from scratch.
+         * @param src The assignment.
+         */
+        void load(boolean[] src) {
+            System.arraycopy(src, 0, this.a, 0, this.a.length);
+            this.nviolated = 0;
+            for (int i = 0; i < this.lhs.length; ++i) {
+                this.lhs[i] = index.lhs(i, this.a);
+                this.violated_pos[i] = -1;
+                if (!index.isSatisfied(i, this.lhs[i])) { addViolated(i); }
+            }
+            for (int i = 0; i < this.costs.length; ++i) {
+                this.costs[i] = problem.getObj(i).evaluate(this.a).asDouble();
+            }
+        }
+
+        private void addViolated(int c) {
+            this.violated_pos[c] = this.nviolated;
+            this.violated[this.nviolated++] = c;
+        }
+
+        private void removeViolated(int c) {
+            int last = this.violated[--this.nviolated];
+            this.violated[this.violated_pos[c]] = last;
+            this.violated_pos[last] = this.violated_pos[c];
+            this.violated_pos[c] = -1;
+        }
+
+        /**
+         * Flips a variable in the current assignment.
+         * @param v The variable.
+         */
+        void flip(int v) {
+            long sign = this.a[v-1] ? -1 : 1;
+            this.a[v-1] = !this.a[v-1];
+            int[] occurs = index.getOccurrences(v);
+            long[] deltas = index.getOccurrenceDeltas(v);
+            for (int k = 0; k < occurs.length; ++k) {
+                int c = occurs[k];
+                this.lhs[c] += sign * deltas[k];
+                boolean sat = index.isSatisfied(c, this.lhs[c]);
+                if (sat && this.violated_pos[c] >= 0) { removeViolated(c); }
+                else if (!sat && this.violated_pos[c] < 0) { addViolated(c); }
+            }
+            for (int i = 0; i < this.costs.length; ++i) {
+                this.costs[i] += sign * obj_deltas[i][v];
+            }
+        }
+
+        /**
+         * Computes the change in the number of violated constraints if a variable is flipped.
+         * @param v The variable.
+         * @return The number of constraints broken minus the number of constraints fixed by the flip.
+         */
+        int breaks(int v) {
+            long sign = this.a[v-1] ? -1 : 1;
+            int[] occurs = index.getOccurrences(v);
+            long[] deltas = index.getOccurrenceDeltas(v);
+            int score = 0;
+            for (int k = 0; k < occurs.length; ++k) {
+                int c = occurs[k];
+                boolean sat = index.isSatisfied(c, this.lhs[c] + sign * deltas[k]);
+                if (!sat && this.violated_pos[c] < 0) { ++score; }
+                else if (sat && this.violated_pos[c] >= 0) { --score; }
+            }
+            return score;
+        }
+
+        /**
+         * Checks if the current assignment, with a given variable flipped, is not weakly dominated by the
+         * result.
+         * The current assignment is assumed to be feasible with the flip applied.
+         * @param v The variable.
+         * @return True if the neighbour is worth storing, false otherwise.
+         */
+        private boolean isPromising(int v) {
+            nneighbours.incrementAndGet();
+            double sign = this.a[v-1] ? -1.0 : 1.0;
+            for (int i = 0; i < this.costs.length; ++i) {
+                this.neighbour_costs[i] = this.costs[i] + sign * obj_deltas[i][v];
+            }
+            return !result.isWeaklyDominated(this.neighbour_costs);
+        }
+
+        /**
+         * Stores the current assignment in the result and, if it is not weakly dominated, queues it for
+         * exploration in its region.
+         */
+        private void offer() {
+            if (result.saveAssignment(this.a)) {
+                pending.incrementAndGet();
+                queues.get(region()).add(this.a.clone());
+            }
+        }
+
+        /**
+         * Evaluates the flip and swap neighbours of the current assignment, which must be feasible, and offers
+         * the feasible ones that are not weakly dominated.
+         */
+        void explore() {
+            if (this.nviolated > 0) { return; }
+            for (int v = 1; v <= this.a.length && !shouldStop(); ++v) {
+                if (breaks(v) == 0 && isPromising(v)) {
+                    flip(v);
+                    offer();
+                    flip(v);
+                }
+            }
+            for (int g = 0; g < groups.size() && !shouldStop(); ++g) {
+                int[] vars = groups.get(g);
+                int t = 0;
+                for (int j = 0; j < vars.length && t == 0; ++j) {
+                    if (this.a[vars[j]-1]) { t = vars[j]; }
+                }
+                if (t == 0) { continue; }
+                flip(t);
+                for (int j = 0; j < vars.length; ++j) {
+                    int f = vars[j];
+                    if (f != t && this.nviolated + breaks(f) == 0 && isPromising(f)) {
+                        flip(f);
+                        offer();
+                        flip(f);
+                    }
+                }
+                flip(t);
+            }
+        }
+
+        /**
+         * Loads a random solution from the result, applies random flips to it, and repairs it with a
+         * WalkSAT-like random walk over the violated constraints. The repaired solution is offered to the
+         * result.
+         */
+        void restart() {
+            nrestarts.incrementAndGet();
+            boolean[] src = result.sampleAssignment(this.rnd);
+            if (src == null) { return; }
+            load(src);
+            int nflips = 1 + this.rnd.nextInt(PERTURB_FLIPS);
+            for (int i = 0; i < nflips; ++i) {
+                flip(1 + this.rnd.nextInt(this.a.length));
+            }
+            for (int step = 0; step < MAX_REPAIR_STEPS && this.nviolated > 0 && !shouldStop(); ++step) {
+                int[] lits = index.getLits(this.violated[this.rnd.nextInt(this.nviolated)]);
+                int best = Math.abs(lits[this.rnd.nextInt(lits.length)]);
+                if (this.rnd.nextDouble() >= NOISE) {
+                    int best_score = Integer.MAX_VALUE;
+                    for (int j = 0; j < lits.length; ++j) {
+                        int score = breaks(Math.abs(lits[j]));
+                        if (score < best_score) {
+                            best_score = score;
+                            best = Math.abs(lits[j]);
+                        }
+                    }
+                }
+                flip(best);
+            }
+            if (this.nviolated == 0) { offer(); }
+        }
+
+    }
+
+}
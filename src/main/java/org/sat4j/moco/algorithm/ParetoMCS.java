@@ -30,8 +30,10 @@ import org.sat4j.core.ReadOnlyVecInt;
 import org.sat4j.core.Vec;
 import org.sat4j.core.VecInt;
 import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.Result;
 import org.sat4j.moco.mcs.IModelListener;
 import org.sat4j.moco.mcs.MCSExtractor;
+import org.sat4j.moco.pb.PBConstr;
 import org.sat4j.moco.pb.PBFactory;
 import org.sat4j.moco.pb.PBSolver;
 import org.sat4j.moco.problem.Instance;
@@ -75,12 +77,68 @@ public class ParetoMCS extends MOCOAlgorithm{
      */
     private MCSExtractor extractor = null;
     
+    /**
+     * Stores the objective cut encoder used for dominance cuts, or {@code null} if dominance cuts are
+     * disabled.
+     */
+    private ObjectiveCuts cuts = null;
+    
+    /**
+     * Boolean indicating if a dominance cut made the formula unsatisfiable, i.e., if every solution is
+     * weakly dominated by some solution already found.
+     */
+    private boolean cuts_closed = false;
+    
+    /**
+     * Stores the assumptions that restrict the search to a subspace (e.g. a cube), empty by default.
+     */
+    private IVecInt asms = new VecInt();
+    
+    /**
+     * Stores the log through which MCS blocking clauses are shared with concurrent workers, or {@code null}
+     * if the algorithm runs alone.
+     */
+    private ClauseExchange exchange = null;
+    
+    /**
+     * Stores the identifier of this worker in {@link #exchange}.
+     */
+    private int worker_id = 0;
+    
+    /**
+     * Stores the position in {@link #exchange} up to which clauses have been imported.
+     */
+    private int exchange_pos = 0;
+    
+    /**
+     * Boolean indicating if the enumeration was cancelled because the remaining solutions are known to be
+     * dominated.
+     */
+    private volatile boolean cancelled = false;
+    
     /**
      * Creates an instance of a MOCO solver, for a given instance, that applies the Pareto-MCS algorithm.
      * @param m The MOCO instance.
      */
     public ParetoMCS(Instance m) {
         super(m, false, false);
+        init();
+    }
+    
+    /**
+     * Creates an instance of a Pareto-MCS worker, for a given instance, that reports into a given result.
+     * @param m The MOCO instance.
+     * @param r The result, possibly shared with concurrent workers.
+     */
+    ParetoMCS(Instance m, Result r) {
+        super(m, r);
+        init();
+    }
+    
+    /**
+     * Builds the PB oracle and the MCS extractor.
+     */
+    private void init() {
         try {
             this.solver = buildSolver();
         }
@@ -92,17 +150,77 @@ public class ParetoMCS extends MOCOAlgorithm{
         this.extractor = new MCSExtractor(this.solver);
         this.extractor.setModelListener(new IModelListener() {
             public void onModel(PBSolver s) {
-                result.saveModel(s);
+                if (result.saveModel(s) && cuts != null) {
+                    addDominanceCut(s);
+                }
             }
         });
     }
     
+    /**
+     * Excludes the solutions weakly dominated by the cost vector of the model in a given PB solver from
+     * the search.
+     * @param s The solver containing the model.
+     */
+    private void addDominanceCut(PBSolver s) {
+        if (this.cuts_closed) { return; }
+        try {
+            this.cuts.addNotWeaklyDominated(s, this.cuts.evaluate(s));
+        }
+        catch (ContradictionException e) {
+            Log.comment(3, "contradiction adding dominance cut");
+            this.cuts_closed = true;
+        }
+    }
+    
     /**
      * Retrieves the result of the last call to {@link #solve()}.
      * @return The result.
      */
     //public Result getResult() { return this.result; }
     
+    /**
+     * Restricts the search to the solutions that satisfy a given set of assumptions.
+     * @param asms The assumptions.
+     */
+    void setAssumptions(IVecInt asms) { this.asms = asms; }
+    
+    /**
+     * Sets the log through which MCS blocking clauses are shared with concurrent workers.
+     * @param e The clause log.
+     * @param id The identifier of this worker.
+     */
+    void setExchange(ClauseExchange e, int id) {
+        this.exchange = e;
+        this.worker_id = id;
+    }
+    
+    /**
+     * Adds a constraint that restricts the search to a subspace (e.g. an objective space box).
+     * @param c The constraint.
+     * @throws ContradictionException if the oracle detects that the formula becomes unsatisfiable.
+     */
+    void restrict(PBConstr c) throws ContradictionException { this.solver.addConstr(c); }
+    
+    /**
+     * Stops the enumeration after the current MCS extraction, because the remaining solutions are known to
+     * be dominated. May be called from another thread.
+     */
+    void cancel() { this.cancelled = true; }
+    
+    /**
+     * Adds the blocking clauses published by concurrent workers since the last import to the oracle.
+     * @throws ContradictionException if the oracle detects that the formula becomes unsatisfiable.
+     */
+    private void importClauses() throws ContradictionException {
+        if (this.exchange == null) { return; }
+        IVec<IVecInt> clauses = new Vec<IVecInt>();
+        this.exchange_pos = this.exchange.fetch(this.worker_id, this.exchange_pos, clauses);
+        for (int i = 0; i < clauses.size(); ++i) {
+            this.solver.addConstr(PBFactory.instance().mkClause(clauses.get(i)));
+        }
+    }
+    
     /**
      * Applies the Pareto-MCS algorithm to the MOCO instance provided in {@link #ParetoMCS(Instance)}.
      * If the instance has already been solved, nothing happens.
@@ -113,31 +231,47 @@ public class ParetoMCS extends MOCOAlgorithm{
             return;
         }
         Log.comment(3, "in ParetoMCS.solve");
+        if (enumerate()) {
+            this.result.setParetoFrontFound();
+        }
+        else {
+            Log.comment(1, "MCS extraction timeout");
+        }
+        Log.comment(3, "out ParetoMCS.solve");
+    }
+    
+    /**
+     * Enumerates MCSs, reporting the models found into the result, until no MCS is left under the
+     * assumptions set through {@link #setAssumptions(IVecInt)} or the time limit is reached.
+     * @return True if the enumeration finished, false if it ran out of time.
+     */
+    boolean enumerate() {
+        if (this.solver == null) { return true; }           // hard formula is unsatisfiable
         int nmcs = 0;
         initUndefFmls();
         IVec<IVecInt> undef_fmls = buildUndefFmls();
-        extractor.extract(undef_fmls, new VecInt());
-        while (extractor.isSolved() && extractor.foundMCS()) {
-            ++nmcs;
-            if (extractor.getMSS().isEmpty()) { break; }    // if MSS is empty, then only 1 MCS exists
-            try {
+        try {
+            importClauses();
+            extractor.extract(undef_fmls, this.asms);
+            while (extractor.isSolved() && extractor.foundMCS()) {
+                ++nmcs;
+                if (extractor.getMSS().isEmpty()) { break; }    // if MSS is empty, then only 1 MCS exists
+                if (this.cuts_closed) { break; }                // remaining solutions are all dominated
+                if (this.cancelled) { break; }
                 solver.addConstr(PBFactory.instance().mkClause(extractor.getMCS()));
+                if (this.exchange != null) { this.exchange.publish(this.worker_id, extractor.getMCS()); }
+                importClauses();
                 if (this.stratify) { undef_fmls = buildUndefFmls(); }
-                extractor.extract(undef_fmls, new VecInt());
-            }
-            catch (ContradictionException e) {
-                Log.comment(3, "contradiction blocking MCS");
-                break;
+                extractor.extract(undef_fmls, this.asms);
             }
         }
-        Log.comment(1, ":mcs-found " + nmcs);
-        if (extractor.isSolved()) {
-            this.result.setParetoFrontFound();
-        }
-        else {
-            Log.comment(1, "MCS extraction timeout");
+        catch (ContradictionException e) {
+            Log.comment(3, "contradiction blocking MCS");
+            Log.comment(1, ":mcs-found " + nmcs);
+            return true;
         }
-        Log.comment(3, "out ParetoMCS.solve");
+        Log.comment(1, ":mcs-found " + nmcs);
+        return extractor.isSolved();
     }
     
     /**
@@ -382,7 +516,18 @@ public class ParetoMCS extends MOCOAlgorithm{
             this.lwr = p.getLWR();
             Log.comment(":lwr " + this.lwr);
         }
-        this.extractor.updtParams(p);
+        if (p.getDominanceCuts() && this.cuts == null) {
+            if (ObjectiveCuts.supports(this.problem)) {
+                this.cuts = new ObjectiveCuts(this.problem);
+            }
+            else {
+                Log.comment("dominance cuts require linear objectives, disabling");
+            }
+        }
+        Log.comment(":dominance-cuts " + (this.cuts != null));
+        if (this.extractor != null) {
+            this.extractor.updtParams(p);
+        }
     }
     
 }
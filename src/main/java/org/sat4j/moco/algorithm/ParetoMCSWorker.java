@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Log;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Worker process of {@link DistributedParetoMCS}.
+ * Connects to the coordinator over a local socket and enumerates the subspaces it is assigned, one at a time,
+ * with a {@link ParetoMCS} worker. New nondominated models and MCS blocking clauses are streamed back as they
+ * are found, and blocking clauses from other workers are imported as they arrive.
+ * The protocol is line based. Messages from the coordinator are {@code TASK <subspace>},
+ * {@code CLAUSE <lits>}, {@code CANCEL <id>} and {@code QUIT}. Messages to the coordinator are
+ * {@code HELLO <slot>}, {@code MODEL <true vars>}, {@code CLAUSE <lits>} and {@code DONE <id> <0|1>}.
+ */
+public class ParetoMCSWorker {
+
+    /**
+     * Origin identifier of the clauses received from the coordinator.
+     */
+    private static final int REMOTE = -1;
+
+    /**
+     * Maximum time, in milliseconds, spent writing the pending messages before disconnecting.
+     */
+    private static final long CLOSE_MS = 5000;
+
+    /**
+     * The MOCO instance being solved.
+     */
+    private Instance problem = null;
+
+    /**
+     * The parameters to be passed to each {@link ParetoMCS} worker.
+     */
+    private Params params = null;
+
+    /**
+     * Stores the writer of the connection to the coordinator.
+     */
+    private MessageWriter out = null;
+
+    /**
+     * Stores the messages (tasks or termination) to be handled by the main loop.
+     */
+    private BlockingQueue<String> inbox = new LinkedBlockingQueue<String>();
+
+    /**
+     * Stores the log of blocking clauses, which forwards the clauses published locally to the coordinator.
+     */
+    private ClauseExchange exchange = new ClauseExchange() {
+        @Override
+        public synchronized void publish(int worker, IVecInt clause) {
+            super.publish(worker, clause);
+            if (worker != REMOTE) { send("CLAUSE " + join(clause)); }
+        }
+    };
+
+    /**
+     * Stores the result shared by all tasks of this process, which forwards new nondominated models to the
+     * coordinator.
+     */
+    private Result result = null;
+
+    /**
+     * Stores the worker enumerating the current subspace, or null if idle.
+     */
+    private volatile ParetoMCS current = null;
+
+    /**
+     * Stores the identifier of the current subspace.
+     */
+    private volatile int current_id = -1;
+
+    /**
+     * Creates a worker process handler for a given MOCO instance.
+     * @param m The MOCO instance.
+     * @param p The parameters object.
+     */
+    public ParetoMCSWorker(Instance m, Params p) {
+        this.problem = m;
+        this.params = p;
+        this.result = new Result(m, false, false) {
+            @Override
+            public boolean saveModel(PBSolver s) {
+                boolean saved = super.saveModel(s);
+                if (saved) {
+                    StringBuilder sb = new StringBuilder("MODEL");
+                    for (int v = 1; v <= problem.nVars(); ++v) {
+                        if (s.modelValue(v)) { sb.append(' ').append(v); }
+                    }
+                    send(sb.toString());
+                }
+                return saved;
+            }
+        };
+    }
+
+    /**
+     * Joins the literals in a vector into a space separated string.
+     * @param lits The literals.
+     * @return The string.
+     */
+    static String join(IVecInt lits) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lits.size(); ++i) {
+            sb.append(i == 0 ? "" : " ").append(lits.get(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a space separated list of integers.
+     * @param s The string.
+     * @return The integers.
+     */
+    static IVecInt parseLits(String s) {
+        IVecInt lits = new VecInt();
+        String[] tokens = s.trim().split(" ");
+        for (int i = 0; i < tokens.length; ++i) {
+            if (!tokens[i].isEmpty()) { lits.push(Integer.parseInt(tokens[i])); }
+        }
+        return lits;
+    }
+
+    /**
+     * Queues a message to the coordinator. Never blocks on the connection, so it is safe to call while
+     * holding the exchange's or the result's lock.
+     * @param msg The message.
+     */
+    private void send(String msg) { this.out.send(msg); }
+
+    /**
+     * Connects to the coordinator and handles tasks until told to quit or the connection is lost.
+     * @param port The coordinator's local port.
+     * @param slot The slot of this worker in the coordinator.
+     * @throws IOException if an error occurs connecting to the coordinator.
+     */
+    public void run(int port, int slot) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        this.out = new MessageWriter(socket.getOutputStream());
+        send("HELLO " + slot);
+        Thread reader = new Thread() {
+            public void run() { readLoop(in); }
+        };
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            while (true) {
+                String msg = this.inbox.take();
+                if (!msg.startsWith("TASK ")) { break; }
+                Subspace sub = Subspace.decode(msg.substring(5));
+                boolean done = enumerate(sub);
+                send("DONE " + sub.getId() + " " + (done ? 1 : 0));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            this.out.close(CLOSE_MS);
+            socket.close();
+        }
+    }
+
+    /**
+     * Reads messages from the coordinator, handling clauses and cancellations immediately and queueing the
+     * rest for the main loop.
+     * @param in The reader of the connection to the coordinator.
+     */
+    private void readLoop(BufferedReader in) {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("CLAUSE ")) {
+                    this.exchange.publish(REMOTE, parseLits(line.substring(7)));
+                }
+                else if (line.startsWith("CANCEL ")) {
+                    ParetoMCS w = this.current;
+                    if (w != null && this.current_id == Integer.parseInt(line.substring(7).trim())) { w.cancel(); }
+                }
+                else {
+                    this.inbox.add(line);
+                }
+            }
+        }
+        catch (IOException e) {
+            Log.comment(1, "worker connection lost: " + e.getMessage());
+        }
+        this.inbox.add("QUIT");
+        ParetoMCS w = this.current;
+        if (w != null) { w.cancel(); }
+    }
+
+    /**
+     * Enumerates the MCSs in a given subspace.
+     * @param sub The subspace.
+     * @return True if the enumeration finished or was cancelled, false if it ran out of time.
+     */
+    private boolean enumerate(Subspace sub) {
+        ParetoMCS w = new ParetoMCS(this.problem, this.result);
+        if (this.result.isParetoFront()) { return true; }       // hard formula is unsatisfiable
+        w.updtParams(this.params);
+        try {
+            sub.restrict(w, this.problem);
+        }
+        catch (ContradictionException e) {
+            return true;
+        }
+        w.setExchange(this.exchange, sub.getId());
+        this.current_id = sub.getId();
+        this.current = w;
+        boolean done = w.enumerate();
+        this.current = null;
+        return done;
+    }
+
+}
@@ -5,7 +5,9 @@ import org.sat4j.core.ReadOnlyVec;
 import org.sat4j.core.ReadOnlyVecInt;
 import org.sat4j.core.Vec;
 import org.sat4j.core.VecInt;
+import org.sat4j.moco.analysis.ConstraintIndex;
 import org.sat4j.moco.analysis.MOCOProblem;
+import org.sat4j.moco.analysis.ViolationTracker;
 import org.sat4j.moco.mcs.IModelListener;
 import org.sat4j.moco.mcs.MCSExtractor;
 import org.sat4j.moco.pb.*;
@@ -17,15 +19,27 @@ import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.IVec;
 import org.sat4j.specs.IVecInt;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 public class SmartMutation implements Variation {
 
     public static int MAX_EVO_COUNT = 1000;
 
-    private double mutation_probability;
+    /**
+     * Maximum number of blocking clauses kept in the oracle. Once reached, the oldest half is discarded and
+     * the oracle is rebuilt.
+     */
+    public static int MAX_BLOCK_CLAUSES = 2000;
+
+    /**
+     * Maximum number of unsat cores kept in the core cache.
+     */
+    public static int CORE_CACHE_SIZE = 64;
+
+    private volatile double mutation_probability;
 
     private double improvement_relax;
 
@@ -70,10 +84,84 @@ public class SmartMutation implements Variation {
 
     private Solution improved_solution = null;
 
+    /**
+     * Stores the buffer into which individuals are decoded before applying a smart operator.
+     */
+    private boolean[] assignment = null;
+
+    /**
+     * Stores the occurrence index and compiled form of the problem's constraints.
+     */
+    private ConstraintIndex constr_index = null;
+
+    /**
+     * Variable bitmaps, indexed by variable, reused across calls: the variables of violated constraints, and
+     * the variables to be left out of an assumption set.
+     */
+    private boolean[] violating = null;
+    private boolean[] drop = null;
+
+    /**
+     * Stores the variables in the special constraints used by smart improvement, as a bitmap indexed by
+     * variable.
+     */
+    private boolean[] special_vars = null;
+
+    /**
+     * Stores the constraints violated by the last assignment checked, updated incrementally from the previous
+     * one.
+     */
+    private ViolationTracker violations = null;
+
+    /**
+     * Stores, for each constraint, the last stamp with which it was visited, so that each constraint is
+     * expanded at most once per core.
+     */
+    private int[] constr_stamps = null;
+    private int stamp = 0;
+
+    /**
+     * Stores the variables onto which blocking clauses are projected, i.e., the objective variables, or every
+     * variable if the objectives have none.
+     */
+    private int[] block_vars = null;
+
+    /**
+     * Stores the blocking clauses currently in the oracle, oldest first.
+     */
+    private IVec<IVecInt> block_clauses = new Vec<IVecInt>();
+
+    /**
+     * Stores the clauses learned from the MCSs found by smart improvement, which survive oracle rebuilds.
+     */
+    private IVec<IVecInt> mcs_clauses = new Vec<IVecInt>();
+
+    /**
+     * Stores the unsat cores recently found by smart mutation, least recently used first.
+     */
+    private List<int[]> core_cache = new ArrayList<int[]>();
+
+    /**
+     * Stores, for each variable, the literal over it in the current assumption set, or 0 if there is none.
+     */
+    private int[] asm_lits = null;
+
 
     public SmartMutation (double mutation_probability, boolean evolutionary, Problem problem){
         this.problem = (MOCOProblem) problem;
         special_constraints = this.problem.findSpecialConstraints4SmartImprovement();
+        int nvars = this.problem.getInitialNumberOfVariables();
+        this.constr_index = this.problem.getConstraintIndex();
+        this.violating = new boolean[nvars+1];
+        this.drop = new boolean[nvars+1];
+        this.asm_lits = new int[nvars+1];
+        this.special_vars = new boolean[nvars+1];
+        for (Integer v : special_constraints.getVariablesHash()) {
+            if (v > 0 && v <= nvars) { this.special_vars[v] = true; }
+        }
+        this.violations = new ViolationTracker(this.constr_index);
+        this.constr_stamps = new int[this.constr_index.nConstrs()];
+        this.block_vars = findBlockVars();
         setVars(mutation_probability, evolutionary);
         try {
             this.solver = buildSolver();
@@ -82,8 +170,15 @@ public class SmartMutation implements Variation {
             Log.comment(3, "Contradiction in SmartMutation");
             return;
         }
-        this.extractor = new MCSExtractor(this.solver);
+        initExtractor();
         initUndefFmls();
+    }
+
+    /**
+     * Creates the MCS extractor over the current oracle.
+     */
+    private void initExtractor() {
+        this.extractor = new MCSExtractor(this.solver);
         this.extractor.setModelListener(new IModelListener() {
             public void onModel(PBSolver s) {
                 saveModel(s);
@@ -91,6 +186,37 @@ public class SmartMutation implements Variation {
         });
     }
 
+    /**
+     * Finds the variables onto which blocking clauses are projected.
+     * Models that agree on every objective variable have the same cost vector, so blocking their projection
+     * is enough to force smart mutation to produce a new point.
+     * @return The objective variables, in increasing order, or every variable if there are none.
+     */
+    private int[] findBlockVars() {
+        int nvars = this.problem.getInitialNumberOfVariables();
+        boolean[] in_obj = new boolean[nvars+1];
+        int n = 0;
+        for (int i = 0; i < this.problem.getNumberOfObjectives(); ++i) {
+            Objective o = this.problem.getObj(i);
+            for (int j = 0; j < o.nSubObj(); ++j) {
+                ReadOnlyVecInt lits = o.getSubObjLits(j);
+                for (int k = 0; k < lits.size(); ++k) {
+                    int v = Math.abs(lits.get(k));
+                    if (v <= nvars && !in_obj[v]) {
+                        in_obj[v] = true;
+                        ++n;
+                    }
+                }
+            }
+        }
+        int[] vars = new int[n == 0 ? nvars : n];
+        for (int v = 1, k = 0; v <= nvars; ++v) {
+            if (n == 0 || in_obj[v]) { vars[k++] = v; }
+        }
+        Log.comment(1, ":block-vars " + vars.length);
+        return vars;
+    }
+
     @Override
     public int getArity() {
         return 1;
@@ -103,19 +229,35 @@ public class SmartMutation implements Variation {
         }
         //System.out.println(this.mutation_probability);
         //System.out.println("counter = " + this.evo_counter);
-        Solution[] new_sols = new Solution[] { solutions[0] };
-        boolean[] assignment = this.problem.getAssignment(new_sols[0]);
-        Set<Integer> violating_indexes = GetViolatingVariables(assignment);
-        if(!violating_indexes.isEmpty()){
-            new_sols[0] = ApplySmartMutation(new_sols[0], violating_indexes, assignment);
-        }
-        else{
-            new_sols[0] = ApplySmartImprovement(new_sols[0], assignment);
-        }
+        Solution[] new_sols = new Solution[] { apply(solutions[0]) };
         Log.comment(3, "Out SmartMutation.evolve");
         return new_sols;
     }
 
+    /**
+     * Applies smart mutation to an individual that violates some constraint, or smart improvement otherwise.
+     * @param sol The individual.
+     * @return The repaired or improved individual, or {@code sol} if none was found.
+     */
+    public Solution apply(Solution sol) {
+        if (this.assignment == null) {
+            this.assignment = new boolean[this.problem.getInitialNumberOfVariables()];
+        }
+        boolean[] assignment = this.assignment;
+        this.problem.getAssignment(sol, assignment);
+        boolean[] violating_indexes = GetViolatingVariables(assignment);
+        if(violating_indexes != null){
+            return ApplySmartMutation(sol, violating_indexes, assignment);
+        }
+        return ApplySmartImprovement(sol, assignment);
+    }
+
+    /**
+     * Retrieves the current probability of applying a smart operator.
+     * @return The probability.
+     */
+    public double getMutationProbability() { return this.mutation_probability; }
+
     private void setVars(double prob, boolean evo) {
         this.mutation_probability = prob;
         this.evolutionary = evo;
@@ -170,10 +312,10 @@ public class SmartMutation implements Variation {
     /**
      * Applies smart mutation to an individual
      * @param result The individual to be fixed
-     * @param violating_indexes The indexes of the variables that violate the constraint
+     * @param violating_indexes Bitmap of the variables in violated constraints, indexed by variable
      * @param assignment The purely Boolean assignment of the individual
      */
-    public Solution ApplySmartMutation(Solution result, Set<Integer> violating_indexes, boolean[] assignment){
+    public Solution ApplySmartMutation(Solution result, boolean[] violating_indexes, boolean[] assignment){
         if (Clock.instance().timedOut()) { return result; }
         Log.comment(3, "in SmartMutation.ApplySmartMutation");
         double initial_time = Clock.instance().getElapsed();
@@ -185,6 +327,7 @@ public class SmartMutation implements Variation {
         this.problem.increaseTotalMutation();
         IVecInt assumptions = getMutationAssumptions(violating_indexes, assignment);
         Log.comment(1, "assumptions size on smart mutation: " + assumptions.size());
+        RemoveCachedCoresFromAssumptions(assumptions);
         Solution new_result = result.copy();
         Log.comment(2, "looking for a model");
         this.solver.check(assumptions);
@@ -198,6 +341,7 @@ public class SmartMutation implements Variation {
                 return result;
             }
             initial_assumptions_size = assumptions.size();
+            cacheCore(expl);
             RemoveCoreFromAssumptions(assumptions, expl);
             Log.comment(1, "assumptions new size: " + assumptions.size());
             if (initial_assumptions_size == assumptions.size()){
@@ -217,6 +361,13 @@ public class SmartMutation implements Variation {
             return result;
         }
 
+        if (this.solver.isSolved() && this.solver.isUnsat() && !this.block_clauses.isEmpty()) {
+            Log.comment(1, "every objective assignment blocked, discarding the blocking clauses");
+            rebuildSolver(new Vec<IVecInt>());
+            Log.comment(3, "out SmartMutation.ApplySmartMutation");
+            return result;
+        }
+
         if (this.solver.isSolved() && this.solver.isUnsat()){
             Log.comment(0, "Problem is UNSAT. Ending Execution on smart mutation.");
             this.problem.getResult().setParetoFrontFound();
@@ -236,13 +387,7 @@ public class SmartMutation implements Variation {
             Log.comment(0,"UnsupportedOperationException found while getting model on smart mutation");
             System.exit(1);
         }
-        try {
-            AddBlockClause(model);
-        }
-        catch(ContradictionException ce){
-            Log.comment(0,"ContradictionException found while blocking solution on smart mutation");
-            System.exit(1);
-        }
+        AddBlockClause(model);
         new_result = setNewResult(new_result, model);
         this.problem.evaluate(new_result);
         IncreaseEvoCounter();
@@ -284,7 +429,10 @@ public class SmartMutation implements Variation {
             return result;
         }
         try {
-            solver.addConstr(PBFactory.instance().mkClause(extractor.getMCS()));
+            IVecInt mcs = new VecInt();
+            extractor.getMCS().copyTo(mcs);
+            this.mcs_clauses.push(mcs);
+            solver.addConstr(PBFactory.instance().mkClause(mcs));
         }
         catch (ContradictionException e){
             Log.comment(3, "contradiction adding MCS to formula");
@@ -310,47 +458,19 @@ public class SmartMutation implements Variation {
 
     /**
      * Gets the set of assumptions to be used in smart mutation
-     * @param violating_indexes The indexes of the variables that violate the constraint
+     * @param violating_indexes Bitmap of the variables in violated constraints, indexed by variable
      * @param assignment The purely Boolean assignment of the individual
      */
-    public IVecInt getMutationAssumptions(Set<Integer> violating_indexes, boolean[] assignment){
+    public IVecInt getMutationAssumptions(boolean[] violating_indexes, boolean[] assignment){
         Log.comment(2, "looking for assumptions");
-        IVecInt assumptions = new VecInt();
-        HashSet<Integer> level0 = new HashSet<Integer>();
-
+        Arrays.fill(this.drop, false);
         for (int i = 1; i <= assignment.length; i++){
-            if (!violating_indexes.contains(i)){
-                assumptions.push(assignment[i - 1] ? i : -i);
-            }
-            else if (this.problem.getSI()){
-                level0.add(i);
-            }
+            this.drop[i] = violating_indexes[i];
         }
         if (this.problem.getSI()) {
-            IVec<IVecInt> freeVars = new Vec<IVecInt>();
-            this.problem.getFreeVars().copyTo(freeVars);
-
-            for (int j = 0; j < freeVars.size(); j++) {
-                IVecInt freeVarsJ = freeVars.get(j);
-                for (int k = 0; k < freeVarsJ.size(); k++) {
-                    if (level0.contains(Math.abs(freeVarsJ.get(k)))) {
-                        for (int l = 0; l < freeVarsJ.size(); l++) {
-                            if (assumptions.contains(freeVarsJ.get(l))) {
-                                assumptions.remove(freeVarsJ.get(l));
-                            }
-                            else if (assumptions.contains(-freeVarsJ.get(l))) {
-                                assumptions.remove(-freeVarsJ.get(l));
-                            }
-                        }
-                        break;
-                    }
-                }
-                if (assumptions.size() == 0){
-                    break;
-                }
-            }
+            dropFreeVarGroups(violating_indexes);
         }
-        return assumptions;
+        return keepAssumptions(assignment);
     }
 
     /**
@@ -360,7 +480,8 @@ public class SmartMutation implements Variation {
     public IVecInt getImprovementAssumptions(boolean[] assignment){
         Log.comment(2, "looking for assumptions");
         IVecInt assumptions = new VecInt();
-        HashSet<Integer> level0 = new HashSet<Integer>();
+        boolean[] level0 = this.violating;
+        Arrays.fill(level0, false);
         IVec<IVecInt> var_list = special_constraints.getVariablesList();
 
         for (int i = 0; i < var_list.size(); i++){
@@ -371,44 +492,76 @@ public class SmartMutation implements Variation {
                 }
             }
         }
-        HashSet<Integer> var_hash = special_constraints.getVariablesHash();
         for (int i = 1; i <= assignment.length; i++){
-            if (var_hash.contains(i)){
+            if (this.special_vars[i]){
                 continue;
             }
             if (PRNG.nextDouble() > this.improvement_relax){
                 assumptions.push(assignment[i - 1] ? i : -i);
             }
             else if (this.problem.getSI()){
-                level0.add(i);
+                level0[i] = true;
             }
         }
         if (this.problem.getSI()) {
-            IVec<IVecInt> freeVars = new Vec<IVecInt>();
-            this.problem.getFreeVars().copyTo(freeVars);
-            for (int j = 0; j < freeVars.size(); j++) {
-                IVecInt freeVarsJ = freeVars.get(j);
-                for (int k = 0; k < freeVarsJ.size(); k++) {
-                    if (level0.contains(Math.abs(freeVarsJ.get(k)))) {
-                        for (int l = 0; l < freeVarsJ.size(); l++) {
-                            if (assumptions.contains(freeVarsJ.get(l))) {
-                                assumptions.remove(freeVarsJ.get(l));
-                            }
-                            else if (assumptions.contains(-freeVarsJ.get(l))) {
-                                assumptions.remove(-freeVarsJ.get(l));
-                            }
-                        }
-                        break;
+            Arrays.fill(this.drop, false);
+            dropFreeVarGroups(level0);
+            filterAssumptions(assumptions);
+        }
+        return assumptions;
+    }
+
+    /**
+     * Marks, in {@link #drop}, every variable in the structure improvement groups that contain some variable
+     * in a given bitmap.
+     * @param marked The bitmap, indexed by variable.
+     */
+    private void dropFreeVarGroups(boolean[] marked) {
+        IVec<IVecInt> freeVars = this.problem.getFreeVars();
+        for (int j = 0; j < freeVars.size(); j++) {
+            IVecInt freeVarsJ = freeVars.get(j);
+            for (int k = 0; k < freeVarsJ.size(); k++) {
+                if (marked[Math.abs(freeVarsJ.get(k))]) {
+                    for (int l = 0; l < freeVarsJ.size(); l++) {
+                        this.drop[Math.abs(freeVarsJ.get(l))] = true;
                     }
-                }
-                if (assumptions.size() == 0){
                     break;
                 }
             }
         }
+    }
+
+    /**
+     * Builds the assumptions that fix each variable not marked in {@link #drop} to its value in a given
+     * assignment.
+     * @param assignment The purely Boolean assignment of the individual
+     * @return The assumptions.
+     */
+    private IVecInt keepAssumptions(boolean[] assignment) {
+        IVecInt assumptions = new VecInt(assignment.length);
+        for (int i = 1; i <= assignment.length; i++){
+            if (!this.drop[i]){
+                assumptions.unsafePush(assignment[i - 1] ? i : -i);
+            }
+        }
         return assumptions;
     }
 
+    /**
+     * Removes, in place and preserving order, the assumptions over variables marked in {@link #drop}.
+     * @param as The assumptions.
+     */
+    private void filterAssumptions(IVecInt as) {
+        int k = 0;
+        for (int i = 0; i < as.size(); i++) {
+            int lit = as.get(i);
+            if (!this.drop[Math.abs(lit)]) {
+                as.set(k++, lit);
+            }
+        }
+        as.shrinkTo(k);
+    }
+
     public static class SpecialConstraints {
         public  IVec<IVecInt> variables_list;
         public HashSet<Integer> variables_hash;
@@ -498,18 +651,126 @@ public class SmartMutation implements Variation {
     }
 
     /**
-     * Adds a block clause to the problem
+     * Adds a block clause to the problem, projected onto the objective variables.
+     * If the blocking clause limit is reached, the oldest half of the blocking clauses is discarded first.
+     * Blocking clauses are a heuristic, so if the new one blocks every objective assignment left, the blocking
+     * clauses are discarded instead of ending the search.
      * @param model The model that will be blocked
      */
-    private void AddBlockClause(int[] model) throws ContradictionException {
-        IVecInt block_lits = new VecInt();
-        //System.out.println("model = ");
-        for (int i = 0; i < this.problem.getInitialNumberOfVariables(); i++){
-            //System.out.print(model[i] + " ");
-            block_lits.push(-model[i]);
+    private void AddBlockClause(int[] model) {
+        if (this.block_clauses.size() >= MAX_BLOCK_CLAUSES) {
+            compactBlockClauses();
+        }
+        IVecInt block_lits = new VecInt(this.block_vars.length);
+        for (int i = 0; i < this.block_vars.length; i++){
+            block_lits.unsafePush(-model[this.block_vars[i] - 1]);
+        }
+        try {
+            solver.addConstr(PBFactory.instance().mkClause(block_lits));
+            this.block_clauses.push(block_lits);
+        }
+        catch (ContradictionException e) {
+            Log.comment(1, "every objective assignment blocked, discarding the blocking clauses");
+            rebuildSolver(new Vec<IVecInt>());
+        }
+    }
+
+    /**
+     * Discards the oldest half of the blocking clauses and rebuilds the oracle without them.
+     */
+    private void compactBlockClauses() {
+        Log.comment(3, "in SmartMutation.compactBlockClauses");
+        int nkept = this.block_clauses.size() / 2;
+        IVec<IVecInt> kept = new Vec<IVecInt>(nkept);
+        for (int i = this.block_clauses.size() - nkept; i < this.block_clauses.size(); ++i) {
+            kept.push(this.block_clauses.get(i));
+        }
+        rebuildSolver(kept);
+        Log.comment(3, "out SmartMutation.compactBlockClauses");
+    }
+
+    /**
+     * Rebuilds the oracle with the problem's constraints, the MCS clauses and a given set of blocking clauses.
+     * The new oracle and its extractor only replace the current ones once the new oracle is complete.
+     * If the rebuilt formula is found to be unsatisfiable, the current oracle and blocking clauses are kept.
+     * @param kept The blocking clauses to keep.
+     */
+    private void rebuildSolver(IVec<IVecInt> kept) {
+        PBSolver rebuilt;
+        try {
+            rebuilt = buildSolver();
+            for (int i = 0; i < this.mcs_clauses.size(); ++i) {
+                rebuilt.addConstr(PBFactory.instance().mkClause(this.mcs_clauses.get(i)));
+            }
+            for (int i = 0; i < kept.size(); ++i) {
+                rebuilt.addConstr(PBFactory.instance().mkClause(kept.get(i)));
+            }
+        }
+        catch (ContradictionException e) {
+            Log.comment(1, "contradiction rebuilding the smart mutation oracle");
+            return;
+        }
+        this.solver = rebuilt;
+        this.block_clauses = kept;
+        this.core_cache.clear();
+        initExtractor();
+        Log.comment(1, ":block-clauses " + this.block_clauses.size() + " :mcs-clauses " + this.mcs_clauses.size());
+    }
+
+    /**
+     * Adds an unsat core to the core cache, evicting the least recently used core if the cache is full.
+     * @param expl The core.
+     */
+    private void cacheCore(IVecInt expl) {
+        if (CORE_CACHE_SIZE <= 0) { return; }
+        if (this.core_cache.size() >= CORE_CACHE_SIZE) {
+            this.core_cache.remove(0);
+        }
+        int[] core = new int[expl.size()];
+        for (int i = 0; i < core.length; ++i) {
+            core[i] = expl.get(i);
+        }
+        this.core_cache.add(core);
+    }
+
+    /**
+     * Removes from the set of assumptions every cached unsat core it contains, as
+     * {@link #RemoveCoreFromAssumptions(IVecInt, IVecInt)} would after a SAT call returning that core.
+     * Cached cores remain cores because the oracle's formula only grows between compactions.
+     * @param as The set of assumptions
+     */
+    private void RemoveCachedCoresFromAssumptions(IVecInt as) {
+        if (this.core_cache.isEmpty()) { return; }
+        this.problem.increaseCoreCacheLookups();
+        for (int i = 0; i < as.size(); ++i) {
+            this.asm_lits[Math.abs(as.get(i))] = as.get(i);
+        }
+        List<int[]> hits = new ArrayList<int[]>();
+        for (int i = this.core_cache.size() - 1; i >= 0 && as.size() > 0; --i) {
+            int[] core = this.core_cache.get(i);
+            boolean contained = true;
+            for (int j = 0; j < core.length && contained; ++j) {
+                contained = this.asm_lits[Math.abs(core[j])] == core[j];
+            }
+            if (!contained) { continue; }
+            RemoveCoreFromAssumptions(as, new VecInt(core));
+            for (int v = 1; v < this.drop.length; ++v) {
+                if (this.drop[v]) { this.asm_lits[v] = 0; }
+            }
+            this.core_cache.remove(i);
+            hits.add(core);
+        }
+        for (int i = 0; i < as.size(); ++i) {
+            this.asm_lits[Math.abs(as.get(i))] = 0;
+        }
+        for (int i = hits.size() - 1; i >= 0; --i) {
+            this.core_cache.add(hits.get(i));
+        }
+        if (!hits.isEmpty()) {
+            this.problem.increaseCoreCacheHits();
+            this.problem.increaseSavedSATCalls(hits.size());
+            Log.comment(2, ":cached-cores " + hits.size() + " :assumptions " + as.size());
         }
-        PBConstr block_constr = PBFactory.instance().mkClause(block_lits);
-        solver.addConstr(block_constr);
     }
 
     /**
@@ -518,28 +779,31 @@ public class SmartMutation implements Variation {
      * @param expl The explanation to why the solver cannot find a feasible assignment
      */
     private void RemoveCoreFromAssumptions(IVecInt as, IVecInt expl) {
-        Set<Integer> to_remove = new HashSet<Integer>();
-        for (int i = 0; i < expl.size(); i++) {
-            to_remove.add(expl.get(i));
-        }
-        for (int j = 0; j < this.problem.getNumberOfConstraints(); j++){
-            for (int k = 0; k < this.problem.getConstr(j).getLits().size(); k++){
-                if (expl.contains(Math.abs(this.problem.getConstr(j).getLits().get(k)))){
-                    for (int l = 0; l < this.problem.getConstr(j).getLits().size(); l++){
-                        to_remove.add(Math.abs(this.problem.getConstr(j).getLits().get(l)));
-                    }
-                    break;
-                }
-            }
+        Arrays.fill(this.drop, false);
+        if (++this.stamp == 0) {
+            Arrays.fill(this.constr_stamps, 0);
+            this.stamp = 1;
         }
-        for (int i : to_remove) {
-            if (as.indexOf(i) != -1){
-                as.remove(i);
+        for (int i = 0; i < expl.size(); i++) {
+            int lit = expl.get(i);
+            this.drop[Math.abs(lit)] = true;
+            if (lit <= 0) {
+                continue;
             }
-            else if (as.indexOf(-i) != -1){
-                as.remove(-i);
+            int[] occurs = this.constr_index.getOccurrences(lit);
+            for (int j = 0; j < occurs.length; j++) {
+                int c = occurs[j];
+                if (this.constr_stamps[c] == this.stamp) {
+                    continue;
+                }
+                this.constr_stamps[c] = this.stamp;
+                int[] lits = this.constr_index.getLits(c);
+                for (int l = 0; l < lits.length; l++) {
+                    this.drop[Math.abs(lits[l])] = true;
+                }
             }
         }
+        filterAssumptions(as);
     }
 
     private boolean isWeaklyDominated(Solution sol, Solution other_sol) {
@@ -553,24 +817,24 @@ public class SmartMutation implements Variation {
 
     /**
      * Finds with there are any variables from the assignment that violate the constraints
-     * @return Set of variables that violate the constraints
+     * @return Bitmap of the variables in violated constraints, indexed by variable, or null if no constraint
+     * is violated. The bitmap is reused by later calls.
      */
-    public Set<Integer> GetViolatingVariables(boolean[] assignment){
+    public boolean[] GetViolatingVariables(boolean[] assignment){
         Log.comment(2, "looking for violating variables");
-        Set<Integer> violating_indexes = new HashSet<Integer>();
-        ReadOnlyVecInt literals;
-
-        for (int i = 0; i < this.problem.getNumberOfConstraints(); ++i) {
-            PBConstr constr = this.problem.getConstr(i);
-            Real lhs = constr.getLHS().evaluate(assignment);
-            if (constr.violatedBy(lhs)){
-                literals = this.problem.getConstr(i).getLHS().getLits();
-                for (int j = 0; j < literals.size(); j++){
-                    violating_indexes.add(Math.abs(literals.get(j)));
-                }
+        int nviolated = this.violations.update(assignment);
+        if (nviolated == 0) {
+            return null;
+        }
+        Arrays.fill(this.violating, false);
+        int[] violated = this.violations.getViolated();
+        for (int i = 0; i < nviolated; ++i) {
+            int[] lits = this.constr_index.getLits(violated[i]);
+            for (int j = 0; j < lits.length; j++){
+                this.violating[Math.abs(lits[j])] = true;
             }
         }
-        return violating_indexes;
+        return this.violating;
     }
 
     /**
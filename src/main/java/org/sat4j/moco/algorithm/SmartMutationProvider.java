@@ -4,7 +4,10 @@ import org.moeaframework.core.Problem;
 import org.moeaframework.core.Variation;
 import org.moeaframework.core.spi.OperatorProvider;
 import org.moeaframework.util.TypedProperties;
+import org.sat4j.moco.analysis.MOCOProblem;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class SmartMutationProvider extends OperatorProvider {
@@ -23,16 +26,38 @@ public class SmartMutationProvider extends OperatorProvider {
     public Variation getVariation(String s, Properties properties, Problem problem) {
         if (s.equals("sm")) {
             TypedProperties typed_props = new TypedProperties(properties);
-            SmartMutation sm = new SmartMutation(typed_props.getDouble("sm.rate", 0.0),
-                                   typed_props.getBoolean("sm.evolutionary", false),
-                                   problem);
-            sm.setMax_conflicts(typed_props.getInt("sm.max_conflicts", 50000));
-            sm.setImprove_max_conflicts(typed_props.getInt("sm.improve_max_conflicts", 50000));
-            sm.setLWR(typed_props.getDouble("sm.lwr", 15.0));
-            sm.setStratify(typed_props.getBoolean("sm.stratify", false));
-            sm.setImprovement_relax(typed_props.getDouble("sm.improvement_rate", 0.4));
-            return sm;
+            int workers = typed_props.getInt("sm.async_workers", 0);
+            if (workers > 0 && typed_props.getDouble("sm.rate", 0.0) > 0.0) {
+                List<SmartMutation> operators = new ArrayList<SmartMutation>(workers);
+                for (int i = 0; i < workers; ++i) {
+                    operators.add(mkSmartMutation(typed_props, problem));
+                }
+                return new AsyncSmartMutation(operators, (MOCOProblem)problem);
+            }
+            return mkSmartMutation(typed_props, problem);
+        }
+        else if (s.equals("rp")) {
+            TypedProperties typed_props = new TypedProperties(properties);
+            return new PropagationRepair(typed_props.getDouble("rp.rate", 0.0), problem);
         }
         return null;
     }
+
+    /**
+     * Builds a smart mutation operator configured with a given set of properties.
+     * @param typed_props The properties.
+     * @param problem The problem.
+     * @return The smart mutation operator.
+     */
+    private SmartMutation mkSmartMutation(TypedProperties typed_props, Problem problem) {
+        SmartMutation sm = new SmartMutation(typed_props.getDouble("sm.rate", 0.0),
+                               typed_props.getBoolean("sm.evolutionary", false),
+                               problem);
+        sm.setMax_conflicts(typed_props.getInt("sm.max_conflicts", 50000));
+        sm.setImprove_max_conflicts(typed_props.getInt("sm.improve_max_conflicts", 50000));
+        sm.setLWR(typed_props.getDouble("sm.lwr", 15.0));
+        sm.setStratify(typed_props.getBoolean("sm.stratify", false));
+        sm.setImprovement_relax(typed_props.getDouble("sm.improvement_rate", 0.4));
+        return sm;
+    }
 }
@@ -4,15 +4,21 @@ import org.moeaframework.Executor;
 import org.moeaframework.algorithm.AbstractEvolutionaryAlgorithm;
 import org.moeaframework.algorithm.PeriodicAction;
 import org.moeaframework.core.*;
+import org.moeaframework.core.spi.AlgorithmFactory;
 import org.moeaframework.core.spi.OperatorFactory;
+import org.moeaframework.util.TypedProperties;
 import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.MOCOProblem;
 import org.sat4j.moco.problem.Instance;
 import org.sat4j.moco.util.Clock;
 import org.sat4j.moco.util.Log;
 
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 
 public class StochasticAlgorithm extends MOCOAlgorithm{
 
@@ -23,12 +29,49 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
 
     protected String alg_name;
 
+    /**
+     * Stores a copy of the properties given to {@link #exec}, used to build the algorithm of each island.
+     */
+    private Properties props = new Properties();
+
+    /**
+     * Stores the number of islands. If 1, then the island model is not used.
+     */
+    private int nislands = 1;
+
+    /**
+     * Stores the name of the island migration topology.
+     */
+    private String topology = IslandModel.RING;
+
+    /**
+     * Stores the number of generations between island migrations.
+     */
+    private int migration_interval = 10;
+
+    /**
+     * Stores the seed from which the PRNG stream of each island is derived.
+     */
+    private long seed = -1;
+
+    /**
+     * Stores the island model in use, or null if the island model is not used.
+     */
+    private IslandModel islands = null;
+
+    /**
+     * Stores the number of threads used to evaluate offspring.
+     */
+    private int eval_threads = 1;
+
     public StochasticAlgorithm (Instance m, boolean b, boolean b2){
 
         super(m, b, b2);
         this.exec = new Executor();
         OperatorFactory.getInstance().addProvider(new SmartMutationProvider());
         OperatorFactory.getInstance().addProvider(new SinglePointMutationProvider());
+        OperatorFactory.getInstance().addProvider(new BitGenomeProvider());
+        OperatorFactory.getInstance().addProvider(new AdaptiveOperatorProvider());
     }
 
     /**
@@ -36,7 +79,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param rate The crossover rate.
      */
     public void setCrossoverRate(double rate) {
-        this.exec = this.exec.withProperty("ux.rate", rate);
+        setProperty("ux.rate", rate);
     }
 
     /**
@@ -44,7 +87,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param rate The mutation rate.
      */
     public void setMutationRate(double rate) {
-        this.exec = this.exec.withProperty("bf.rate", rate);
+        setProperty("bf.rate", rate);
     }
 
     /**
@@ -52,7 +95,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param rate The mutation rate.
      */
     public void setSmartMutationRate(double rate) {
-        this.exec = this.exec.withProperty("sm.rate", rate);
+        setProperty("sm.rate", rate);
     }
 
     /**
@@ -60,7 +103,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param rate The mutation rate.
      */
     public void setSmartImprovementRate(double rate) {
-        this.exec = this.exec.withProperty("sm.improvement_rate", rate);
+        setProperty("sm.improvement_rate", rate);
     }
 
     /**
@@ -68,7 +111,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param stratify Boolean indicating is stratification is to be used.
      */
     public void setStratify(boolean stratify) {
-        this.exec = this.exec.withProperty("sm.stratify", stratify);
+        setProperty("sm.stratify", stratify);
     }
 
     /**
@@ -76,7 +119,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param evo Boolean indicating is evolution rate is to be used.
      */
     public void setEvolutionary(boolean evo) {
-        this.exec = this.exec.withProperty("sm.evolutionary", evo);
+        setProperty("sm.evolutionary", evo);
     }
 
     /**
@@ -84,7 +127,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param lwr The literal-weight ratio.
      */
     public void setLWR(double lwr) {
-        this.exec = this.exec.withProperty("sm.lwr", lwr);
+        setProperty("sm.lwr", lwr);
     }
 
     /**
@@ -92,7 +135,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param size The population size.
      */
     public void setPopSize(int size) {
-        this.exec = this.exec.withProperty("populationSize", size);
+        setProperty("populationSize", size);
     }
 
     /**
@@ -100,7 +143,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param conflicts The maximum number of conflicts for the smart mutation.
      */
     public void setMaxConflicts(int conflicts) {
-        this.exec = this.exec.withProperty("sm.max_conflicts", conflicts);
+        setProperty("sm.max_conflicts", conflicts);
     }
 
     /**
@@ -108,7 +151,7 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
      * @param conflicts The maximum number of conflicts for the smart improvement.
      */
     public void setImproveMaxConflicts(int conflicts) {
-        this.exec = this.exec.withProperty("sm.improve_max_conflicts", conflicts);
+        setProperty("sm.improve_max_conflicts", conflicts);
     }
 
     /**
@@ -121,11 +164,43 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
         }
     }
 
+    /**
+     * Sets the number of worker threads that apply smart operators asynchronously.
+     * @param workers The number of workers, or 0 if smart operators are to be applied inline.
+     */
+    public void setAsyncSmartWorkers(int workers) {
+        setProperty("sm.async_workers", workers);
+    }
+
+    /**
+     * Sets the rate of the propagation-based repair operator.
+     * @param rate The repair rate. If 0, the operator is not used.
+     */
+    public void setRepairRate(double rate) {
+        setProperty("rp.rate", rate);
+    }
+
+    /**
+     * Sets if the variation operator is to be selected per offspring by adaptive operator selection.
+     * @param aos True if adaptive operator selection is to be used.
+     */
+    public void setAdaptiveOperators(boolean aos) { setProperty("aos", aos); }
+
     /**
      * Sets if uniform mutation should be used instead of single point mutation
      * @param um True if uniform mutation is to be used
      */
-    public void setUM(boolean um) { this.exec = this.exec.withProperty("um", um); }
+    public void setUM(boolean um) { setProperty("um", um); }
+
+    /**
+     * Sets a property of the algorithm.
+     * @param key The property's name.
+     * @param value The property's value.
+     */
+    protected void setProperty(String key, Object value) {
+        this.exec = this.exec.withProperty(key, String.valueOf(value));
+        this.props.setProperty(key, String.valueOf(value));
+    }
 
     public void setParams(Params params){
         setCrossoverRate(params.getCR());
@@ -141,57 +216,180 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
         setEvolutionary(params.getEvolutionarySmart());
         setSeed(params.getSeed());
         setUM(params.getUM());
+        setAsyncSmartWorkers(params.getAsyncSmartWorkers());
+        setRepairRate(params.getRepairRate());
+        setAdaptiveOperators(params.getAdaptiveOperators());
+        this.nislands = params.getIslands();
+        this.topology = params.getMigrationTopology();
+        this.migration_interval = params.getMigrationInterval();
+        this.seed = params.getSeed() > 0 ? params.getSeed() : System.nanoTime();
+        this.eval_threads = params.getEvalThreads();
+        this.result.setCapacity(params.getArchiveCapacity());
     }
 
     @Override
     public void solve() {
+        if (this.nislands > 1) {
+            solveIslands();
+            return;
+        }
         Log.comment(0, "applying evolutionary optimization");
+        if (this.eval_threads > 1) {
+            Log.comment(":evaluation-threads " + this.eval_threads);
+            this.exec = this.exec.distributeOn(this.eval_threads);
+        }
         exec.withTerminationCondition(this.result.getTc()).withAlgorithm(alg_name).withProblem(this.getResult().getProblem()).withMaxTime(Clock.instance().getRemaining()*1000L).run();
     }
 
-    public void addSolutionToResult(Solution s){
-        this.getResult().addSolution(s);
+    /**
+     * Runs the algorithm as an island model, with one instance of the algorithm per island.
+     * The islands' algorithms are built sequentially, since building smart mutation operators updates the
+     * shared MOEA framework problem.
+     */
+    private void solveIslands() {
+        Log.comment(0, "applying evolutionary optimization with " + this.nislands + " islands");
+        this.islands = new IslandModel(this.nislands, this.topology, this.migration_interval, this.seed);
+        Log.comment(":islands " + this.nislands + " :migration-topology " + this.islands.getTopology() +
+                    " :migration-interval " + this.migration_interval);
+        List<Algorithm> algs = new ArrayList<Algorithm>(this.nislands);
+        for (int i = 0; i < this.nislands; ++i) {
+            Properties island_props = new Properties();
+            island_props.putAll(this.props);
+            island_props.setProperty("island", Integer.toString(i));
+            algs.add(AlgorithmFactory.getInstance().getAlgorithm(this.alg_name, island_props,
+                                                                 this.getResult().getProblem()));
+        }
+        this.islands.run(algs, this.result);
     }
 
-    protected NondominatedPopulation cleanUpPopulation(NondominatedPopulation pop) {
-        NondominatedPopulation new_pop = new NondominatedPopulation();
-        for (int i = 0; i < pop.size(); ++i) {
-            Solution sol = pop.get(i);
-            if (!sol.violatesConstraints()) {
-                new_pop.add(sol);
+    /**
+     * Builds the name of the variation operator chain (crossover, mutation and smart operator) for a given
+     * problem, matching the problem's solution encoding.
+     * @param props The algorithm's properties.
+     * @param problem The problem.
+     * @return The variation operator's name.
+     */
+    protected String variationName(TypedProperties props, Problem problem) {
+        if (props.getBoolean("aos", false)) { return "aos"; }
+        boolean bits = problem instanceof MOCOProblem && ((MOCOProblem)problem).usesBitGenome();
+        String mutation = props.getBoolean("um", false) ? "um" : "spm";
+        String repair = props.getDouble("rp.rate", 0.0) > 0.0 ? "+rp" : "";
+        return (bits ? "bux+b" + mutation : "ux+" + mutation) + repair + "+sm";
+    }
+
+    /**
+     * Decorates the variation operator of an algorithm so that it injects the migrants of its island, if the
+     * algorithm runs on an island.
+     * @param v The variation operator.
+     * @param props The algorithm's properties.
+     * @return The decorated operator, or {@code v} if the algorithm does not run on an island.
+     */
+    protected Variation withImmigration(Variation v, TypedProperties props) {
+        int island = props.getInt("island", -1);
+        return island < 0 || this.islands == null ? v : this.islands.withImmigration(island, v);
+    }
+
+    public boolean addSolutionToResult(Solution s){
+        return this.getResult().addSolution(s);
+    }
+
+    /**
+     * Decorates the variation operator of an algorithm so that the offspring it creates are recorded, to be
+     * collected into the result by {@link #decorateWithPeriodicActions(Algorithm, OffspringRecorder)}.
+     * @param v The variation operator.
+     * @return The decorated operator.
+     */
+    protected OffspringRecorder recordOffspring(Variation v) { return new OffspringRecorder(v); }
+
+    /**
+     * Variation operator that records the offspring created by another operator since the last time they
+     * were collected.
+     */
+    static class OffspringRecorder implements Variation {
+
+        /**
+         * The decorated operator.
+         */
+        private Variation variation;
+
+        /**
+         * Stores the offspring created since the last call to {@link #drain()}.
+         */
+        private List<Solution> offspring = new ArrayList<Solution>();
+
+        /**
+         * Creates an instance of an offspring recorder.
+         * @param variation The operator whose offspring are recorded.
+         */
+        OffspringRecorder(Variation variation) { this.variation = variation; }
+
+        @Override
+        public int getArity() { return this.variation.getArity(); }
+
+        @Override
+        public Solution[] evolve(Solution[] parents) {
+            Solution[] children = this.variation.evolve(parents);
+            for (int i = 0; i < children.length; ++i) {
+                this.offspring.add(children[i]);
             }
+            return children;
         }
-        return new_pop;
-    }
 
+        /**
+         * Retrieves and forgets the offspring created since the last call.
+         * @return The offspring.
+         */
+        List<Solution> drain() {
+            List<Solution> drained = this.offspring;
+            this.offspring = new ArrayList<Solution>();
+            return drained;
+        }
+
+    }
 
     /**
-     * Periodic action that collects the current set of feasible solutions in some evolutionary algorithm's
-     * population and, optionally, logs them into a file.
+     * Periodic action that collects the feasible solutions created by some evolutionary algorithm into the
+     * result.
+     * The initial population is collected after the first step. Afterwards, each step collects the offspring
+     * created in that step, once evaluated, including the ones already truncated from the population.
      * @author Miguel Terra-Neves
      */
     private class SolutionCollector extends PeriodicAction {
 
+        /**
+         * Stores the recorder of the offspring created by the algorithm.
+         */
+        private OffspringRecorder recorder;
+
+        /**
+         * Boolean indicating if the initial population was already collected.
+         */
+        private boolean initialized = false;
+
         /**
          * Creates an instance of a solution collector.
          * @param algorithm The evolutionary algorithm to be instrumented with the collector.
          * @param frequency The frequency of solution collection measured in iterations of the evolutionary
          * algorithm.
+         * @param recorder The recorder of the offspring created by {@code algorithm}.
          */
-        public SolutionCollector(Algorithm algorithm, int frequency) {
+        public SolutionCollector(Algorithm algorithm, int frequency, OffspringRecorder recorder) {
             super(algorithm, frequency, FrequencyType.STEPS);
+            this.recorder = recorder;
         }
 
         @Override
         public void doAction() {
-            NondominatedPopulation pop = getResult();
-            pop = cleanUpPopulation(pop);
-            //removeSolutions();
-            for (Solution s : pop){
-                //System.out.println("collector " + s.toString() + " with values " + Arrays.toString(s.getObjectives()));
-                addSolutionToResult(s);
+            Iterable<Solution> fresh = this.recorder.drain();
+            if (!this.initialized) {
+                this.initialized = true;
+                fresh = this.algorithm instanceof AbstractEvolutionaryAlgorithm ?
+                        ((AbstractEvolutionaryAlgorithm)this.algorithm).getPopulation() :
+                        getResult();
+            }
+            for (Solution s : fresh) {
+                AdaptiveOperatorSelection.credit(s, !s.violatesConstraints() && addSolutionToResult(s));
             }
-            //System.out.println("-------------------------------------------------");
         }
 
     }
@@ -242,7 +440,14 @@ public class StochasticAlgorithm extends MOCOAlgorithm{
 
     }
 
-    public Algorithm decorateWithPeriodicActions(Algorithm alg) {
-        return new FeasibleCountLogger(new SolutionCollector(alg, 1), 10);
+    /**
+     * Decorates an algorithm with the periodic actions that collect its solutions into the result and log
+     * its progress.
+     * @param alg The algorithm.
+     * @param recorder The recorder of the offspring created by {@code alg}'s variation operator.
+     * @return The decorated algorithm.
+     */
+    public Algorithm decorateWithPeriodicActions(Algorithm alg, OffspringRecorder recorder) {
+        return new FeasibleCountLogger(new SolutionCollector(alg, 1, recorder), 10);
     }
 }
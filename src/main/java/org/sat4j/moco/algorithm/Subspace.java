@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.problem.Objective;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Subspace of the search of a MOCO instance to be enumerated by a single Pareto-MCS worker.
+ * A subspace is either a cube, given by assumption literals over variables with large objective coefficients,
+ * or a box in objective space, given by lower and upper bounds on some linear objectives.
+ * Subspaces can be encoded as strings in order to be sent to worker processes.
+ */
+public class Subspace {
+
+    /**
+     * Stores the subspace identifier.
+     */
+    private int id;
+
+    /**
+     * Stores the assumption literals that restrict the search to the subspace.
+     */
+    private IVecInt asms;
+
+    /**
+     * Stores the indexes of the objectives bounded in the subspace.
+     */
+    private int[] objs;
+
+    /**
+     * Stores the inclusive lower and upper bounds on each objective in {@link #objs}.
+     */
+    private Real[] lbs, ubs;
+
+    /**
+     * Stores the best cost vector achievable in the subspace, or null if unknown.
+     */
+    private double[] corner;
+
+    /**
+     * Creates a subspace.
+     * @param id The subspace identifier.
+     * @param asms The assumption literals that restrict the search to the subspace.
+     * @param objs The indexes of the bounded objectives.
+     * @param lbs The lower bounds on the objectives in {@code objs}.
+     * @param ubs The upper bounds on the objectives in {@code objs}.
+     * @param corner The best cost vector achievable in the subspace, or null if unknown.
+     */
+    Subspace(int id, IVecInt asms, int[] objs, Real[] lbs, Real[] ubs, double[] corner) {
+        this.id = id;
+        this.asms = asms;
+        this.objs = objs;
+        this.lbs = lbs;
+        this.ubs = ubs;
+        this.corner = corner;
+    }
+
+    /**
+     * Retrieves the subspace identifier.
+     * @return The identifier.
+     */
+    public int getId() { return this.id; }
+
+    /**
+     * Retrieves the assumption literals that restrict the search to the subspace.
+     * @return The assumptions.
+     */
+    public IVecInt getAssumptions() { return this.asms; }
+
+    /**
+     * Retrieves the best cost vector achievable in the subspace.
+     * @return The cost vector, or null if unknown.
+     */
+    public double[] getCorner() { return this.corner; }
+
+    /**
+     * Restricts a Pareto-MCS worker to the subspace.
+     * @param w The worker.
+     * @param m The MOCO instance being solved by {@code w}.
+     * @throws ContradictionException if the subspace is empty.
+     */
+    void restrict(ParetoMCS w, Instance m) throws ContradictionException {
+        w.setAssumptions(this.asms);
+        if (this.objs.length == 0) { return; }
+        ObjectiveCuts cuts = new ObjectiveCuts(m);
+        for (int i = 0; i < this.objs.length; ++i) {
+            w.restrict(cuts.mkLowerBound(this.objs[i], this.lbs[i]));
+            w.restrict(cuts.mkUpperBound(this.objs[i], this.ubs[i]));
+        }
+    }
+
+    /**
+     * Encodes the subspace as a single-line string, to be decoded with {@link #decode(String)}.
+     * The best achievable cost vector is not encoded.
+     * @return The encoded subspace.
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(this.id).append(' ');
+        for (int i = 0; i < this.asms.size(); ++i) {
+            sb.append(i == 0 ? "" : ",").append(this.asms.get(i));
+        }
+        if (this.asms.isEmpty()) { sb.append('-'); }
+        sb.append(' ');
+        for (int i = 0; i < this.objs.length; ++i) {
+            sb.append(i == 0 ? "" : ",").append(this.objs[i]).append(':').append(this.lbs[i].toPlainString())
+              .append(':').append(this.ubs[i].toPlainString());
+        }
+        if (this.objs.length == 0) { sb.append('-'); }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes a subspace encoded with {@link #encode()}.
+     * @param s The encoded subspace.
+     * @return The subspace.
+     * @throws NumberFormatException if {@code s} is not a valid encoding.
+     */
+    public static Subspace decode(String s) {
+        String[] fields = s.trim().split(" ");
+        if (fields.length != 3) { throw new NumberFormatException("invalid subspace: " + s); }
+        IVecInt asms = new VecInt();
+        if (!fields[1].equals("-")) {
+            String[] lits = fields[1].split(",");
+            for (int i = 0; i < lits.length; ++i) {
+                asms.push(Integer.parseInt(lits[i]));
+            }
+        }
+        String[] bounds = fields[2].equals("-") ? new String[0] : fields[2].split(",");
+        int[] objs = new int[bounds.length];
+        Real[] lbs = new Real[bounds.length], ubs = new Real[bounds.length];
+        for (int i = 0; i < bounds.length; ++i) {
+            String[] parts = bounds[i].split(":");
+            if (parts.length != 3) { throw new NumberFormatException("invalid subspace: " + s); }
+            objs[i] = Integer.parseInt(parts[0]);
+            lbs[i] = new Real(parts[1]);
+            ubs[i] = new Real(parts[2]);
+        }
+        return new Subspace(Integer.parseInt(fields[0]), asms, objs, lbs, ubs, null);
+    }
+
+    /**
+     * Splits the search of a MOCO instance into cubes over the variables with the largest total absolute
+     * coefficient in the objectives.
+     * @param m The instance.
+     * @param n The minimum number of cubes, rounded up to a power of 2.
+     * @return The cubes.
+     */
+    public static List<Subspace> cubes(Instance m, int n) {
+        int nsplit = 0;
+        while ((1 << nsplit) < n) { ++nsplit; }
+        int[] vars = splitVars(m, nsplit);
+        List<Subspace> cubes = new ArrayList<Subspace>();
+        for (int mask = 0; mask < (1 << vars.length); ++mask) {
+            IVecInt cube = new VecInt(vars.length);
+            for (int j = 0; j < vars.length; ++j) {
+                cube.unsafePush((mask & (1 << j)) != 0 ? vars[j] : -vars[j]);
+            }
+            cubes.add(new Subspace(cubes.size(), cube, new int[0], new Real[0], new Real[0], null));
+        }
+        return cubes;
+    }
+
+    /**
+     * Selects the variables with the largest total absolute coefficient in the objectives of a MOCO instance.
+     * @param m The instance.
+     * @param nsplit The number of variables to select.
+     * @return The selected variables.
+     */
+    private static int[] splitVars(Instance m, int nsplit) {
+        final Map<Integer, Real> weights = new HashMap<Integer, Real>();
+        for (int i = 0; i < m.nObjs(); ++i) {
+            Objective o = m.getObj(i);
+            for (int j = 0; j < o.nSubObj(); ++j) {
+                for (int k = 0; k < o.getSubObjLits(j).size(); ++k) {
+                    int var = Math.abs(o.getSubObjLits(j).get(k));
+                    Real w = weights.get(var);
+                    Real c = o.getSubObjCoeffs(j).get(k).abs();
+                    weights.put(var, w == null ? c : w.add(c));
+                }
+            }
+        }
+        Integer[] candidates = new Integer[weights.size()];
+        int n = 0;
+        for (Iterator<Integer> it = weights.keySet().iterator(); it.hasNext();) {
+            candidates[n++] = it.next();
+        }
+        Arrays.sort(candidates, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) { return weights.get(b).compareTo(weights.get(a)); }
+        });
+        int[] vars = new int[Math.min(nsplit, candidates.length)];
+        for (int i = 0; i < vars.length; ++i) {
+            vars[i] = candidates[i];
+        }
+        return vars;
+    }
+
+    /**
+     * Splits the objective space of a MOCO instance with linear objectives into a grid of boxes over the value
+     * ranges of its first (up to) two objectives. Boxes partition the objective space, and each box's best
+     * achievable cost vector uses the trivial lower bound of the other objectives.
+     * @param m The instance.
+     * @param n The minimum number of boxes.
+     * @return The boxes.
+     */
+    public static List<Subspace> boxes(Instance m, int n) {
+        ObjectiveCuts cuts = new ObjectiveCuts(m);
+        int ndims = Math.min(2, cuts.nObjs());
+        int d = 1;
+        while (Math.pow(d, ndims) < n) { ++d; }
+        Real[] lbs = new Real[cuts.nObjs()];
+        Real[] ubs = new Real[cuts.nObjs()];
+        for (int i = 0; i < cuts.nObjs(); ++i) {
+            LinearObj obj = cuts.getObj(i);
+            lbs[i] = Real.ZERO;
+            ubs[i] = Real.ZERO;
+            for (int j = 0; j < obj.getCoeffs().size(); ++j) {
+                Real c = obj.getCoeffs().get(j);
+                if (c.isNegative()) { lbs[i] = lbs[i].add(c); }
+                else { ubs[i] = ubs[i].add(c); }
+            }
+        }
+        List<List<Real[]>> intervals = new ArrayList<List<Real[]>>(ndims);
+        for (int i = 0; i < ndims; ++i) {
+            intervals.add(slice(lbs[i], ubs[i], cuts.getUnit(i), d));
+        }
+        List<Subspace> boxes = new ArrayList<Subspace>();
+        int nboxes = 1;
+        for (int i = 0; i < ndims; ++i) { nboxes *= intervals.get(i).size(); }
+        for (int b = 0; b < nboxes; ++b) {
+            int[] objs = new int[ndims];
+            Real[] box_lbs = new Real[ndims], box_ubs = new Real[ndims];
+            double[] corner = new double[cuts.nObjs()];
+            for (int i = 0; i < cuts.nObjs(); ++i) {
+                corner[i] = lbs[i].asDouble();
+            }
+            for (int i = 0, rest = b; i < ndims; ++i) {
+                Real[] interval = intervals.get(i).get(rest % intervals.get(i).size());
+                rest /= intervals.get(i).size();
+                objs[i] = i;
+                box_lbs[i] = interval[0];
+                box_ubs[i] = interval[1];
+                corner[i] = interval[0].asDouble();
+            }
+            boxes.add(new Subspace(boxes.size(), new VecInt(), objs, box_lbs, box_ubs, corner));
+        }
+        return boxes;
+    }
+
+    /**
+     * Splits a range of objective values into consecutive intervals of (almost) equal width.
+     * @param lb The lower end of the range.
+     * @param ub The upper end of the range.
+     * @param unit The smallest difference between two objective values.
+     * @param d The maximum number of intervals.
+     * @return The intervals, as pairs of inclusive lower and upper ends.
+     */
+    private static List<Real[]> slice(Real lb, Real ub, Real unit, int d) {
+        BigInteger nvals = ub.subtract(lb).divide(unit).asBigInteger().add(BigInteger.ONE);
+        BigInteger[] qr = nvals.divideAndRemainder(BigInteger.valueOf(d));
+        BigInteger width = qr[1].signum() == 0 ? qr[0] : qr[0].add(BigInteger.ONE);
+        List<Real[]> intervals = new ArrayList<Real[]>();
+        Real lo = lb;
+        Real step = unit.multiply(new Real(width));
+        while (lo.lessOrEqual(ub)) {
+            Real hi = lo.add(step).subtract(unit);
+            intervals.add(new Real[] { lo, hi.lessThan(ub) ? hi : ub });
+            lo = hi.add(unit);
+        }
+        return intervals;
+    }
+
+}
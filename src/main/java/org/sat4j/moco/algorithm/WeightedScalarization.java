@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sat4j.core.Vec;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.pb.ConstrID;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.pb.PBSolver;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IVec;
+
+/**
+ * Class that implements a parallel weighted scalarization algorithm for MOCO with linear objectives.
+ * For each weight vector, the weighted sum of the objectives is minimized to optimality on a PB solver owned by
+ * the worker thread, which yields a supported Pareto-optimal solution.
+ * On bi-objective instances, weight vectors are generated through dichotomic search between neighbouring
+ * supported solutions, which finds all extreme supported solutions. Otherwise, weight vectors are taken from a
+ * uniform grid over the weight simplex.
+ * Non-supported Pareto-optimal solutions are never found, so the result is never flagged as a Pareto front
+ * unless the instance is unsatisfiable.
+ */
+public class WeightedScalarization extends MOCOAlgorithm {
+
+    /**
+     * Stores the encoder of the objective bound constraints.
+     */
+    private ObjectiveCuts cuts = null;
+
+    /**
+     * Stores the number of worker threads.
+     */
+    private int nthreads = 1;
+
+    /**
+     * Stores the number of divisions of the weight simplex for instances with more than two objectives.
+     */
+    private int divisions = 10;
+
+    /**
+     * Stores the PB solver owned by each worker thread. Holds null if the MOCO's constraint set is
+     * unsatisfiable.
+     */
+    private ThreadLocal<PBSolver> solvers = new ThreadLocal<PBSolver>() {
+        @Override
+        protected PBSolver initialValue() {
+            try {
+                return buildSolver();
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "Contradiction in WeightedScalarization.buildSolver");
+                return null;
+            }
+        }
+    };
+
+    /**
+     * Stores if some worker found the MOCO's constraint set to be unsatisfiable.
+     */
+    private volatile boolean unsat = false;
+
+    /**
+     * Stores the number of weight vectors solved to optimality.
+     */
+    private AtomicInteger nsolved = new AtomicInteger(0);
+
+    /**
+     * Creates an instance of a MOCO solver, for a given instance, that applies parallel weighted scalarization.
+     * @param m The MOCO instance.
+     */
+    public WeightedScalarization(Instance m) {
+        super(m, false, false);
+        if (ObjectiveCuts.supports(m)) {
+            this.cuts = new ObjectiveCuts(m);
+        }
+    }
+
+    /**
+     * Creates a PB oracle initialized with the MOCO's constraints.
+     * @return The oracle.
+     * @throws ContradictionException if the oracle detects that the MOCO's constraint set is unsatisfiable.
+     */
+    private PBSolver buildSolver() throws ContradictionException {
+        PBSolver solver = new PBSolver();
+        solver.newVars(this.problem.nVars());
+        for (int i = 0; i < this.problem.nConstrs(); ++i) {
+            solver.addConstr(this.problem.getConstr(i));
+        }
+        return solver;
+    }
+
+    /**
+     * Sets the weighted scalarization configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.nthreads = p.getThreads();
+        this.divisions = Math.max(1, p.getWeightDivisions());
+        Log.comment(":threads " + this.nthreads + " :weight-divisions " + this.divisions);
+    }
+
+    /**
+     * Applies parallel weighted scalarization to the MOCO instance provided in
+     * {@link #WeightedScalarization(Instance)}.
+     */
+    public void solve() {
+        if (this.result.isParetoFront()) {
+            Log.comment(1, "WeightedScalarization.solve called on already solved instance");
+            return;
+        }
+        if (this.cuts == null) {
+            Log.comment("weighted scalarization requires linear objectives");
+            return;
+        }
+        Log.comment(3, "in WeightedScalarization.solve");
+        ForkJoinPool pool = new ForkJoinPool(this.nthreads);
+        try {
+            if (this.cuts.nObjs() == 2) {
+                pool.invoke(new DichotomicRoot());
+            }
+            else {
+                List<WeightTask> tasks = new ArrayList<WeightTask>();
+                int[] w = new int[this.cuts.nObjs()];
+                mkWeights(w, 0, this.divisions, tasks);
+                pool.invoke(new WeightBatch(tasks));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        if (this.unsat) {
+            this.result.setParetoFrontFound();
+        }
+        Log.comment(1, ":weights-solved " + this.nsolved.get() + " :elapsed " + Clock.instance().getElapsed());
+        Log.comment(3, "out WeightedScalarization.solve");
+    }
+
+    /**
+     * Generates all weight vectors in the uniform grid over the weight simplex with a given number of
+     * divisions, and creates a task for each.
+     * @param w The weight vector under construction.
+     * @param i The index of the next weight to be set.
+     * @param left The number of divisions left to distribute.
+     * @param tasks The list to which the tasks are added.
+     */
+    private void mkWeights(int[] w, int i, int left, List<WeightTask> tasks) {
+        if (i == w.length - 1) {
+            w[i] = left;
+            Real[] rw = new Real[w.length];
+            for (int j = 0; j < w.length; ++j) {
+                rw[j] = new Real(w[j]);
+            }
+            tasks.add(new WeightTask(rw));
+            return;
+        }
+        for (int v = 0; v <= left; ++v) {
+            w[i] = v;
+            mkWeights(w, i+1, left - v, tasks);
+        }
+    }
+
+    /**
+     * Saves the model in a given PB solver in the shared result.
+     * @param s The solver.
+     */
+    private void save(PBSolver s) { this.result.saveModel(s); }
+
+    /**
+     * Minimizes a given weighted sum of the objectives, through linear search, on the calling thread's PB solver.
+     * Every improving model is saved in the result.
+     * @param s The solver.
+     * @param w The weight vector.
+     * @return The cost vector of the optimum, or null if the constraints are unsatisfiable or if the solver ran
+     * out of time.
+     */
+    private Real[] minimize(PBSolver s, Real[] w) {
+        LinearObj f = this.cuts.scalarize(w);
+        Real unit = ObjectiveCuts.unitOf(f);
+        s.check();
+        if (!s.isSolved()) { return null; }
+        if (s.isUnsat()) {
+            this.unsat = true;
+            return null;
+        }
+        Real[] point = this.cuts.evaluate(s);
+        save(s);
+        while (true) {
+            IVec<ConstrID> ids = new Vec<ConstrID>();
+            try {
+                Real ub = ObjectiveCuts.weightedSum(w, point).subtract(unit);
+                ids.push(s.addRemovableConstr(PBFactory.instance().mkLE(f.getLits(), f.getCoeffs(), ub)));
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction bounding scalarized objective");
+                return point;
+            }
+            s.check();
+            boolean improved = s.isSolved() && s.isSat();
+            if (improved) {
+                point = this.cuts.evaluate(s);
+                save(s);
+            }
+            boolean solved = s.isSolved();
+            s.removeConstrs(ids);
+            if (!solved) { return null; }
+            if (!improved) { return point; }
+        }
+    }
+
+    /**
+     * Computes a Pareto-optimal solution that minimizes a given weighted sum of the objectives, on the calling
+     * thread's PB solver. If some weight is zero, ties are broken by minimizing the unweighted sum of the
+     * objectives.
+     * @param w The weight vector.
+     * @return The cost vector of the solution, or null if the constraints are unsatisfiable or if the solver
+     * ran out of time.
+     */
+    private Real[] solveWeighted(Real[] w) {
+        PBSolver s = this.solvers.get();
+        if (s == null) {
+            this.unsat = true;
+            return null;
+        }
+        Real[] point = minimize(s, w);
+        if (point == null) { return null; }
+        boolean has_zero = false;
+        for (int i = 0; i < w.length; ++i) {
+            has_zero = has_zero || w[i].signum() == 0;
+        }
+        if (has_zero) {
+            Real[] ones = new Real[w.length];
+            for (int i = 0; i < w.length; ++i) {
+                ones[i] = Real.ONE;
+            }
+            LinearObj f = this.cuts.scalarize(w);
+            IVec<ConstrID> ids = new Vec<ConstrID>();
+            try {
+                Real ub = ObjectiveCuts.weightedSum(w, point);
+                ids.push(s.addRemovableConstr(PBFactory.instance().mkLE(f.getLits(), f.getCoeffs(), ub)));
+                Real[] tie_point = minimize(s, ones);
+                if (tie_point == null) { return null; }
+                point = tie_point;
+            }
+            catch (ContradictionException e) {
+                Log.comment(3, "contradiction fixing scalarized objective");
+            }
+            finally {
+                s.removeConstrs(ids);
+            }
+        }
+        this.nsolved.incrementAndGet();
+        return point;
+    }
+
+    /**
+     * Task that computes the supported solution for a single weight vector.
+     */
+    private class WeightTask extends RecursiveTask<Real[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Stores the weight vector.
+         */
+        private Real[] w;
+
+        /**
+         * Creates a task for a given weight vector.
+         * @param w The weight vector.
+         */
+        WeightTask(Real[] w) { this.w = w; }
+
+        @Override
+        protected Real[] compute() { return solveWeighted(this.w); }
+
+    }
+
+    /**
+     * Task that computes the supported solutions for a batch of weight vectors in parallel.
+     */
+    private class WeightBatch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Stores the tasks of the batch.
+         */
+        private List<WeightTask> tasks;
+
+        /**
+         * Creates a task for a given batch of weight vector tasks.
+         * @param tasks The weight vector tasks.
+         */
+        WeightBatch(List<WeightTask> tasks) { this.tasks = tasks; }
+
+        @Override
+        protected void compute() { invokeAll(this.tasks); }
+
+    }
+
+    /**
+     * Task that searches for supported solutions between two neighbouring supported solutions of a bi-objective
+     * instance, through dichotomic search.
+     */
+    private class Dichotomic extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Stores the neighbouring cost vectors, where {@code a} is better on the first objective and {@code b} on
+         * the second.
+         */
+        private Real[] a, b;
+
+        /**
+         * Creates a task for a given pair of neighbouring supported cost vectors.
+         * @param a The cost vector that is better on the first objective.
+         * @param b The cost vector that is better on the second objective.
+         */
+        Dichotomic(Real[] a, Real[] b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected void compute() {
+            if (!this.a[0].lessThan(this.b[0]) || !this.b[1].lessThan(this.a[1])) { return; }
+            Real[] w = new Real[] { this.a[1].subtract(this.b[1]), this.b[0].subtract(this.a[0]) };
+            Real[] c = solveWeighted(w);
+            if (c != null && ObjectiveCuts.weightedSum(w, c).lessThan(ObjectiveCuts.weightedSum(w, a))) {
+                invokeAll(new Dichotomic(this.a, c), new Dichotomic(c, this.b));
+            }
+        }
+
+    }
+
+    /**
+     * Task that computes the lexicographic optima of a bi-objective instance and starts dichotomic search
+     * between them.
+     */
+    private class DichotomicRoot extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            WeightTask first = new WeightTask(new Real[] { Real.ONE, Real.ZERO });
+            WeightTask second = new WeightTask(new Real[] { Real.ZERO, Real.ONE });
+            invokeAll(first, second);
+            Real[] a = first.join(), b = second.join();
+            if (a != null && b != null) {
+                new Dichotomic(a, b).invoke();
+            }
+        }
+
+    }
+
+}
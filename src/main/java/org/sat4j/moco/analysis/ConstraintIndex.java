@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.analysis;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.sat4j.core.ReadOnlyVec;
+import org.sat4j.core.ReadOnlyVecInt;
+import org.sat4j.moco.pb.EQ;
+import org.sat4j.moco.pb.GE;
+import org.sat4j.moco.pb.PBConstr;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Real;
+
+/**
+ * Compiled view of the constraints of a MOCO instance for fast evaluation under complete assignments.
+ * Stores a variable to constraint occurrence index and each constraint with its coefficients scaled to
+ * integers, so that checking violations needs neither {@link Real} arithmetic nor scans over unrelated
+ * constraints. Constraints whose scaled coefficients do not fit in a long are evaluated with {@link Real}
+ * arithmetic instead. Immutable once built, so it can be shared by concurrent threads.
+ */
+public class ConstraintIndex {
+
+    /**
+     * Codes for the constraint operators.
+     */
+    private static final byte OP_LE = 0;
+    private static final byte OP_GE = 1;
+    private static final byte OP_EQ = 2;
+
+    /**
+     * Largest absolute value of a scaled coefficient, chosen so that sums of such values over any constraint
+     * cannot overflow.
+     */
+    private static final long MAX_COEFF = Long.MAX_VALUE >> 24;
+
+    /**
+     * Stores the MOCO instance.
+     */
+    private Instance instance;
+
+    /**
+     * Stores, for each variable, the indexes of the constraints in which it occurs.
+     */
+    private int[][] occurs;
+
+    /**
+     * Stores, for each variable and each constraint in which it occurs, by how much the constraint's scaled
+     * left-hand side changes when the variable goes from false to true. Parallel to {@link #occurs}.
+     * Entries for constraints that are not compiled are 0.
+     */
+    private long[][] occur_deltas;
+
+    /**
+     * Stores if the coefficients of every constraint fit in a long.
+     */
+    private boolean compiled = true;
+
+    /**
+     * Stores the literals of each constraint.
+     */
+    private int[][] lits;
+
+    /**
+     * Stores the coefficients of each constraint, scaled to integers, or null if they do not fit in a long.
+     */
+    private long[][] coeffs;
+
+    /**
+     * Stores the right-hand side of each constraint, scaled to an integer.
+     */
+    private long[] rhs;
+
+    /**
+     * Stores the power of ten by which each constraint was scaled.
+     */
+    private double[] scale;
+
+    /**
+     * Stores the operator code of each constraint.
+     */
+    private byte[] ops;
+
+    /**
+     * Builds the index for a given MOCO instance.
+     * @param m The instance.
+     */
+    public ConstraintIndex(Instance m) {
+        this.instance = m;
+        int n = m.nVars(), nconstrs = m.nConstrs();
+        this.lits = new int[nconstrs][];
+        this.coeffs = new long[nconstrs][];
+        this.rhs = new long[nconstrs];
+        this.scale = new double[nconstrs];
+        this.ops = new byte[nconstrs];
+        int[] noccurs = new int[n+1];
+        for (int i = 0; i < nconstrs; ++i) {
+            PBConstr c = m.getConstr(i);
+            ReadOnlyVecInt c_lits = c.getLits();
+            this.lits[i] = new int[c_lits.size()];
+            c_lits.copyTo(this.lits[i]);
+            for (int j = 0; j < c_lits.size(); ++j) {
+                noccurs[Math.abs(c_lits.get(j))]++;
+            }
+            this.ops[i] = c instanceof GE ? OP_GE : c instanceof EQ ? OP_EQ : OP_LE;
+            compile(i, c);
+        }
+        this.occurs = new int[n+1][];
+        for (int v = 0; v <= n; ++v) {
+            this.occurs[v] = new int[noccurs[v]];
+            noccurs[v] = 0;
+        }
+        for (int i = 0; i < nconstrs; ++i) {
+            for (int j = 0; j < this.lits[i].length; ++j) {
+                int v = Math.abs(this.lits[i][j]);
+                if (noccurs[v] == 0 || this.occurs[v][noccurs[v]-1] != i) {
+                    this.occurs[v][noccurs[v]++] = i;
+                }
+            }
+        }
+        for (int v = 0; v <= n; ++v) {
+            if (noccurs[v] < this.occurs[v].length) {        // variables repeated in some constraint
+                this.occurs[v] = Arrays.copyOf(this.occurs[v], noccurs[v]);
+            }
+        }
+        this.occur_deltas = new long[n+1][];
+        for (int v = 0; v <= n; ++v) {
+            this.occur_deltas[v] = new long[this.occurs[v].length];
+        }
+        for (int i = 0; i < nconstrs; ++i) {
+            if (this.coeffs[i] == null) {
+                this.compiled = false;
+                continue;
+            }
+            for (int j = 0; j < this.lits[i].length; ++j) {
+                int lit = this.lits[i][j], v = Math.abs(lit);
+                int k = Arrays.binarySearch(this.occurs[v], i);
+                this.occur_deltas[v][k] += lit > 0 ? this.coeffs[i][j] : -this.coeffs[i][j];
+            }
+        }
+    }
+
+    /**
+     * Scales the coefficients and right-hand side of a given constraint to integers.
+     * If they do not fit in a long, the constraint is left to be evaluated with {@link Real} arithmetic.
+     * @param i The constraint index.
+     * @param c The constraint.
+     */
+    private void compile(int i, PBConstr c) {
+        ReadOnlyVec<Real> c_coeffs = c.getCoeffs();
+        int factor = c.getRHS().nDecimals();
+        for (int j = 0; j < c_coeffs.size(); ++j) {
+            factor = Math.max(factor, c_coeffs.get(j).nDecimals());
+        }
+        BigInteger max = BigInteger.valueOf(MAX_COEFF);
+        long[] scaled = new long[c_coeffs.size()];
+        for (int j = 0; j < c_coeffs.size(); ++j) {
+            BigInteger coeff = c_coeffs.get(j).scaleByPowerOfTen(factor).asBigIntegerExact();
+            if (coeff.abs().compareTo(max) > 0) { return; }
+            scaled[j] = coeff.longValue();
+        }
+        BigInteger scaled_rhs = c.getRHS().scaleByPowerOfTen(factor).asBigIntegerExact();
+        if (scaled_rhs.abs().compareTo(max) > 0) { return; }
+        this.coeffs[i] = scaled;
+        this.rhs[i] = scaled_rhs.longValue();
+        this.scale[i] = Math.pow(10.0, factor);
+    }
+
+    /**
+     * Retrieves the number of constraints.
+     * @return The number of constraints.
+     */
+    public int nConstrs() { return this.lits.length; }
+
+    /**
+     * Retrieves the constraints in which a given variable occurs.
+     * @param var The variable.
+     * @return The indexes of the constraints in which {@code var} occurs. Must not be modified.
+     */
+    public int[] getOccurrences(int var) { return this.occurs[var]; }
+
+    /**
+     * Retrieves, for each constraint in which a given variable occurs, by how much the constraint's scaled
+     * left-hand side changes when the variable goes from false to true.
+     * @param var The variable.
+     * @return The changes, in the same order as {@link #getOccurrences(int)}. Must not be modified.
+     */
+    public long[] getOccurrenceDeltas(int var) { return this.occur_deltas[var]; }
+
+    /**
+     * Checks if the coefficients of every constraint fit in a long, i.e., if the scaled left-hand sides can be
+     * used for every constraint.
+     * @return True if every constraint is compiled, false otherwise.
+     */
+    public boolean isCompiled() { return this.compiled; }
+
+    /**
+     * Checks if the coefficients of a given constraint fit in a long, i.e., if its scaled left-hand side can be
+     * used.
+     * @param i The constraint index.
+     * @return True if the {@code i}-th constraint is compiled, false otherwise.
+     */
+    public boolean isCompiled(int i) { return this.coeffs[i] != null; }
+
+    /**
+     * Computes the scaled left-hand side of a given compiled constraint under a given assignment.
+     * @param i The constraint index.
+     * @param a The assignment, where {@code a[v-1]} is the value of variable {@code v}.
+     * @return The scaled left-hand side.
+     */
+    public long lhs(int i, boolean[] a) {
+        long[] c_coeffs = this.coeffs[i];
+        int[] c_lits = this.lits[i];
+        long lhs = 0;
+        for (int j = 0; j < c_lits.length; ++j) {
+            int lit = c_lits[j];
+            if (lit > 0 ? a[lit-1] : !a[-lit-1]) {
+                lhs += c_coeffs[j];
+            }
+        }
+        return lhs;
+    }
+
+    /**
+     * Checks if a given compiled constraint is satisfied by a given scaled left-hand side.
+     * @param i The constraint index.
+     * @param lhs The scaled left-hand side.
+     * @return True if the {@code i}-th constraint is satisfied, false otherwise.
+     */
+    public boolean isSatisfied(int i, long lhs) {
+        long diff = this.rhs[i] - lhs;
+        return this.ops[i] == OP_LE ? diff >= 0 : this.ops[i] == OP_GE ? diff <= 0 : diff == 0;
+    }
+
+    /**
+     * Retrieves the literals of a given constraint.
+     * @param i The constraint index.
+     * @return The literals of the {@code i}-th constraint. Must not be modified.
+     */
+    public int[] getLits(int i) { return this.lits[i]; }
+
+    /**
+     * Computes by how much a given constraint is violated by a given assignment.
+     * @param i The constraint index.
+     * @param a The assignment, where {@code a[v-1]} is the value of variable {@code v}.
+     * @return The absolute difference between the constraint's left and right-hand sides if it is violated, 0
+     * otherwise.
+     */
+    public double violation(int i, boolean[] a) {
+        long[] c_coeffs = this.coeffs[i];
+        if (c_coeffs == null) {
+            PBConstr c = this.instance.getConstr(i);
+            Real lhs = c.getLHS().evaluate(a);
+            return c.violatedBy(lhs) ? c.getRHS().subtract(lhs).abs().asDouble() : 0.0;
+        }
+        long diff = this.rhs[i] - lhs(i, a);
+        boolean violated = this.ops[i] == OP_LE ? diff < 0 : this.ops[i] == OP_GE ? diff > 0 : diff != 0;
+        return violated ? Math.abs(diff) / this.scale[i] : 0.0;
+    }
+
+    /**
+     * Checks if a given constraint is violated by a given assignment.
+     * @param i The constraint index.
+     * @param a The assignment, where {@code a[v-1]} is the value of variable {@code v}.
+     * @return True if the {@code i}-th constraint is violated by {@code a}, false otherwise.
+     */
+    public boolean isViolated(int i, boolean[] a) { return violation(i, a) > 0.0; }
+
+    /**
+     * Collects the constraints violated by a given assignment.
+     * @param a The assignment, where {@code a[v-1]} is the value of variable {@code v}.
+     * @param out The buffer, with at least {@link #nConstrs()} positions, where the indexes of the violated
+     * constraints are stored.
+     * @return The number of violated constraints.
+     */
+    public int violated(boolean[] a, int[] out) {
+        int n = 0;
+        for (int i = 0; i < nConstrs(); ++i) {
+            if (isViolated(i, a)) {
+                out[n++] = i;
+            }
+        }
+        return n;
+    }
+
+}
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tracks the hypervolume contributions of the vectors in an {@link NDTree} (minimization), i.e., the volume
+ * dominated by each vector and by no other, in order to pick the vector to evict from a bounded archive.
+ * Contributions are exact for 2 and 3 objectives. For more objectives, they are estimated by Monte Carlo
+ * sampling within a box that bounds each vector's exclusive region.
+ * The reference point is the archive's nadir point shifted by a tenth of each objective's range.
+ * Contributions are cached, and an update only discards the ones it may have changed.
+ */
+public class HVContributions {
+
+    /**
+     * Number of samples per vector in the Monte Carlo estimates.
+     */
+    private static final int NSAMPLES = 128;
+
+    /**
+     * Stores the reference point used to compute the cached contributions.
+     */
+    private double[] ref = null;
+
+    /**
+     * Stores the cached contributions, indexed by vector.
+     */
+    private Map<double[], Double> cache = new IdentityHashMap<double[], Double>();
+
+    /**
+     * PRNG used in the Monte Carlo estimates.
+     */
+    private Random rnd = new Random(0);
+
+    /**
+     * Notifies that a vector was added to or removed from an archive. Must be called after the update.
+     * @param archive The archive.
+     * @param y The vector.
+     */
+    public void update(NDTree<?> archive, double[] y) {
+        if (y.length <= 2) {            // recomputing by sorting is cheaper than checking each vector
+            this.cache.clear();
+            return;
+        }
+        List<double[]> points = points(archive);
+        for (Iterator<double[]> it = this.cache.keySet().iterator(); it.hasNext();) {
+            if (changes(points, it.next(), y)) { it.remove(); }
+        }
+    }
+
+    /**
+     * Selects the vector with the smallest hypervolume contribution in an archive.
+     * @param archive The archive. Must not be empty.
+     * @return The vector's index in the archive.
+     */
+    public int selectVictim(NDTree<?> archive) {
+        double[] c = contributions(archive);
+        int victim = 0;
+        for (int i = 1; i < c.length; ++i) {
+            if (c[i] < c[victim]) { victim = i; }
+        }
+        return victim;
+    }
+
+    /**
+     * Computes the hypervolume contributions of the vectors in an archive, reusing the cached ones.
+     * @param archive The archive. Must not be empty.
+     * @return The contributions, where the {@code i}-th element is the contribution of the {@code i}-th vector.
+     */
+    double[] contributions(NDTree<?> archive) {
+        List<double[]> points = points(archive);
+        double[] r = refPoint(points);
+        if (!Arrays.equals(r, this.ref)) {
+            this.ref = r;
+            this.cache.clear();
+        }
+        int m = r.length;
+        double[] exact2d = null;
+        Map<double[], Double> fresh = new IdentityHashMap<double[], Double>();
+        double[] contribs = new double[points.size()];
+        for (int i = 0; i < points.size(); ++i) {
+            Double c = this.cache.get(points.get(i));
+            if (c == null) {
+                if (m <= 2) {
+                    if (exact2d == null) { exact2d = contributions2D(points); }
+                    c = exact2d[i];
+                }
+                else if (m == 3) {
+                    c = contribution3D(points, i);
+                }
+                else {
+                    c = estimate(points, i);
+                }
+            }
+            fresh.put(points.get(i), c);
+            contribs[i] = c;
+        }
+        this.cache = fresh;
+        return contribs;
+    }
+
+    /**
+     * Discards every cached contribution.
+     */
+    public void clear() {
+        this.ref = null;
+        this.cache.clear();
+    }
+
+    private static List<double[]> points(NDTree<?> archive) {
+        List<double[]> points = new ArrayList<double[]>(archive.size());
+        for (int i = 0; i < archive.size(); ++i) {
+            points.add(archive.getPoint(i));
+        }
+        return points;
+    }
+
+    /**
+     * Computes the reference point for a given set of vectors.
+     * @param points The vectors.
+     * @return The nadir point of {@code points} shifted by a tenth of each objective's range, or by 1 if the
+     * range is empty.
+     */
+    private static double[] refPoint(List<double[]> points) {
+        double[] ideal = points.get(0).clone(), nadir = points.get(0).clone();
+        for (int i = 1; i < points.size(); ++i) {
+            double[] p = points.get(i);
+            for (int k = 0; k < p.length; ++k) {
+                ideal[k] = Math.min(ideal[k], p[k]);
+                nadir[k] = Math.max(nadir[k], p[k]);
+            }
+        }
+        for (int k = 0; k < nadir.length; ++k) {
+            double range = nadir[k] - ideal[k];
+            nadir[k] += range > 0.0 ? range / 10 : 1.0;
+        }
+        return nadir;
+    }
+
+    /**
+     * Checks if adding or removing a vector may change the contribution of another.
+     * That is the case unless the part of the other vector's region that the vector dominates is also
+     * dominated by some third vector.
+     * @param points The vectors in the archive.
+     * @param p The vector whose contribution is checked.
+     * @param y The vector added or removed.
+     * @return True if the contribution of {@code p} may have changed, false otherwise.
+     */
+    private static boolean changes(List<double[]> points, double[] p, double[] y) {
+        for (int i = 0; i < points.size(); ++i) {
+            double[] q = points.get(i);
+            if (q == p || q == y) { continue; }
+            int k = 0;
+            while (k < p.length && Math.max(p[k], q[k]) <= Math.max(p[k], y[k])) { ++k; }
+            if (k == p.length) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the exact contributions of a set of mutually nondominated vectors with 2 objectives.
+     * @param points The vectors.
+     * @return The contributions, where the {@code i}-th element is the contribution of the {@code i}-th vector.
+     */
+    private double[] contributions2D(final List<double[]> points) {
+        List<Integer> order = new ArrayList<Integer>(points.size());
+        for (int i = 0; i < points.size(); ++i) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(points.get(a)[0], points.get(b)[0]);
+            }
+        });
+        double[] c = new double[points.size()];
+        for (int i = 0; i < order.size(); ++i) {
+            double[] p = points.get(order.get(i));
+            double next_x = i+1 < order.size() ? points.get(order.get(i+1))[0] : this.ref[0];
+            double prev_y = i > 0 ? points.get(order.get(i-1))[1] : this.ref[1];
+            c[order.get(i)] = (next_x - p[0]) * (prev_y - p[1]);
+        }
+        return c;
+    }
+
+    /**
+     * Computes the exact contribution of a vector in a set with 3 objectives, as the volume of the box between
+     * the vector and the reference point minus the hypervolume of the other vectors clipped to that box.
+     * @param points The vectors.
+     * @param i The vector's index.
+     * @return The contribution of the {@code i}-th vector.
+     */
+    private double contribution3D(List<double[]> points, int i) {
+        double[] p = points.get(i);
+        List<double[]> clipped = new ArrayList<double[]>(points.size() - 1);
+        for (int j = 0; j < points.size(); ++j) {
+            if (j == i) { continue; }
+            double[] q = points.get(j);
+            clipped.add(new double[] { Math.max(p[0], q[0]), Math.max(p[1], q[1]), Math.max(p[2], q[2]) });
+        }
+        double vol = (this.ref[0] - p[0]) * (this.ref[1] - p[1]) * (this.ref[2] - p[2]);
+        return vol - hypervolume3D(clipped);
+    }
+
+    /**
+     * Computes the hypervolume of a set of vectors with 3 objectives by sweeping the third objective and
+     * maintaining the area dominated in the other two.
+     * @param points The vectors.
+     * @return The hypervolume of {@code points}.
+     */
+    private double hypervolume3D(List<double[]> points) {
+        Collections.sort(points, new Comparator<double[]>() {
+            public int compare(double[] a, double[] b) { return Double.compare(a[2], b[2]); }
+        });
+        TreeMap<Double, Double> front = new TreeMap<Double, Double>();
+        double area = 0.0, vol = 0.0;
+        for (int i = 0; i < points.size(); ++i) {
+            double[] p = points.get(i);
+            area += insert2D(front, p[0], p[1]);
+            double next_z = i+1 < points.size() ? points.get(i+1)[2] : this.ref[2];
+            vol += area * (next_z - p[2]);
+        }
+        return vol;
+    }
+
+    /**
+     * Inserts a point in a 2 objective front, stored as a staircase sorted by the first objective, and
+     * removes the points it weakly dominates.
+     * @param front The front.
+     * @param x The point's first objective value.
+     * @param y The point's second objective value.
+     * @return The increase in the area dominated by the front.
+     */
+    private double insert2D(TreeMap<Double, Double> front, double x, double y) {
+        Map.Entry<Double, Double> left = front.lowerEntry(x);
+        Double same = front.get(x);
+        if ((left != null && left.getValue() <= y) || (same != null && same <= y)) { return 0.0; }
+        double cx = x, cy = left != null ? left.getValue() : this.ref[1], right_x = this.ref[0];
+        double gain = 0.0;
+        for (Iterator<Map.Entry<Double, Double>> it = front.tailMap(x, true).entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Double, Double> d = it.next();
+            if (d.getValue() < y) {
+                right_x = d.getKey();
+                break;
+            }
+            gain += (d.getKey() - cx) * (cy - y);
+            cx = d.getKey();
+            cy = d.getValue();
+            it.remove();
+        }
+        gain += (right_x - cx) * (cy - y);
+        front.put(x, y);
+        return gain;
+    }
+
+    /**
+     * Estimates the contribution of a vector by Monte Carlo sampling.
+     * Samples are drawn from the box between the vector and an upper bound of its exclusive region. The bound
+     * on each objective is the smallest value of that objective among the vectors that are at least as good
+     * as the vector on every other objective.
+     * @param points The vectors.
+     * @param i The vector's index.
+     * @return The estimated contribution of the {@code i}-th vector.
+     */
+    private double estimate(List<double[]> points, int i) {
+        double[] p = points.get(i);
+        int m = p.length;
+        double[] u = this.ref.clone();
+        for (int j = 0; j < points.size(); ++j) {
+            if (j == i) { continue; }
+            double[] q = points.get(j);
+            int worse = -1, nworse = 0;
+            for (int k = 0; k < m && nworse < 2; ++k) {
+                if (q[k] > p[k]) {
+                    worse = k;
+                    ++nworse;
+                }
+            }
+            if (nworse == 1) { u[worse] = Math.min(u[worse], q[worse]); }
+        }
+        double vol = 1.0;
+        for (int k = 0; k < m; ++k) {
+            vol *= u[k] - p[k];
+        }
+        List<double[]> rivals = new ArrayList<double[]>();
+        for (int j = 0; j < points.size(); ++j) {
+            if (j != i && dominatesPartOf(points.get(j), u)) { rivals.add(points.get(j)); }
+        }
+        if (vol <= 0.0 || rivals.isEmpty()) { return vol; }
+        double[] s = new double[m];
+        int hits = 0;
+        for (int n = 0; n < NSAMPLES; ++n) {
+            for (int k = 0; k < m; ++k) {
+                s[k] = p[k] + this.rnd.nextDouble() * (u[k] - p[k]);
+            }
+            int j = 0;
+            while (j < rivals.size() && !NDTree.weaklyDominates(rivals.get(j), s)) { ++j; }
+            if (j == rivals.size()) { ++hits; }
+        }
+        return vol * hits / NSAMPLES;
+    }
+
+    /**
+     * Checks if a vector dominates some part of the box below a given upper bound.
+     * @param q The vector.
+     * @param u The upper bound.
+     * @return True if {@code q} is strictly better than {@code u} on every objective, false otherwise.
+     */
+    private static boolean dominatesPartOf(double[] q, double[] u) {
+        for (int k = 0; k < q.length; ++k) {
+            if (q[k] >= u[k]) { return false; }
+        }
+        return true;
+    }
+
+}
@@ -23,6 +23,7 @@
 package org.sat4j.moco.analysis;
 
 import org.moeaframework.core.Solution;
+import org.moeaframework.core.variable.BinaryVariable;
 import org.moeaframework.core.variable.EncodingUtils;
 import org.moeaframework.problem.AbstractProblem;
 import org.sat4j.core.ReadOnlyVecInt;
@@ -39,10 +40,13 @@ import org.sat4j.specs.IVec;
 import org.sat4j.specs.IVecInt;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of the MOCO problem as an {@link AbstractProblem} in the MOEA framework.
  * To be used for performance analysis.
+ * Once built, evaluation and assignment retrieval only read the problem's state, so solutions can be evaluated
+ * concurrently.
  * @author Miguel Terra-Neves
  */
 public class MOCOProblem extends AbstractProblem {
@@ -62,6 +66,13 @@ public class MOCOProblem extends AbstractProblem {
      */
     private boolean structure_improvements = false;
 
+    /**
+     * Stores if solutions encode the free variables in a single bitset variable, instead of one integer
+     * variable each. Structure improvements require the latter, since they encode constraints as integer
+     * variables.
+     */
+    private boolean bit_genome = true;
+
 
     private int NumberOfVariables;
 
@@ -69,7 +80,10 @@ public class MOCOProblem extends AbstractProblem {
     private IVecInt removed_constraint_indexes = new VecInt();
 
 
-    private HashSet<Integer> removed_constraint_indexes_hash = new HashSet<Integer>();
+    /**
+     * Stores, for each constraint, if it was removed due to the structure improvements.
+     */
+    private boolean[] removed_constrs = null;
 
 
     private HashSet<Integer> removed_variables = new HashSet<Integer>();
@@ -87,6 +101,66 @@ public class MOCOProblem extends AbstractProblem {
      */
     private HashSet<Integer> false_variables = new HashSet<Integer>();
 
+    /**
+     * Value of a variable in {@link #forced_values} that is not forced by unit propagation.
+     */
+    private static final byte FREE = 0;
+
+    /**
+     * Value of a variable in {@link #forced_values} that is forced to be true by unit propagation.
+     */
+    private static final byte FORCED_TRUE = 1;
+
+    /**
+     * Value of a variable in {@link #forced_values} that is forced to be false by unit propagation.
+     */
+    private static final byte FORCED_FALSE = -1;
+
+    /**
+     * Stores, for each variable, if it is free or forced to some value by unit propagation.
+     * Mirrors {@link #true_variables} and {@link #false_variables} without boxing.
+     */
+    private byte[] forced_values = null;
+
+    /**
+     * Value of a variable in {@link #var_genes} that is forced to be true by unit propagation.
+     */
+    private static final int FORCED_TRUE_GENE = -1;
+
+    /**
+     * Value of a variable in {@link #var_genes} that is forced to be false by unit propagation.
+     */
+    private static final int FORCED_FALSE_GENE = -2;
+
+    /**
+     * Decoding table for solutions without structure improvements. Stores, for each variable, the index of
+     * its gene, or {@link #FORCED_TRUE_GENE} or {@link #FORCED_FALSE_GENE} if it is forced by unit
+     * propagation.
+     */
+    private int[] var_genes = null;
+
+    /**
+     * Decoding tables for solutions with structure improvements. Store the variables forced to be true by unit
+     * propagation, the free literals of each removed constraint, and the literal set to true by each nonzero
+     * value of each removed constraint's gene.
+     */
+    private int[] si_true_vars = null;
+    private int[][] si_constr_lits = null;
+    private int[][] si_values = null;
+
+    /**
+     * Stores the occurrence index and compiled form of the instance's constraints.
+     */
+    private ConstraintIndex constr_index = null;
+
+    /**
+     * Stores an assignment buffer for each thread that evaluates solutions.
+     */
+    private final ThreadLocal<boolean[]> eval_buffers = new ThreadLocal<boolean[]>() {
+        @Override
+        protected boolean[] initialValue() { return new boolean[getInitialNumberOfVariables()]; }
+    };
+
 
     private int[] index_mapping;
 
@@ -96,10 +170,13 @@ public class MOCOProblem extends AbstractProblem {
     /**
      * Counters for the final print
      */
-    private int successful_mutation = 0;
-    private int successful_improvement = 0;
-    private int total_mutation = 0;
-    private int total_improvement = 0;
+    private AtomicInteger successful_mutation = new AtomicInteger();
+    private AtomicInteger successful_improvement = new AtomicInteger();
+    private AtomicInteger total_mutation = new AtomicInteger();
+    private AtomicInteger total_improvement = new AtomicInteger();
+    private AtomicInteger core_cache_lookups = new AtomicInteger();
+    private AtomicInteger core_cache_hits = new AtomicInteger();
+    private AtomicInteger saved_sat_calls = new AtomicInteger();
 
     /**
      * Stores the unit propagator
@@ -121,6 +198,10 @@ public class MOCOProblem extends AbstractProblem {
         super(instance.nVars(), instance.nObjs(), instance.nConstrs());
         this.instance = instance;
         setNumberOfVariables(instance.nVars());
+        this.removed_constrs = new boolean[instance.nConstrs()];
+        this.forced_values = new byte[instance.nVars()+1];
+        this.constr_index = new ConstraintIndex(instance);
+        compileDecoder();
     }
 
     /**
@@ -131,8 +212,12 @@ public class MOCOProblem extends AbstractProblem {
         super(instance.nVars(), instance.nObjs(), instance.nConstrs());
         this.instance = instance;
         this.structure_improvements = si;
+        this.bit_genome = !si;
         this.result = result;
         setNumberOfVariables(instance.nVars());
+        this.removed_constrs = new boolean[instance.nConstrs()];
+        this.forced_values = new byte[instance.nVars()+1];
+        this.constr_index = new ConstraintIndex(instance);
         if (up) {
             unitPropagation();
         }
@@ -142,7 +227,7 @@ public class MOCOProblem extends AbstractProblem {
             index = getNewConstraint(removable_constraint_indexes);
             while (index >= 0){
                 removed_constraint_indexes.push(index);
-                removed_constraint_indexes_hash.add(index);
+                removed_constrs[index] = true;
                 removable_constraint_indexes.remove(index);
                 index = getNewConstraint(removable_constraint_indexes);
             }
@@ -153,12 +238,22 @@ public class MOCOProblem extends AbstractProblem {
             index_mapping = createMapping();
             index_reverse_mapping = createReverseMapping();
         }
+        compileDecoder();
     }
 
     public boolean getSI(){
         return this.structure_improvements;
     }
 
+    /**
+     * Checks if solutions encode the free variables in a single bitset variable.
+     * @return True if solutions use the bitset encoding, false if they use one integer variable per free
+     * variable.
+     */
+    public boolean usesBitGenome() {
+        return this.bit_genome;
+    }
+
     @Override
     public int getNumberOfVariables(){
         return this.NumberOfVariables;
@@ -186,9 +281,11 @@ public class MOCOProblem extends AbstractProblem {
             head_trail = trail.get(i);
             if (head_trail % 2 == 0){
                 true_variables.add(head_trail / 2);
+                forced_values[head_trail / 2] = FORCED_TRUE;
             }
             else{
                 false_variables.add(head_trail / 2);
+                forced_values[head_trail / 2] = FORCED_FALSE;
             }
         }
         Log.comment(0, (true_variables.size() + false_variables.size()) + " variables were removed due to the unitary propagation");
@@ -199,7 +296,28 @@ public class MOCOProblem extends AbstractProblem {
      * Add the problem's constraints to the unit propagation solver
      */
     public void addConstrToUnitarySolver(){
-        for (int i = 0; i < getNumberOfConstraints(); i ++) {
+        addConstrToUnitarySolver(unit_solver);
+    }
+
+    /**
+     * Creates a unit propagator with the problem's constraints, already propagated at the root level.
+     * @return The unit propagator.
+     */
+    public UnitPropagator newUnitPropagator() {
+        UnitPropagator s = UnitPropagatorFactory.instance().defaultSolver();
+        s.newVar(this.instance.nVars());
+        addConstrToUnitarySolver(s);
+        s.getOrder().init();
+        s.propagate();
+        return s;
+    }
+
+    /**
+     * Add the problem's constraints to a given unit propagation solver
+     * @param unit_solver The solver.
+     */
+    private void addConstrToUnitarySolver(UnitPropagator unit_solver){
+        for (int i = 0; i < this.instance.nConstrs(); i ++) {
             IVecInt lits = new VecInt();
             IVecInt coeffs = new VecInt();
             
@@ -362,48 +480,84 @@ public class MOCOProblem extends AbstractProblem {
      */
     public boolean[] getAssignment(Solution sol) {
         boolean[] a = new boolean[getInitialNumberOfVariables()];
-        int i = 0;
+        getAssignment(sol, a);
+        return a;
+    }
+
+    /**
+     * Decodes the assignment of a given MOEA framework {@link Solution} object into a given buffer, using the
+     * decoding tables built by {@link #compileDecoder()}.
+     * @param sol The solution.
+     * @param a The buffer, with at least {@link #getInitialNumberOfVariables()} positions, where {@code a[i]}
+     * is set to the value of variable {@code i+1}.
+     */
+    public void getAssignment(Solution sol, boolean[] a) {
         if (!getSI()){
-            for (int j = 0; j < getNumberOfVariables(); j++) {
-                if (true_variables.contains(j+1)){
-                    a[j] = true;
-                }
-                else if (false_variables.contains(j+1)){
-                    a[j] = false;
+            BinaryVariable genes = this.bit_genome ? (BinaryVariable)sol.getVariable(0) : null;
+            for (int j = 0; j < this.var_genes.length; j++) {
+                int gene = this.var_genes[j];
+                if (gene >= 0) {
+                    a[j] = genes != null ? genes.get(gene) : (EncodingUtils.getInt(sol.getVariable(gene)) == 1);
                 }
                 else {
-                    a[j] = (EncodingUtils.getInt(sol.getVariable(i)) == 1);
-                    i ++;
+                    a[j] = (gene == FORCED_TRUE_GENE);
                 }
             }
+            return;
         }
-        else{
-            int number_normal_variables = getNumberOfVariables() - removed_constraint_indexes.size() - true_variables.size() - false_variables.size();
-            for (int j = 0; j < number_normal_variables ; j++) {
-                a[getMappingIndex(j)] = (EncodingUtils.getInt(sol.getVariable(j)) == 1);
-            }
-            for (int j : true_variables) {
-                a[j-1] = true;
+        Arrays.fill(a, 0, getInitialNumberOfVariables(), false);
+        int number_normal_variables = this.index_mapping.length;
+        for (int j = 0; j < number_normal_variables; j++) {
+            a[this.index_mapping[j]] = (EncodingUtils.getInt(sol.getVariable(j)) == 1);
+        }
+        for (int j = 0; j < this.si_true_vars.length; j++) {
+            a[this.si_true_vars[j]-1] = true;
+        }
+        for (int j = 0; j < this.si_constr_lits.length; j++) {
+            int value = EncodingUtils.getInt(sol.getVariable(j + number_normal_variables));
+            int true_var = value == 0 ? 0 : this.si_values[j][value-1];
+            int[] lits = this.si_constr_lits[j];
+            for (int i = 0; i < lits.length; i++) {
+                a[lits[i] - 1] = (true_var == lits[i]);
             }
-            for (int j : false_variables) {
-                a[j-1] = false;
+        }
+    }
+
+    /**
+     * Builds the tables used to decode solutions into assignments, so that decoding neither allocates memory
+     * nor looks up boxed sets.
+     */
+    private void compileDecoder() {
+        this.var_genes = new int[getInitialNumberOfVariables()];
+        int gene = 0;
+        for (int j = 0; j < this.var_genes.length; j++) {
+            byte forced = j+1 < this.forced_values.length ? this.forced_values[j+1] : FREE;
+            this.var_genes[j] = forced == FORCED_TRUE ? FORCED_TRUE_GENE :
+                                forced == FORCED_FALSE ? FORCED_FALSE_GENE : gene++;
+        }
+        IVecInt true_vars = new VecInt();
+        for (int j = 1; j < this.forced_values.length; j++) {
+            if (this.forced_values[j] == FORCED_TRUE) {
+                true_vars.push(j);
             }
-            int value;
-            int true_var;
-            ReadOnlyVecInt lits;
-            for (int j = 0 ; j < removed_constraint_indexes.size(); j++){
-                value = EncodingUtils.getInt(sol.getVariable(j + number_normal_variables));
-                true_var = decodeIntValue(j, value);
-                lits = this.instance.getConstr(removed_constraint_indexes.get(j)).getLits();
-                for (i = 0; i < lits.size(); i++){
-                    if (isForcedVar(lits.get(i))){
-                        continue;
-                    }
-                    a[lits.get(i) - 1] = (true_var == lits.get(i));
+        }
+        this.si_true_vars = new int[true_vars.size()];
+        true_vars.copyTo(this.si_true_vars);
+        this.si_constr_lits = new int[this.removed_constraint_indexes.size()][];
+        this.si_values = new int[this.removed_constraint_indexes.size()][];
+        for (int j = 0; j < this.removed_constraint_indexes.size(); j++) {
+            ReadOnlyVecInt lits = this.instance.getConstr(this.removed_constraint_indexes.get(j)).getLits();
+            IVecInt free_lits = new VecInt();
+            for (int i = 0; i < lits.size(); i++) {
+                if (!isForcedVar(lits.get(i))) {
+                    free_lits.push(lits.get(i));
                 }
             }
+            this.si_constr_lits[j] = new int[free_lits.size()];
+            free_lits.copyTo(this.si_constr_lits[j]);
+            this.si_values[j] = new int[this.free_vars_SI.get(j).size()];
+            this.free_vars_SI.get(j).copyTo(this.si_values[j]);
         }
-        return a;
     }
 
     public int decodeIntValue(int index, int value){
@@ -465,11 +619,34 @@ public class MOCOProblem extends AbstractProblem {
     }
 
     public void setVariableValue(Solution solution, int index, int val) {
-        EncodingUtils.setInt(solution.getVariable(index), val);
+        if (this.bit_genome) {
+            ((BinaryVariable)solution.getVariable(0)).set(index, val == 1);
+        }
+        else {
+            EncodingUtils.setInt(solution.getVariable(index), val);
+        }
+    }
+
+    /**
+     * Sets the free variables of a given {@link Solution} object to their values in a given assignment.
+     * Not supported with structure improvements.
+     * @param sol The solution.
+     * @param a The assignment, where {@code a[i]} is the value of variable {@code i+1}. Missing variables are
+     * set to false.
+     */
+    public void setAssignment(Solution sol, boolean[] a) {
+        assert(!getSI());
+        int i = 0;
+        for (int j = 0; j < getNumberOfVariables(); j++) {
+            if (!isForcedVar(j+1)) {
+                setVariableValue(sol, i, (j < a.length && a[j]) ? 1 : 0);
+                i++;
+            }
+        }
     }
 
     public boolean isForcedVar (int var){
-        return (true_variables.contains(var) || false_variables.contains(var));
+        return var > 0 && var < forced_values.length && forced_values[var] != FREE;
     }
 
     /**
@@ -478,30 +655,44 @@ public class MOCOProblem extends AbstractProblem {
      * @param sol The solution.
      */
     public void evaluate(Solution sol) {
-        boolean[] a = getAssignment(sol);
+        boolean[] a = this.eval_buffers.get();
+        getAssignment(sol, a);
         for (int i = 0; i < this.instance.nObjs(); ++i) {
             Objective obj = this.instance.getObj(i);
             sol.setObjective(i, obj.evaluate(a).asDouble());
         }
         double viol = 0.0;
         for (int i = 0; i < this.instance.nConstrs(); ++i) {
-            if (removed_constraint_indexes_hash.contains(i)){
+            if (removed_constrs[i]){
                 continue;
             }
-            PBConstr constr = this.instance.getConstr(i);
-            Real lhs = constr.getLHS().evaluate(a);
-            viol += constr.violatedBy(lhs) ? constr.getRHS().subtract(lhs).abs().asDouble() : 0.0;
+            viol += this.constr_index.violation(i, a);
         }
         sol.setConstraint(0, viol);
     }
 
+    /**
+     * Retrieves the number of variables not forced by unit propagation.
+     * @return The number of free variables.
+     */
+    public int getNumberOfFreeVariables() {
+        return getNumberOfVariables() - true_variables.size() - false_variables.size();
+    }
+
     /**
      * Creates an empty MOEA framework {@link Solution} object.
+     * Only one constraint slot is reserved, since {@link #evaluate(Solution)} aggregates the violation of all
+     * constraints.
      * @return The solution object.
      */
     public Solution newSolution() {
-        int non_forced_vars = getNumberOfVariables() - true_variables.size() - false_variables.size();
-        Solution sol = new Solution(non_forced_vars, getNumberOfObjectives(), getNumberOfConstraints());
+        int non_forced_vars = getNumberOfFreeVariables();
+        if (this.bit_genome) {
+            Solution sol = new Solution(1, getNumberOfObjectives(), 1);
+            sol.setVariable(0, new BinaryVariable(non_forced_vars));
+            return sol;
+        }
+        Solution sol = new Solution(non_forced_vars, getNumberOfObjectives(), 1);
         for (int i = 0; i < non_forced_vars - removed_constraint_indexes.size(); ++i) {
             sol.setVariable(i, EncodingUtils.newInt(0, 1));
         }
@@ -532,36 +723,66 @@ public class MOCOProblem extends AbstractProblem {
 
 
     public int getSuccessfulMutation() {
-        return successful_mutation;
+        return successful_mutation.get();
     }
 
     public void increaseSuccessfulMutation() {
-        this.successful_mutation += 1;
+        this.successful_mutation.incrementAndGet();
     }
 
     public int getSuccessfulImprovement() {
-        return successful_improvement;
+        return successful_improvement.get();
     }
 
     public void increaseSuccessfulImprovement() {
-        this.successful_improvement += 1;
+        this.successful_improvement.incrementAndGet();
     }
 
     public int getTotalMutation() {
-        return total_mutation;
+        return total_mutation.get();
     }
 
     public void increaseTotalMutation() {
-        this.total_mutation += 1;
+        this.total_mutation.incrementAndGet();
     }
 
     public int getTotalImprovement() {
-        return total_improvement;
+        return total_improvement.get();
     }
 
     public void increaseTotalImprovement() {
-        this.total_improvement += 1;
+        this.total_improvement.incrementAndGet();
+    }
+
+    public int getCoreCacheLookups() {
+        return core_cache_lookups.get();
+    }
+
+    public void increaseCoreCacheLookups() {
+        this.core_cache_lookups.incrementAndGet();
+    }
+
+    public int getCoreCacheHits() {
+        return core_cache_hits.get();
+    }
+
+    public void increaseCoreCacheHits() {
+        this.core_cache_hits.incrementAndGet();
+    }
+
+    public int getSavedSATCalls() {
+        return saved_sat_calls.get();
+    }
+
+    public void increaseSavedSATCalls(int n) {
+        this.saved_sat_calls.addAndGet(n);
     }
 
     public Result getResult() { return this.result; }
+
+    /**
+     * Retrieves the occurrence index and compiled form of the instance's constraints.
+     * @return The constraint index.
+     */
+    public ConstraintIndex getConstraintIndex() { return this.constr_index; }
 }
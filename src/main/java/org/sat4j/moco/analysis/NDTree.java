@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Archive of mutually nondominated cost vectors (minimization), each with an associated value, stored in an
+ * ND-tree, as proposed in:<br>
+ *      Jaszkiewicz, A., & Lust, T. (2018).
+ *      ND-Tree-Based Update: A Fast Algorithm for the Dynamic Nondominance Problem.
+ *      IEEE Transactions on Evolutionary Computation, 22(5), 778-791.<br>
+ * Each node keeps approximations of the ideal and nadir points of the vectors below it, which allows dominance
+ * queries and updates to skip whole subtrees. The approximations are never tightened after removals, since
+ * looser bounds remain valid. Vectors are also kept in a flat list for access by index, in no particular
+ * order. Not thread-safe.
+ * @param <T> The type of the values associated with the cost vectors.
+ */
+public class NDTree<T> {
+
+    /**
+     * Maximum number of vectors in a leaf. Leaves that exceed it are split.
+     */
+    private static final int MAX_LEAF = 20;
+
+    /**
+     * Number of children created when a leaf is split.
+     */
+    private static final int NCHILDREN = 6;
+
+    /**
+     * A cost vector, its value, its position in the flat list and the leaf that stores it.
+     */
+    private class Entry {
+        double[] point;
+        T value;
+        int pos;
+        Node leaf;
+    }
+
+    /**
+     * A node of the tree. Leaves store vectors, internal nodes store children.
+     */
+    private class Node {
+        double[] ideal;
+        double[] nadir;
+        Node parent = null;
+        List<Node> children = null;
+        List<Entry> points = null;
+
+        Node(double[] y) {
+            this.ideal = y.clone();
+            this.nadir = y.clone();
+        }
+
+        boolean isLeaf() { return this.children == null; }
+
+        void extend(double[] y) {
+            for (int k = 0; k < y.length; ++k) {
+                this.ideal[k] = Math.min(this.ideal[k], y[k]);
+                this.nadir[k] = Math.max(this.nadir[k], y[k]);
+            }
+        }
+
+        double distance(double[] y) {
+            double d = 0.0;
+            for (int k = 0; k < y.length; ++k) {
+                double diff = y[k] - (this.ideal[k] + this.nadir[k]) / 2;
+                d += diff * diff;
+            }
+            return d;
+        }
+    }
+
+    /**
+     * Stores the root of the tree, or null if the archive is empty.
+     */
+    private Node root = null;
+
+    /**
+     * Stores every entry in the archive.
+     */
+    private List<Entry> entries = new ArrayList<Entry>();
+
+    /**
+     * Checks if a given vector weakly dominates another, i.e., if it is at least as good on every objective.
+     * @param a The first vector.
+     * @param b The second vector.
+     * @return True if {@code a} weakly dominates {@code b}, false otherwise.
+     */
+    static boolean weaklyDominates(double[] a, double[] b) {
+        for (int k = 0; k < a.length; ++k) {
+            if (a[k] > b[k]) { return false; }
+        }
+        return true;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double d = 0.0;
+        for (int k = 0; k < a.length; ++k) {
+            d += (a[k] - b[k]) * (a[k] - b[k]);
+        }
+        return d;
+    }
+
+    /**
+     * Retrieves the number of vectors in the archive.
+     * @return The number of vectors.
+     */
+    public int size() { return this.entries.size(); }
+
+    /**
+     * Retrieves a vector in the archive.
+     * @param i The vector's index.
+     * @return The {@code i}-th vector. Must not be modified.
+     */
+    public double[] getPoint(int i) { return this.entries.get(i).point; }
+
+    /**
+     * Retrieves the value associated with a vector in the archive.
+     * @param i The vector's index.
+     * @return The {@code i}-th vector's value.
+     */
+    public T get(int i) { return this.entries.get(i).value; }
+
+    /**
+     * Removes every vector from the archive.
+     */
+    public void clear() {
+        this.root = null;
+        this.entries.clear();
+    }
+
+    /**
+     * Checks if a given vector is weakly dominated by some vector in the archive.
+     * @param y The vector.
+     * @return True if some vector in the archive is at least as good as {@code y} on every objective, false
+     * otherwise.
+     */
+    public boolean isWeaklyDominated(double[] y) {
+        return this.root != null && isWeaklyDominated(this.root, y);
+    }
+
+    private boolean isWeaklyDominated(Node node, double[] y) {
+        if (!weaklyDominates(node.ideal, y)) { return false; }
+        if (weaklyDominates(node.nadir, y)) { return true; }
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.points.size(); ++i) {
+                if (weaklyDominates(node.points.get(i).point, y)) { return true; }
+            }
+            return false;
+        }
+        for (int i = 0; i < node.children.size(); ++i) {
+            if (isWeaklyDominated(node.children.get(i), y)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a vector to the archive if it is not weakly dominated by any vector in it, and removes the vectors
+     * it dominates.
+     * @param y The vector. Must not be modified afterwards.
+     * @param value The vector's value.
+     * @return True if {@code y} was added, false otherwise.
+     */
+    public boolean add(double[] y, T value) {
+        if (isWeaklyDominated(y)) { return false; }
+        if (this.root != null && removeDominated(this.root, y)) {
+            this.root = null;
+        }
+        Entry e = new Entry();
+        e.point = y;
+        e.value = value;
+        e.pos = this.entries.size();
+        this.entries.add(e);
+        if (this.root == null) {
+            this.root = new Node(y);
+            this.root.points = new ArrayList<Entry>();
+            this.root.points.add(e);
+            e.leaf = this.root;
+            return true;
+        }
+        Node node = this.root;
+        while (true) {
+            node.extend(y);
+            if (node.isLeaf()) {
+                node.points.add(e);
+                e.leaf = node;
+                if (node.points.size() > MAX_LEAF) { split(node); }
+                return true;
+            }
+            Node closest = node.children.get(0);
+            double closest_d = closest.distance(y);
+            for (int i = 1; i < node.children.size(); ++i) {
+                double d = node.children.get(i).distance(y);
+                if (d < closest_d) {
+                    closest = node.children.get(i);
+                    closest_d = d;
+                }
+            }
+            node = closest;
+        }
+    }
+
+    /**
+     * Removes a vector from the archive.
+     * @param i The vector's index. The last vector in the archive takes its index.
+     * @return The vector's value.
+     */
+    public T remove(int i) {
+        Entry e = this.entries.get(i);
+        removeEntry(e);
+        Node node = e.leaf;
+        node.points.remove(e);
+        while (node.isLeaf() ? node.points.isEmpty() : node.children.isEmpty()) {
+            if (node.parent == null) {
+                this.root = null;
+                break;
+            }
+            node.parent.children.remove(node);
+            node = node.parent;
+        }
+        return e.value;
+    }
+
+    /**
+     * Removes the vectors below a given node that are weakly dominated by a given vector.
+     * @param node The node.
+     * @param y The vector.
+     * @return True if the node was left empty, false otherwise.
+     */
+    private boolean removeDominated(Node node, double[] y) {
+        if (!weaklyDominates(y, node.nadir)) { return false; }
+        if (weaklyDominates(y, node.ideal)) {
+            removeAll(node);
+            return true;
+        }
+        if (node.isLeaf()) {
+            for (int i = node.points.size() - 1; i >= 0; --i) {
+                if (weaklyDominates(y, node.points.get(i).point)) {
+                    removeEntry(node.points.get(i));
+                    node.points.remove(i);
+                }
+            }
+            return node.points.isEmpty();
+        }
+        for (int i = node.children.size() - 1; i >= 0; --i) {
+            if (removeDominated(node.children.get(i), y)) {
+                node.children.remove(i);
+            }
+        }
+        return node.children.isEmpty();
+    }
+
+    private void removeAll(Node node) {
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.points.size(); ++i) {
+                removeEntry(node.points.get(i));
+            }
+            return;
+        }
+        for (int i = 0; i < node.children.size(); ++i) {
+            removeAll(node.children.get(i));
+        }
+    }
+
+    /**
+     * Removes an entry from the flat list by moving the last entry into its position.
+     * @param e The entry.
+     */
+    private void removeEntry(Entry e) {
+        Entry last = this.entries.remove(this.entries.size() - 1);
+        if (last != e) {
+            last.pos = e.pos;
+            this.entries.set(e.pos, last);
+        }
+    }
+
+    /**
+     * Splits a leaf into {@link #NCHILDREN} leaves. The first seed is the vector farthest, on average, from the
+     * others, each further seed is the vector farthest from the seeds chosen so far, and the remaining vectors
+     * go to the child with the closest midpoint.
+     * @param leaf The leaf.
+     */
+    private void split(Node leaf) {
+        List<Entry> points = leaf.points;
+        int n = points.size();
+        double[] min_d = new double[n];
+        int first = 0;
+        double first_d = -1.0;
+        for (int i = 0; i < n; ++i) {
+            double d = 0.0;
+            for (int j = 0; j < n; ++j) {
+                d += distance(points.get(i).point, points.get(j).point);
+            }
+            if (d > first_d) {
+                first = i;
+                first_d = d;
+            }
+        }
+        boolean[] seeded = new boolean[n];
+        List<Node> children = new ArrayList<Node>(NCHILDREN);
+        int seed = first;
+        for (int c = 0; c < NCHILDREN; ++c) {
+            seeded[seed] = true;
+            Node child = new Node(points.get(seed).point);
+            child.parent = leaf;
+            child.points = new ArrayList<Entry>();
+            child.points.add(points.get(seed));
+            points.get(seed).leaf = child;
+            children.add(child);
+            int next = -1;
+            for (int i = 0; i < n; ++i) {
+                if (seeded[i]) { continue; }
+                double d = distance(points.get(i).point, points.get(seed).point);
+                min_d[i] = c == 0 ? d : Math.min(min_d[i], d);
+                if (next < 0 || min_d[i] > min_d[next]) { next = i; }
+            }
+            if (next < 0) { break; }
+            seed = next;
+        }
+        for (int i = 0; i < n; ++i) {
+            if (seeded[i]) { continue; }
+            double[] y = points.get(i).point;
+            Node closest = children.get(0);
+            for (int c = 1; c < children.size(); ++c) {
+                if (children.get(c).distance(y) < closest.distance(y)) { closest = children.get(c); }
+            }
+            closest.extend(y);
+            closest.points.add(points.get(i));
+            points.get(i).leaf = closest;
+        }
+        leaf.points = null;
+        leaf.children = children;
+    }
+
+}
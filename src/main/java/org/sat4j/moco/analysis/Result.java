@@ -23,17 +23,23 @@
 package org.sat4j.moco.analysis;
 
 import org.moeaframework.core.*;
-import org.moeaframework.core.variable.EncodingUtils;
 import org.sat4j.moco.algorithm.ResultParetoCondition;
 import org.sat4j.moco.pb.PBSolver;
 import org.sat4j.moco.problem.Instance;
 import org.sat4j.moco.util.Clock;
 import org.sat4j.moco.util.Log;
 
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * Container class for the result of an execution of the MOCO solver.
  * Stores the nondominated solutions found by the solver and if that set of solutions is the Pareto front
  * of the MOCO instance.
+ * The solution set is an {@link NDTree} over the solutions' cost vectors, guarded by a read-write lock, so a
+ * single container can be shared by concurrent workers. The container can be bounded, in which case solutions
+ * with the smallest hypervolume contributions are evicted.
  * @author Miguel Terra-Neves
  */
 public class Result {
@@ -44,21 +50,53 @@ public class Result {
     private MOCOProblem problem;
 
     /**
-     * Stores the nondominated solutions found by the solver.
+     * Stores the nondominated solutions found by the solver, indexed by cost vector.
+     */
+    private NDTree<Solution> solutions = new NDTree<Solution>();
+
+    /**
+     * Guards {@link #solutions}. Dominance queries only need the read lock, so they run concurrently.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Stores the maximum number of solutions kept in the container, or 0 if it is unbounded.
+     */
+    private int capacity = 0;
+
+    /**
+     * Tracks the hypervolume contributions of the stored solutions if the container is bounded.
      */
-    private NondominatedPopulation solutions;
+    private HVContributions contributions = null;
+
+    /**
+     * Boolean value indicating if some nondominated solution was evicted to respect {@link #capacity}.
+     */
+    private volatile boolean truncated = false;
 
     /**
      * Boolean value indicating if the {@link #solutions} set is the Pareto front of the MOCO instance.
      */
-    private boolean is_opt = false;
+    private volatile boolean is_opt = false;
+
+    /**
+     * Boolean value indicating if each new nondominated solution is to be logged as it is stored.
+     */
+    private volatile boolean log_progress = true;
 
     private ResultParetoCondition tc;
 
+    /**
+     * Stores, for each thread, the number of solutions it added to the set of nondominated solutions.
+     */
+    private final ThreadLocal<long[]> thread_improvements = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() { return new long[1]; }
+    };
+
     // TODO: docstring
     Result(MOCOProblem problem) {
         this.problem = problem;
-        this.solutions = new NondominatedPopulation();
     }
     
     /**
@@ -67,7 +105,6 @@ public class Result {
      */
     public Result(Instance m) {
         this.problem = new MOCOProblem(m);
-        this.solutions = new NondominatedPopulation();
     }
 
     /**
@@ -77,56 +114,49 @@ public class Result {
     public Result(Instance m, boolean b, boolean b2) {
         this.tc = new ResultParetoCondition(this);
         this.problem = new MOCOProblem(m, b, b2, this);
-        this.solutions = new NondominatedPopulation();
     }
 
     /**
      * Extracts and stores the solution that corresponds to a model in a given PB solver.
      * @param solver The solver.
+     * @return True if the solution is feasible and not weakly dominated by the stored solutions, false
+     * otherwise.
      */
-    public void saveModel(PBSolver solver) {
-        Solution sol = this.problem.newSolution();
-        for (int lit = 1; lit <= sol.getNumberOfVariables(); ++lit) {
-            Variable var = sol.getVariable(lit-1);
-            EncodingUtils.setInt(var, (solver.modelValue(lit) ? 1 : 0));
-        }
-        this.problem.evaluate(sol);
-        if (!sol.violatesConstraints() && !isWeaklyDominated(sol, this.solutions)) {
-            this.solutions.add(sol);
-            Log.costs(sol.getObjectives());
-            Log.comment(1, ":elapsed " + Clock.instance().getElapsed() + " :front-size " + nSolutions());
+    public boolean saveModel(PBSolver solver) {
+        boolean[] a = new boolean[this.problem.getInitialNumberOfVariables()];
+        for (int lit = 1; lit <= a.length; ++lit) {
+            a[lit-1] = solver.modelValue(lit);
         }
+        return saveAssignment(a);
     }
 
     /**
-     * Checks if a given solution is weakly dominated by some other solution in a given population.
-     * @param sol The solution.
-     * @param pop The population.
-     * @return True if {@code sol} is weakly dominated by some solution in {@code pop}, false otherwise.
+     * Extracts and stores the solution that corresponds to a given assignment.
+     * @param a The assignment, where {@code a[i]} is the value of variable {@code i+1}.
+     * @return True if the solution is feasible and not weakly dominated by the stored solutions, false
+     * otherwise.
      */
-    private boolean isWeaklyDominated(Solution sol, Population pop) {
-        for (int i = 0; i < pop.size(); ++i) {
-            if (isWeaklyDominated(sol, pop.get(i))) {
-                return true;
-            }
-        }
-        return false;
+    public boolean saveAssignment(boolean[] a) {
+        Solution sol = this.problem.newSolution();
+        this.problem.setAssignment(sol, a);
+        this.problem.evaluate(sol);
+        return insert(sol, this.log_progress);
     }
 
     /**
-     * Checks if a given solution is weakly dominated by some other solution.
-     * @param sol The solution to check.
-     * @param other_sol The solution used for dominance check.
-     * @return True if {@code sol} is weakly dominated by {@code other_sol}, false otherwise.
+     * Checks if a given cost vector is weakly dominated by some stored solution.
+     * @param costs The cost vector.
+     * @return True if some stored solution is at least as good as {@code costs} on every objective, false
+     * otherwise.
      */
-    private boolean isWeaklyDominated(Solution sol, Solution other_sol) {
-        assert(!sol.violatesConstraints() && !other_sol.violatesConstraints());
-        for (int i = 0; i < other_sol.getNumberOfObjectives(); ++i) {
-            if (sol.getObjective(i) < other_sol.getObjective(i)) {
-                return false;
-            }
+    public boolean isWeaklyDominated(double[] costs) {
+        this.lock.readLock().lock();
+        try {
+            return this.solutions.isWeaklyDominated(costs);
+        }
+        finally {
+            this.lock.readLock().unlock();
         }
-        return true;
     }
 
     /**
@@ -135,41 +165,160 @@ public class Result {
      */
     public void setParetoFrontFound() { this.is_opt = true; }
 
+    /**
+     * Sets if each new nondominated solution is to be logged as it is stored.
+     * Containers for intermediate results, such as the fronts of sub-instances, should disable it.
+     * @param log True if new solutions are to be logged, false otherwise.
+     */
+    public void setLogProgress(boolean log) { this.log_progress = log; }
+
     /**
      * Checks if the set of nondominated solutions stored in the container is the Pareto front of the MOCO
      * instance.
      * @return True if the solution set is the Pareto front, false otherwise.
      */
-    public boolean isParetoFront() { return this.is_opt; }
+    public boolean isParetoFront() { return this.is_opt && !this.truncated; }
+
+    /**
+     * Bounds the number of solutions kept in the container. Once full, each new nondominated solution evicts
+     * the solution with the smallest hypervolume contribution, which may be the new one itself.
+     * Evicted solutions are forgotten, so solutions they dominate may be stored later.
+     * @param capacity The maximum number of solutions, or 0 for an unbounded container.
+     */
+    public void setCapacity(int capacity) {
+        this.lock.writeLock().lock();
+        try {
+            this.capacity = capacity;
+            this.contributions = capacity > 0 ? new HVContributions() : null;
+            truncate();
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
 
     /**
      * Retrieves the number of nondominated solutions in the container.
      * @return The number of nondominated solutions.
      */
-    public int nSolutions() { return this.solutions.size(); }
+    public int nSolutions() {
+        this.lock.readLock().lock();
+        try {
+            return this.solutions.size();
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
 
     /**
-     * Retrieves the nondominated solutions in the container.
+     * Retrieves a copy of the nondominated solutions in the container.
      * @return The nondominated solutions.
      */
-    NondominatedPopulation getSolutions() { return this.solutions; }
+    NondominatedPopulation getSolutions() {
+        this.lock.readLock().lock();
+        try {
+            NondominatedPopulation pop = new NondominatedPopulation();
+            for (int i = 0; i < this.solutions.size(); ++i) {
+                pop.add(this.solutions.get(i));
+            }
+            return pop;
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
 
     /**
      * Retrieves a given nondominated solution in the container.
      * @param i The solution index.
      * @return The {@code i}-th nondominated solution.
      */
-    Solution getSolution(int i) { return getSolutions().get(i); }
+    Solution getSolution(int i) {
+        this.lock.readLock().lock();
+        try {
+            return this.solutions.get(i);
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
 
     /**
      * Adds a solution to the container and updates the set of nondominated solutions.
-     * If the solution is dominated, it is discarded.
+     * If the solution is infeasible or weakly dominated, it is discarded.
      * If not, it is added to the set and now dominated solutions are discarded.
      * @param s The solution.
+     * @return True if the solution was added, false otherwise.
      */
-    public void addSolution(Solution s) { this.solutions.add(s); }
+    public boolean addSolution(Solution s) { return insert(s, false); }
 
-    public void removeSolutions() { this.solutions.clear(); }
+    /**
+     * Adds an evaluated solution to the set of nondominated solutions, unless it is infeasible or weakly
+     * dominated.
+     * Most candidates are rejected by a dominance check under the read lock, so only actual insertions are
+     * serialized.
+     * @param s The solution.
+     * @param log True if the solution is to be logged if added, false otherwise.
+     * @return True if the solution was added, false otherwise.
+     */
+    private boolean insert(Solution s, boolean log) {
+        if (s.violatesConstraints()) { return false; }
+        double[] costs = s.getObjectives();
+        if (isWeaklyDominated(costs)) { return false; }
+        this.lock.writeLock().lock();
+        try {
+            if (!this.solutions.add(costs, s)) { return false; }
+            if (this.contributions != null) {
+                this.contributions.update(this.solutions, costs);
+                if (truncate() == costs) { return false; }
+            }
+            this.thread_improvements.get()[0]++;
+            if (log) {
+                Log.costs(costs);
+                Log.comment(1, ":elapsed " + Clock.instance().getElapsed() + " :front-size " + this.solutions.size());
+            }
+            return true;
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evicts the solutions with the smallest hypervolume contributions until the container respects its
+     * capacity. The write lock must be held.
+     * @return The cost vector of the last evicted solution, or null if none was evicted.
+     */
+    private double[] truncate() {
+        double[] evicted = null;
+        while (this.capacity > 0 && this.solutions.size() > this.capacity) {
+            int i = this.contributions.selectVictim(this.solutions);
+            evicted = this.solutions.getPoint(i);
+            this.solutions.remove(i);
+            this.contributions.update(this.solutions, evicted);
+            this.truncated = true;
+        }
+        return evicted;
+    }
+
+    /**
+     * Retrieves the number of solutions that the current thread added to the set of nondominated solutions.
+     * Used to credit operators that store their results directly in the container.
+     * @return The number of solutions added by the current thread.
+     */
+    public long getThreadImprovements() { return this.thread_improvements.get()[0]; }
+
+    public void removeSolutions() {
+        this.lock.writeLock().lock();
+        try {
+            this.solutions.clear();
+            if (this.contributions != null) { this.contributions.clear(); }
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
 
     /**
      * Retrieves the assignment of a given nondominated solution in the container.
@@ -178,7 +327,25 @@ public class Result {
      */
     public boolean[] getAssignment(int i) {
         assert(i < nSolutions());
-        return this.problem.getAssignment(this.solutions.get(i));
+        return this.problem.getAssignment(getSolution(i));
+    }
+
+    /**
+     * Retrieves the assignment of a random nondominated solution in the container.
+     * @param rnd The PRNG used to pick the solution.
+     * @return The assignment, or null if the container is empty.
+     */
+    public boolean[] sampleAssignment(Random rnd) {
+        Solution sol;
+        this.lock.readLock().lock();
+        try {
+            if (this.solutions.size() == 0) { return null; }
+            sol = this.solutions.get(rnd.nextInt(this.solutions.size()));
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+        return this.problem.getAssignment(sol);
     }
 
     /**
@@ -187,13 +354,14 @@ public class Result {
      * @return The {@code i}-th nondominated solution's cost vector.
      */
     public double[] getCosts(int i) {
-        Solution sol = this.solutions.get(i);
-        assert(sol.getNumberOfObjectives() == this.problem.getNumberOfObjectives());
-        double[] c = new double[this.problem.getNumberOfObjectives()];
-        for (int j = 0; j < sol.getNumberOfObjectives(); ++j) {
-            c[j] = sol.getObjective(j);
+        this.lock.readLock().lock();
+        try {
+            assert(this.solutions.getPoint(i).length == this.problem.getNumberOfObjectives());
+            return this.solutions.getPoint(i).clone();
+        }
+        finally {
+            this.lock.readLock().unlock();
         }
-        return c;
     }
 
     public MOCOProblem getProblem() {
@@ -16,5 +16,27 @@ public class UnitPropagator extends PBSolverResolution {
         return this.trail;
     }
 
+    /**
+     * Assigns a literal at a new decision level and applies unit propagation.
+     * If propagation yields a conflict, the new decision level is undone.
+     * The literal must be unassigned and the root level must have been propagated.
+     * @param lit The literal, in DIMACS format.
+     * @return True if the literal was assigned without conflict, false otherwise.
+     */
+    public boolean probe(int lit) {
+        int level = decisionLevel();
+        if (!assume(lit > 0 ? 2*lit : 2*(-lit)+1) || propagate() != null) {
+            cancelUntil(level);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Undoes every decision level, leaving only the literals assigned by root level propagation.
+     */
+    public void backtrackToRoot() {
+        cancelUntil(0);
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.analysis;
+
+/**
+ * Set of the constraints violated by an assignment, kept up to date as the assignment changes.
+ * Moving to a new assignment flips the variables whose value changed, updating the scaled left-hand sides of
+ * the constraints in which they occur through {@link ConstraintIndex#getOccurrenceDeltas(int)}. Its cost is a
+ * scan of the assignment plus the occurrences of the changed variables, instead of the size of every
+ * constraint. Constraints that are not compiled are re-evaluated on every move. Not thread-safe.
+ */
+public class ViolationTracker {
+
+    /**
+     * Stores the occurrence index and compiled form of the constraints.
+     */
+    private ConstraintIndex index;
+
+    /**
+     * Stores the current assignment, where {@code a[v-1]} is the value of variable {@code v}, or null if none
+     * was loaded yet.
+     */
+    private boolean[] a = null;
+
+    /**
+     * Stores the scaled left-hand side of each compiled constraint under {@link #a}.
+     */
+    private long[] lhs;
+
+    /**
+     * Stores the violated constraints under {@link #a}, and the position of each constraint in that list
+     * (-1 if satisfied).
+     */
+    private int[] violated;
+    private int[] violated_pos;
+    private int nviolated = 0;
+
+    /**
+     * Stores the indexes of the constraints that are not compiled.
+     */
+    private int[] uncompiled;
+
+    /**
+     * Creates a tracker for the constraints in a given index.
+     * @param index The constraint index.
+     */
+    public ViolationTracker(ConstraintIndex index) {
+        this.index = index;
+        int n = index.nConstrs();
+        this.lhs = new long[n];
+        this.violated = new int[n];
+        this.violated_pos = new int[n];
+        int nuncompiled = 0;
+        for (int i = 0; i < n; ++i) {
+            if (!index.isCompiled(i)) { ++nuncompiled; }
+        }
+        this.uncompiled = new int[nuncompiled];
+        for (int i = 0, j = 0; i < n; ++i) {
+            if (!index.isCompiled(i)) { this.uncompiled[j++] = i; }
+        }
+    }
+
+    /**
+     * Moves to a given assignment, and recomputes the violated constraints from scratch.
+     * @param src The assignment, where {@code src[v-1]} is the value of variable {@code v}.
+     * @return The number of constraints violated by {@code src}.
+     */
+    public int load(boolean[] src) {
+        if (this.a == null || this.a.length != src.length) { this.a = new boolean[src.length]; }
+        System.arraycopy(src, 0, this.a, 0, src.length);
+        this.nviolated = 0;
+        for (int i = 0; i < this.lhs.length; ++i) {
+            this.violated_pos[i] = -1;
+            boolean sat;
+            if (this.index.isCompiled(i)) {
+                this.lhs[i] = this.index.lhs(i, this.a);
+                sat = this.index.isSatisfied(i, this.lhs[i]);
+            }
+            else {
+                sat = !this.index.isViolated(i, this.a);
+            }
+            if (!sat) { addViolated(i); }
+        }
+        return this.nviolated;
+    }
+
+    /**
+     * Moves to a given assignment, updating only the constraints in which the changed variables occur.
+     * @param src The assignment, where {@code src[v-1]} is the value of variable {@code v}.
+     * @return The number of constraints violated by {@code src}.
+     */
+    public int update(boolean[] src) {
+        if (this.a == null || this.a.length != src.length) { return load(src); }
+        for (int v = 1; v <= src.length; ++v) {
+            if (this.a[v-1] != src[v-1]) { flip(v); }
+        }
+        for (int k = 0; k < this.uncompiled.length; ++k) {
+            int c = this.uncompiled[k];
+            setViolated(c, this.index.isViolated(c, this.a));
+        }
+        return this.nviolated;
+    }
+
+    /**
+     * Retrieves the number of constraints violated by the current assignment.
+     * @return The number of violated constraints.
+     */
+    public int nViolated() { return this.nviolated; }
+
+    /**
+     * Retrieves the constraints violated by the current assignment, in no particular order.
+     * @return A buffer whose first {@link #nViolated()} positions hold the indexes of the violated constraints.
+     * Must not be modified.
+     */
+    public int[] getViolated() { return this.violated; }
+
+    /**
+     * Flips a variable in the current assignment, updating the compiled constraints in which it occurs.
+     * @param v The variable.
+     */
+    private void flip(int v) {
+        long sign = this.a[v-1] ? -1 : 1;
+        this.a[v-1] = !this.a[v-1];
+        int[] occurs = this.index.getOccurrences(v);
+        long[] deltas = this.index.getOccurrenceDeltas(v);
+        for (int k = 0; k < occurs.length; ++k) {
+            int c = occurs[k];
+            if (!this.index.isCompiled(c)) { continue; }
+            this.lhs[c] += sign * deltas[k];
+            setViolated(c, !this.index.isSatisfied(c, this.lhs[c]));
+        }
+    }
+
+    private void setViolated(int c, boolean violated) {
+        if (!violated && this.violated_pos[c] >= 0) { removeViolated(c); }
+        else if (violated && this.violated_pos[c] < 0) { addViolated(c); }
+    }
+
+    private void addViolated(int c) {
+        this.violated_pos[c] = this.nviolated;
+        this.violated[this.nviolated++] = c;
+    }
+
+    private void removeViolated(int c) {
+        int last = this.violated[--this.nviolated];
+        this.violated[this.violated_pos[c]] = last;
+        this.violated_pos[last] = this.violated_pos[c];
+        this.violated_pos[c] = -1;
+    }
+
+}
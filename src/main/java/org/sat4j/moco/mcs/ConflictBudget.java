@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.mcs;
+
+import java.util.Arrays;
+
+import org.sat4j.moco.Params;
+import org.sat4j.moco.util.Clock;
+import org.sat4j.moco.util.Log;
+
+/**
+ * Scheduler for the per-partition conflict limits used in stratified MCS extraction.
+ * Limits follow a fixed, Luby or geometric sequence, are capped by the conflicts the oracle is
+ * expected to perform in its fair share of the remaining time, and are scaled for each partition
+ * position based on past conflict timeouts and successful extractions at that position.
+ */
+public class ConflictBudget {
+
+    /**
+     * Name of the scheme that assigns the same conflict limit to every partition.
+     */
+    public static final String FIXED = "fixed";
+
+    /**
+     * Name of the scheme that assigns conflict limits following the Luby sequence.
+     */
+    public static final String LUBY = "luby";
+
+    /**
+     * Name of the scheme that doubles the conflict limit after each conflict timeout.
+     */
+    public static final String GEOM = "geom";
+
+    /**
+     * Divisor applied to the base conflict limit to obtain the unit of the Luby and geometric sequences.
+     */
+    private static final int UNIT_DIV = 8;
+
+    /**
+     * Smallest conflict limit ever assigned to a partition.
+     */
+    private static final int MIN_CONFL = 1000;
+
+    /**
+     * Bounds for the per-position scaling factors.
+     */
+    private static final double MIN_SCALE = 1.0 / 16;
+    private static final double MAX_SCALE = 16.0;
+
+    /**
+     * Smoothing factor for the conflict rate estimate.
+     */
+    private static final double RATE_ALPHA = 0.3;
+
+    /**
+     * Stores the name of the scheduling scheme in use.
+     */
+    private String scheme = FIXED;
+
+    /**
+     * Stores the base conflict limit (the partition maximum conflicts parameter).
+     */
+    private int base = 200000;
+
+    /**
+     * Stores the current position in the Luby or geometric sequence.
+     */
+    private int step = 0;
+
+    /**
+     * Stores an estimate of the number of conflicts per second performed by the oracle.
+     * A value smaller than 0 means that no estimate is available yet.
+     */
+    private double confl_rate = -1.0;
+
+    /**
+     * Stores the scaling factor learned for each partition position.
+     */
+    private double[] scale = new double[0];
+
+    /**
+     * Stores the number of conflict timeouts in a row observed for each partition position.
+     */
+    private int[] timeouts = new int[0];
+
+    /**
+     * Computes the {@code i}-th element (starting at 1) of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+     * @param i The element index.
+     * @return The {@code i}-th element of the Luby sequence.
+     */
+    static long luby(int i) {
+        assert(i >= 1);
+        int k = 1;
+        while (((1L << k) - 1) < i) { ++k; }
+        while (((1L << k) - 1) != i) {
+            i -= (int)((1L << (k-1)) - 1);
+            k = 1;
+            while (((1L << k) - 1) < i) { ++k; }
+        }
+        return 1L << (k-1);
+    }
+
+    /**
+     * Checks if the outcome of an MCS extraction should be recorded, i.e. if the extraction was not stopped
+     * by a conflict limit lower than the one assigned by the scheduler.
+     * @param limit The conflict limit assigned by the scheduler.
+     * @param effective The conflict limit actually set on the oracle.
+     * @param solved True if the extraction finished, false otherwise.
+     * @return True if the extraction's outcome should be recorded, false otherwise.
+     */
+    static boolean isBinding(int limit, int effective, boolean solved) {
+        return solved || effective >= limit;
+    }
+
+    /**
+     * Ensures that per-position statistics exist for a given partition position.
+     * @param pos The partition position.
+     */
+    private void ensure(int pos) {
+        if (pos >= this.scale.length) {
+            int old_len = this.scale.length;
+            this.scale = Arrays.copyOf(this.scale, Math.max(pos+1, 2*old_len));
+            this.timeouts = Arrays.copyOf(this.timeouts, this.scale.length);
+            Arrays.fill(this.scale, old_len, this.scale.length, 1.0);
+        }
+    }
+
+    /**
+     * Computes the conflict limit, before time capping and position scaling, given by the sequence of
+     * the scheduling scheme in use.
+     * @return The sequence's conflict limit.
+     */
+    private double sequenceLimit() {
+        if (this.scheme.equals(LUBY)) {
+            return (double)this.base / UNIT_DIV * luby(this.step+1);
+        }
+        else if (this.scheme.equals(GEOM)) {
+            return (double)this.base / UNIT_DIV * Math.pow(2.0, Math.min(this.step, 30));
+        }
+        return this.base;
+    }
+
+    /**
+     * Computes the conflict limit for the extraction of an MCS in a given partition.
+     * @param pos The position of the partition in the partition sequence.
+     * @param nleft The number of partitions left in the sequence, including the one at {@code pos}.
+     * @return The conflict limit.
+     */
+    public int nextLimit(int pos, int nleft) {
+        if (this.scheme.equals(FIXED)) { return this.base; }
+        ensure(pos);
+        double limit = sequenceLimit() * this.scale[pos];
+        if (Clock.instance().hasTimeout() && this.confl_rate > 0.0) {
+            double fair_share = this.confl_rate * Clock.instance().getRemaining() / Math.max(nleft, 1);
+            limit = Math.min(limit, fair_share);
+        }
+        return (int)Math.max(MIN_CONFL, Math.min(limit, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Updates the scheduler with the outcome of an MCS extraction in a given partition.
+     * @param pos The position of the partition in the partition sequence.
+     * @param limit The conflict limit assigned to the extraction.
+     * @param conflicts The number of conflicts spent in the extraction.
+     * @param time The time, in seconds, spent in the extraction.
+     * @param timed_out True if the extraction hit the conflict limit, false otherwise.
+     */
+    public void record(int pos, int limit, int conflicts, double time, boolean timed_out) {
+        if (time > 0.01 && conflicts > 0) {
+            double rate = conflicts / time;
+            this.confl_rate = this.confl_rate < 0.0 ? rate : RATE_ALPHA*rate + (1.0-RATE_ALPHA)*this.confl_rate;
+        }
+        if (this.scheme.equals(FIXED)) { return; }
+        ensure(pos);
+        if (timed_out) {
+            this.timeouts[pos]++;
+            if (this.timeouts[pos] > 1) {       // repeatedly hopeless, merge earlier next time
+                this.scale[pos] = Math.max(MIN_SCALE, this.scale[pos] * 0.5);
+            }
+            this.step++;
+        }
+        else {
+            this.timeouts[pos] = 0;
+            if (conflicts > limit / 2) {        // nearly ran out, be more generous next time
+                this.scale[pos] = Math.min(MAX_SCALE, this.scale[pos] * 1.5);
+            }
+            if (this.scheme.equals(GEOM)) { this.step = 0; }
+            else { this.step++; }
+        }
+        Log.comment(3, ":budget-pos " + pos + " :budget-scale " + this.scale[pos] +
+                       " :confl-rate " + this.confl_rate);
+    }
+
+    /**
+     * Sets the scheduler configuration to the one stored in a given set of parameters.
+     * @param p The parameters object.
+     */
+    public void updtParams(Params p) {
+        this.base = p.getPartMaxConfl();
+        this.scheme = p.getConflBudgetScheme();
+        if (!this.scheme.equals(LUBY) && !this.scheme.equals(GEOM)) {
+            this.scheme = FIXED;
+        }
+        Log.comment(":part-max-confl " + this.base);
+        Log.comment(":confl-budget " + this.scheme);
+    }
+
+}
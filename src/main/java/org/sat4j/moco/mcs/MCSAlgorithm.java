@@ -123,13 +123,13 @@ public abstract class MCSAlgorithm {
      * @param s The solver containing the model.
      */
     protected void newModel(PBSolver s) {
-        this.listener.onModel(s);
         if (this.model == null || this.model.length < s.nVars()) {
             this.model = new boolean[s.nVars()];
         }
         for (int x = 1; x <= s.nVars(); ++x) {
             this.model[x-1] = s.modelValue(x);
         }
+        this.listener.onModel(s);   // after storing the model, since listeners may add variables to s
     }
     
     /**
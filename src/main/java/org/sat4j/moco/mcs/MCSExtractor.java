@@ -64,12 +64,6 @@ public class MCSExtractor {
      */
     private ReadOnlyVecInt mss = null;
     
-    /**
-     * Stratified MCS extraction parameter that controls the maximum conflicts allowed before merging a
-     * partition with the next one.
-     */
-    private int part_max_confl = 200000;
-
 
     private int improve_max_confl = 0;
     
@@ -79,6 +73,11 @@ public class MCSExtractor {
      */
     private int trivial_thres = 20;
     
+    /**
+     * Scheduler that assigns the conflict limit of each partition in stratified MCS extraction.
+     */
+    private ConflictBudget budget = new ConflictBudget();
+    
     /**
      * Creates an instance of an MCS extractor.
      * @param s A PB solver, containing a hard formula, to be used as an oracle for the MCS algorithm.
@@ -145,7 +144,8 @@ public class MCSExtractor {
         int base_confl = solver.getConflicts();
         int confl_limit;
         for (int i = 0; i < undef_cpy.size(); ++i) {
-            confl_limit = this.part_max_confl;
+            int budget_limit = this.budget.nextLimit(i, undef_cpy.size() - i);
+            confl_limit = budget_limit;
             if (this.improve_max_confl > 0) {
                 confl_limit = Math.min(confl_limit, this.improve_max_confl - (solver.getConflicts() - base_confl));
             }
@@ -163,7 +163,15 @@ public class MCSExtractor {
             Log.comment(1, ":partition " + i + " :size " + part.size());
             if (i == undef_cpy.size()-1) { getSolver().resetMaxConflicts(); }
             if (i > 0 && (mcs.size() > 0 || mss.size() > 0)) { this.alg.enableExploitModel(); }
+            int confl_b4_extract = getSolver().getConflicts();
+            double time_b4_extract = Clock.instance().getElapsed();
             this.alg.extract(getSolver(), part, asms);
+            boolean capped = !ConflictBudget.isBinding(budget_limit, confl_limit, isSolved());    // stopped by the global cap
+            if (i < undef_cpy.size()-1 && !capped) {
+                this.budget.record(i, confl_limit, getSolver().getConflicts() - confl_b4_extract,
+                                   Clock.instance().getElapsed() - time_b4_extract,
+                                   !isSolved() && !Clock.instance().timedOut());
+            }
             if (isSolved() && foundMCS()) {
                 ReadOnlyVecInt part_mcs = this.alg.getMCS();
                 ReadOnlyVecInt part_mss = this.alg.getMSS();
@@ -255,10 +263,9 @@ public class MCSExtractor {
      * @param p The parameters object.
      */
     public void updtParams(Params p) {
-        this.part_max_confl = p.getPartMaxConfl();
         this.trivial_thres = p.getTrivialThres();
-        Log.comment(":part-max-confl " + this.part_max_confl);
         Log.comment(":trivial-thres " + this.trivial_thres);
+        this.budget.updtParams(p);
     }
 
     public void setImproveMaxConfl(int conflict){
@@ -70,6 +70,11 @@ public class PBSolver {
      */
     private Map<ConstrID, Integer> act_map = new HashMap<ConstrID, Integer>();
     
+    /**
+     * Stores mapping of selectable constraint IDs to corresponding selector literals.
+     */
+    private Map<ConstrID, Integer> sel_map = new HashMap<ConstrID, Integer>();
+    
     /**
      * Maximum conflicts allowed on a single call to {@link #check()} or {@link #check(IVecInt)}.
      * If {@code max_conflicts} is smaller than 0, then no conflict limit is imposed.
@@ -196,12 +201,41 @@ public class PBSolver {
     }
     
     /**
-     * Removes a PB constraint from the solver.
+     * Adds a selectable PB constraint to the PB solver.
+     * A selectable constraint is enforced only when its selector literal is true. Unlike the activators of
+     * removable constraints, selectors are not assumed on calls to {@link #check()} or {@link #check(IVecInt)},
+     * so the constraint only applies where other constraints force its selector.
+     * @param c The constraint.
+     * @return A constraint ID object that can be used to retrieve the selector through
+     * {@link #getSelector(ConstrID)}, and to remove the constraint through {@link #removeConstr(ConstrID)} or
+     * {@link #removeConstrs(IVec)}.
+     * @throws ContradictionException if the solver detects that the addition of {@code c} would cause the
+     * formula to become unsatisfiable.
+     */
+    public ConstrID addSelectableConstr(PBConstr c) throws ContradictionException {
+        int sel = addActivator(c);
+        ConstrID id = ConstrID.mkFresh();
+        this.sel_map.put(id, sel);
+        c.addToSolver(this.solver);
+        return id;
+    }
+    
+    /**
+     * Retrieves the selector literal of a selectable PB constraint.
+     * @param id The constraint's ID.
+     * @return The selector literal.
+     */
+    public int getSelector(ConstrID id) { return this.sel_map.get(id); }
+
+    /**
+     * Removes a removable or selectable PB constraint from the solver.
      * @param id The constraint's ID.
      */
     public void removeConstr(ConstrID id) {
-        int act = this.act_map.get(id);
-        this.act_map.remove(id);
+        Integer act = this.act_map.remove(id);
+        if (act == null) {
+            act = this.sel_map.remove(id);
+        }
         try {
             this.solver.addClause(new VecInt(new int[] { -act }));
         }
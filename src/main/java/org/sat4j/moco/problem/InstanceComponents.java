@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.problem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.sat4j.core.ReadOnlyVec;
+import org.sat4j.core.ReadOnlyVecInt;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.pb.PBConstr;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+/**
+ * Decomposition of a MOCO instance with linear objectives into independent sub-instances, one for each
+ * connected component of its constraint graph (variables are connected if they occur in the same
+ * constraint). Variables that occur only in objectives are grouped into a single component.
+ * Each sub-instance has its variables renumbered from 1 and keeps, for each objective, the terms over its
+ * variables, so the cost vector of a solution is the sum of the cost vectors of its restrictions to the
+ * components.
+ */
+public class InstanceComponents {
+
+    /**
+     * Stores the sub-instance of each component.
+     */
+    private List<Instance> subs = new ArrayList<Instance>();
+
+    /**
+     * Stores, for each component, the original variable of each of its variables, i.e., {@code vars.get(k)[i]}
+     * is the original variable of variable {@code i+1} in the {@code k}-th sub-instance.
+     */
+    private List<int[]> vars = new ArrayList<int[]>();
+
+    /**
+     * Checks if a given MOCO instance can be decomposed, i.e., if all its objectives are linear.
+     * @param m The instance.
+     * @return True if {@code m} can be decomposed, false otherwise.
+     */
+    public static boolean supports(Instance m) {
+        for (int i = 0; i < m.nObjs(); ++i) {
+            if (!(m.getObj(i) instanceof LinearObj)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the connected components of a given MOCO instance.
+     * @param m The instance. All its objectives must be linear.
+     */
+    public InstanceComponents(Instance m) {
+        assert(supports(m));
+        int n = m.nVars();
+        int[] parent = new int[n+1];
+        for (int v = 0; v <= n; ++v) { parent[v] = v; }
+        boolean[] constrained = new boolean[n+1];
+        for (int i = 0; i < m.nConstrs(); ++i) {
+            ReadOnlyVecInt lits = m.getConstr(i).getLits();
+            for (int j = 0; j < lits.size(); ++j) {
+                int v = Math.abs(lits.get(j));
+                constrained[v] = true;
+                if (j > 0) { union(parent, Math.abs(lits.get(0)), v); }
+            }
+        }
+        boolean[] in_obj = new boolean[n+1];
+        int free_root = -1;
+        for (int i = 0; i < m.nObjs(); ++i) {
+            ReadOnlyVecInt lits = ((LinearObj)m.getObj(i)).getLits();
+            for (int j = 0; j < lits.size(); ++j) {
+                int v = Math.abs(lits.get(j));
+                in_obj[v] = true;
+                if (!constrained[v]) {
+                    if (free_root < 0) { free_root = v; }
+                    union(parent, free_root, v);
+                }
+            }
+        }
+        int[] comp = new int[n+1];
+        int[] local = new int[n+1];
+        List<IVecInt> comp_vars = new ArrayList<IVecInt>();
+        int[] root_comp = new int[n+1];
+        Arrays.fill(root_comp, -1);
+        for (int v = 1; v <= n; ++v) {
+            if (!constrained[v] && !in_obj[v]) {
+                comp[v] = -1;                               // irrelevant variable
+                continue;
+            }
+            int r = find(parent, v);
+            if (root_comp[r] < 0) {
+                root_comp[r] = comp_vars.size();
+                comp_vars.add(new VecInt());
+            }
+            comp[v] = root_comp[r];
+            comp_vars.get(comp[v]).push(v);
+            local[v] = comp_vars.get(comp[v]).size();
+        }
+        for (int k = 0; k < comp_vars.size(); ++k) {
+            this.subs.add(new Instance());
+            int[] orig = new int[comp_vars.get(k).size()];
+            comp_vars.get(k).copyTo(orig);
+            this.vars.add(orig);
+        }
+        for (int i = 0; i < m.nConstrs(); ++i) {
+            PBConstr c = m.getConstr(i);
+            if (c.getLits().size() == 0) {                  // trivial constraint, keep it in the first component
+                if (!this.subs.isEmpty()) { this.subs.get(0).addConstr(c); }
+                continue;
+            }
+            int k = comp[Math.abs(c.getLits().get(0))];
+            this.subs.get(k).addConstr(
+                    PBFactory.instance().mkConstr(c.getOpStrRep(), remap(c.getLits(), local), copy(c.getCoeffs()),
+                                                  c.getRHS()));
+        }
+        for (int i = 0; i < m.nObjs(); ++i) {
+            LinearObj obj = (LinearObj)m.getObj(i);
+            List<IVecInt> lits = new ArrayList<IVecInt>();
+            List<IVec<Real>> coeffs = new ArrayList<IVec<Real>>();
+            for (int k = 0; k < this.subs.size(); ++k) {
+                lits.add(new VecInt());
+                coeffs.add(new Vec<Real>());
+            }
+            for (int j = 0; j < obj.getLits().size(); ++j) {
+                int lit = obj.getLits().get(j);
+                int v = Math.abs(lit);
+                lits.get(comp[v]).push(lit > 0 ? local[v] : -local[v]);
+                coeffs.get(comp[v]).push(obj.getCoeffs().get(j));
+            }
+            for (int k = 0; k < this.subs.size(); ++k) {
+                this.subs.get(k).addObj(new LinearObj(lits.get(k), coeffs.get(k)));
+            }
+        }
+    }
+
+    /**
+     * Finds the representative of a variable in a union-find forest, compressing paths along the way.
+     * @param parent The union-find forest.
+     * @param v The variable.
+     * @return The representative of {@code v}.
+     */
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Merges the sets of two variables in a union-find forest.
+     * @param parent The union-find forest.
+     * @param u A variable.
+     * @param v Another variable.
+     */
+    private static void union(int[] parent, int u, int v) {
+        int ru = find(parent, u), rv = find(parent, v);
+        if (ru != rv) { parent[rv] = ru; }
+    }
+
+    /**
+     * Renumbers the variables of a vector of literals.
+     * @param lits The literals.
+     * @param local The new number of each variable.
+     * @return The renumbered literals.
+     */
+    private static IVecInt remap(ReadOnlyVecInt lits, int[] local) {
+        IVecInt res = new VecInt(lits.size());
+        for (int j = 0; j < lits.size(); ++j) {
+            int lit = lits.get(j);
+            res.unsafePush(lit > 0 ? local[lit] : -local[-lit]);
+        }
+        return res;
+    }
+
+    /**
+     * Copies a vector of coefficients.
+     * @param coeffs The coefficients.
+     * @return The copy.
+     */
+    private static IVec<Real> copy(ReadOnlyVec<Real> coeffs) {
+        IVec<Real> res = new Vec<Real>(coeffs.size());
+        coeffs.copyTo(res);
+        return res;
+    }
+
+    /**
+     * Retrieves the number of components.
+     * @return The number of components.
+     */
+    public int size() { return this.subs.size(); }
+
+    /**
+     * Retrieves the sub-instance of a given component.
+     * @param k The component index.
+     * @return The {@code k}-th sub-instance.
+     */
+    public Instance getInstance(int k) { return this.subs.get(k); }
+
+    /**
+     * Checks if a given component has objective terms, i.e., if its solutions may have different costs.
+     * @param k The component index.
+     * @return True if the {@code k}-th sub-instance has objective terms, false otherwise.
+     */
+    public boolean hasObjTerms(int k) {
+        Instance sub = this.subs.get(k);
+        for (int i = 0; i < sub.nObjs(); ++i) {
+            if (((LinearObj)sub.getObj(i)).getLits().size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maps an assignment of a given component's sub-instance into an assignment of the original instance.
+     * @param k The component index.
+     * @param sub_a The assignment of the {@code k}-th sub-instance.
+     * @param a The assignment of the original instance to be updated.
+     */
+    public void lift(int k, boolean[] sub_a, boolean[] a) {
+        int[] orig = this.vars.get(k);
+        for (int i = 0; i < orig.length && i < sub_a.length; ++i) {
+            a[orig[i]-1] = sub_a[i];
+        }
+    }
+
+}
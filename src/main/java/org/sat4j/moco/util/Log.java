@@ -152,6 +152,10 @@ public class Log {
             s_str += "\nc Total smart mutations = " + total_mutation;
             s_str += "\nc Successful smart improvements = " + successful_improvement;
             s_str += "\nc Total smart improvements = " + total_improvement;
+            if (problem.getCoreCacheLookups() != 0) {
+                s_str += "\nc Core cache hits = " + problem.getCoreCacheHits() + " / " + problem.getCoreCacheLookups();
+                s_str += "\nc SAT calls saved by core cache = " + problem.getSavedSATCalls();
+            }
             write(0, s_str);
         }
     }
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.sat4j.moco.algorithm.BiObjectiveDichotomic;
+import org.sat4j.moco.algorithm.ComponentDecomposition;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.problem.Instance;
+
+public class BiObjectiveDichotomicTest extends ExactAlgorithmTest {
+
+    @Override
+    protected Result solve(Instance m) {
+        BiObjectiveDichotomic solver = new BiObjectiveDichotomic(m);
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    @Test
+    @Override
+    public void testSingleObjective() {
+        assertFalse(BiObjectiveDichotomic.supports(this.moco));
+        addOtherObj();
+        assertTrue(BiObjectiveDichotomic.supports(this.moco));
+    }
+    
+    /**
+     * Solves a given instance through component decomposition with DICHO selected, which falls back to GIA on
+     * components that are not bi-objective.
+     */
+    private static Result solveDecomposed(Instance m) {
+        ComponentDecomposition solver = new ComponentDecomposition(m);
+        solver.updtParams(parseParams("-alg", "DICHO", "-nt", "1"));
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    @Test
+    public void testFallbackSingleObjective() {
+        Result result = solveDecomposed(this.moco);
+        assertTrue(result.isParetoFront());
+        assertEquals(1, result.nSolutions());
+        assertTrue(hasCosts(result, new double[] { 1.0 }));
+    }
+    
+    @Test
+    public void testFallbackTriObjective() {
+        double[][] costs = new double[][] { { 0.0, 8.0, 1.0 }, { 1.0, 7.0, 2.0 }, { 2.0, 4.0, 0.0 }, { 6.0, 0.0, 3.0 } };
+        Instance m = mkChoiceInstance(costs);
+        assertFalse(BiObjectiveDichotomic.supports(m));
+        Result result = solveDecomposed(m);
+        assertTrue(result.isParetoFront());
+        assertEquals(costs.length, result.nSolutions());
+        for (int j = 0; j < costs.length; ++j) {
+            assertTrue(hasCosts(result, costs[j]));
+        }
+    }
+    
+}
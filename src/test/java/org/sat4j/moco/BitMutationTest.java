@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.variable.BinaryVariable;
+import org.sat4j.moco.algorithm.BitMutation;
+
+public class BitMutationTest {
+
+    private static final int NBITS = 10000;
+
+    private Solution parent;
+    
+    @Before
+    public void setUp() {
+        PRNG.setSeed(5);
+        this.parent = new Solution(1, 2);
+        BinaryVariable genes = new BinaryVariable(NBITS);
+        genes.randomize();
+        this.parent.setVariable(0, genes);
+    }
+    
+    private int nChanged(Solution child) {
+        BinaryVariable p = (BinaryVariable)this.parent.getVariable(0), c = (BinaryVariable)child.getVariable(0);
+        assertEquals(p.getNumberOfBits(), c.getNumberOfBits());
+        int n = 0;
+        for (int i = 0; i < p.getNumberOfBits(); ++i) {
+            if (p.get(i) != c.get(i)) { ++n; }
+        }
+        return n;
+    }
+    
+    @Test
+    public void testZeroProbability() {
+        Solution[] parents = new Solution[] { this.parent };
+        assertTrue(new BitMutation(0.0, false).evolve(parents)[0] == this.parent);
+        assertTrue(new BitMutation(0.0, true).evolve(parents)[0] == this.parent);
+    }
+    
+    @Test
+    public void testEmptyGenome() {
+        Solution empty = new Solution(1, 2);
+        empty.setVariable(0, new BinaryVariable(0));
+        assertTrue(new BitMutation(1.0, true).evolve(new Solution[] { empty })[0] == empty);
+    }
+    
+    @Test
+    public void testSinglePoint() {
+        BitMutation mutation = new BitMutation(1.0, false);
+        int nchanged = 0;
+        for (int n = 0; n < 1000; ++n) {
+            Solution child = mutation.evolve(new Solution[] { this.parent })[0];
+            assertTrue(child != this.parent);
+            int changed = nChanged(child);
+            assertTrue(changed <= 1);
+            nchanged += changed;
+        }
+        assertTrue(nchanged > 400 && nchanged < 600);
+    }
+    
+    @Test
+    public void testUniform() {
+        BitMutation mutation = new BitMutation(0.1, true);
+        int nchanged = 0;
+        for (int n = 0; n < 100; ++n) {
+            nchanged += nChanged(mutation.evolve(new Solution[] { this.parent })[0]);
+        }
+        // each bit is mutated with probability 0.1 and changes with probability 0.5 when mutated
+        assertTrue(Math.abs(nchanged / 100.0 - NBITS * 0.05) < NBITS * 0.005);
+    }
+    
+    @Test
+    public void testUniformCertain() {
+        BitMutation mutation = new BitMutation(1.0, true);
+        int changed = nChanged(mutation.evolve(new Solution[] { this.parent })[0]);
+        assertTrue(Math.abs(changed - NBITS * 0.5) < NBITS * 0.05);
+    }
+    
+    @Test
+    public void testParentUnchanged() {
+        BinaryVariable before = ((BinaryVariable)this.parent.getVariable(0)).copy();
+        new BitMutation(0.5, true).evolve(new Solution[] { this.parent });
+        new BitMutation(1.0, false).evolve(new Solution[] { this.parent });
+        assertEquals(before.getBitSet(), ((BinaryVariable)this.parent.getVariable(0)).getBitSet());
+    }
+    
+}
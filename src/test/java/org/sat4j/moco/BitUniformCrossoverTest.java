@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.variable.BinaryVariable;
+import org.sat4j.moco.algorithm.BitUniformCrossover;
+
+public class BitUniformCrossoverTest {
+
+    private static final int NBITS = 1000;
+
+    private Solution[] parents;
+    
+    @Before
+    public void setUp() {
+        PRNG.setSeed(9);
+        this.parents = new Solution[2];
+        for (int i = 0; i < 2; ++i) {
+            this.parents[i] = new Solution(1, 2);
+            BinaryVariable genes = new BinaryVariable(NBITS);
+            genes.randomize();
+            this.parents[i].setVariable(0, genes);
+        }
+    }
+    
+    private static BinaryVariable genes(Solution s) { return (BinaryVariable)s.getVariable(0); }
+    
+    @Test
+    public void testZeroProbability() {
+        Solution[] children = new BitUniformCrossover(0.0).evolve(this.parents);
+        assertEquals(2, children.length);
+        for (int i = 0; i < 2; ++i) {
+            assertTrue(children[i] != this.parents[i]);
+            assertEquals(genes(this.parents[i]).getBitSet(), genes(children[i]).getBitSet());
+        }
+    }
+    
+    @Test
+    public void testExchangesDifferingBits() {
+        BitSet p1 = genes(this.parents[0]).getBitSet(), p2 = genes(this.parents[1]).getBitSet();
+        BitUniformCrossover crossover = new BitUniformCrossover(1.0);
+        int nswapped = 0, ndiffering = 0;
+        for (int n = 0; n < 100; ++n) {
+            Solution[] children = crossover.evolve(this.parents);
+            BinaryVariable c1 = genes(children[0]), c2 = genes(children[1]);
+            for (int i = 0; i < NBITS; ++i) {
+                if (p1.get(i) == p2.get(i)) {
+                    assertEquals(p1.get(i), c1.get(i));
+                    assertEquals(p1.get(i), c2.get(i));
+                }
+                else {
+                    assertTrue(c1.get(i) != c2.get(i));
+                    ++ndiffering;
+                    if (c1.get(i) != p1.get(i)) { ++nswapped; }
+                }
+            }
+        }
+        assertTrue(Math.abs(nswapped - ndiffering * 0.5) < ndiffering * 0.05);
+        assertEquals(p1, genes(this.parents[0]).getBitSet());
+        assertEquals(p2, genes(this.parents[1]).getBitSet());
+    }
+    
+    @Test
+    public void testIdenticalParents() {
+        this.parents[1] = this.parents[0].copy();
+        Solution[] children = new BitUniformCrossover(1.0).evolve(this.parents);
+        assertEquals(genes(this.parents[0]).getBitSet(), genes(children[0]).getBitSet());
+        assertEquals(genes(this.parents[0]).getBitSet(), genes(children[1]).getBitSet());
+    }
+    
+}
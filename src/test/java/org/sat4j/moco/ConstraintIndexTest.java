@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.analysis.ConstraintIndex;
+import org.sat4j.moco.analysis.ViolationTracker;
+import org.sat4j.moco.pb.PBConstr;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Real;
+
+public class ConstraintIndexTest {
+
+    private static final double EPS = 1e-9;
+    private static final String HUGE = "1000000000000000000000000000000";
+
+    private Instance moco;
+    
+    @Before
+    public void setUp() {
+        this.moco = new Instance();
+        // 1.5 x1 + 2.25 ~x2 <= 2.5
+        this.moco.addConstr(PBFactory.instance().mkLE(new VecInt(new int[] { 1, -2 }),
+                                                      new Vec<Real>(new Real[] { new Real("1.5"), new Real("2.25") }),
+                                                      new Real("2.5")));
+        // -0.5 x1 + x3 >= 0.5
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 3 }),
+                                                      new Vec<Real>(new Real[] { new Real("-0.5"), Real.ONE }),
+                                                      new Real("0.5")));
+        // x1 + ~x3 = 1
+        this.moco.addConstr(PBFactory.instance().mkEQ(new VecInt(new int[] { 1, -3 }), 1));
+    }
+    
+    private void addHugeConstr() {
+        // 10^30 ~x1 + x2 >= 10^30
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { -1, 2 }),
+                                                      new Vec<Real>(new Real[] { new Real(HUGE), Real.ONE }),
+                                                      new Real(HUGE)));
+    }
+    
+    private static boolean[] assignment(int a) {
+        return new boolean[] { (a & 1) != 0, (a & 2) != 0, (a & 4) != 0 };
+    }
+    
+    @Test
+    public void testLE() {
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        assertTrue(index.isCompiled());
+        boolean[] a = new boolean[] { true, false, false };
+        assertEquals(375, index.lhs(0, a));
+        assertFalse(index.isSatisfied(0, index.lhs(0, a)));
+        assertEquals(1.25, index.violation(0, a), EPS);
+        a = new boolean[] { true, true, false };
+        assertEquals(150, index.lhs(0, a));
+        assertTrue(index.isSatisfied(0, index.lhs(0, a)));
+        assertEquals(0.0, index.violation(0, a), EPS);
+        a = new boolean[] { false, false, false };
+        assertEquals(225, index.lhs(0, a));
+        assertEquals(0.0, index.violation(0, a), EPS);
+    }
+    
+    @Test
+    public void testGE() {
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        boolean[] a = new boolean[] { true, false, false };
+        assertEquals(-5, index.lhs(1, a));
+        assertEquals(1.0, index.violation(1, a), EPS);
+        a = new boolean[] { false, false, false };
+        assertEquals(0, index.lhs(1, a));
+        assertEquals(0.5, index.violation(1, a), EPS);
+        a = new boolean[] { true, false, true };
+        assertEquals(5, index.lhs(1, a));
+        assertTrue(index.isSatisfied(1, index.lhs(1, a)));
+        assertEquals(0.0, index.violation(1, a), EPS);
+    }
+    
+    @Test
+    public void testEQ() {
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        boolean[] a = new boolean[] { true, false, false };
+        assertEquals(2, index.lhs(2, a));
+        assertEquals(1.0, index.violation(2, a), EPS);
+        a = new boolean[] { false, false, true };
+        assertEquals(0, index.lhs(2, a));
+        assertEquals(1.0, index.violation(2, a), EPS);
+        a = new boolean[] { true, false, true };
+        assertEquals(1, index.lhs(2, a));
+        assertTrue(index.isSatisfied(2, index.lhs(2, a)));
+        assertFalse(index.isViolated(2, a));
+    }
+    
+    @Test
+    public void testOccurrences() {
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        assertEquals(3, index.getOccurrences(1).length);
+        assertEquals(150, index.getOccurrenceDeltas(1)[0]);
+        assertEquals(-5, index.getOccurrenceDeltas(1)[1]);
+        assertEquals(1, index.getOccurrenceDeltas(1)[2]);
+        assertEquals(1, index.getOccurrences(2).length);
+        assertEquals(-225, index.getOccurrenceDeltas(2)[0]);
+        assertEquals(2, index.getOccurrences(3).length);
+        assertEquals(10, index.getOccurrenceDeltas(3)[0]);
+        assertEquals(-1, index.getOccurrenceDeltas(3)[1]);
+    }
+    
+    @Test
+    public void testUncompiled() {
+        addHugeConstr();
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        assertFalse(index.isCompiled());
+        assertEquals(1e30, index.violation(3, new boolean[] { true, false, false }), 1e15);
+        assertEquals(0.0, index.violation(3, new boolean[] { false, false, false }), EPS);
+        assertEquals(0, index.getOccurrenceDeltas(2)[1]);
+    }
+    
+    @Test
+    public void testAgainstRealArithmetic() {
+        addHugeConstr();
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        int[] expected_violated = new int[index.nConstrs()], out = new int[index.nConstrs()];
+        for (int a = 0; a < 8; ++a) {
+            boolean[] assignment = assignment(a);
+            int nviolated = 0;
+            for (int i = 0; i < this.moco.nConstrs(); ++i) {
+                PBConstr c = this.moco.getConstr(i);
+                Real lhs = c.getLHS().evaluate(assignment);
+                double expected = c.violatedBy(lhs) ? c.getRHS().subtract(lhs).abs().asDouble() : 0.0;
+                assertEquals(expected, index.violation(i, assignment), EPS * Math.max(1.0, expected));
+                assertEquals(c.violatedBy(lhs), index.isViolated(i, assignment));
+                if (c.violatedBy(lhs)) { expected_violated[nviolated++] = i; }
+            }
+            assertEquals(nviolated, index.violated(assignment, out));
+            for (int i = 0; i < nviolated; ++i) {
+                assertEquals(expected_violated[i], out[i]);
+            }
+        }
+    }
+    
+    /**
+     * Moves a tracker through random assignments, checking its violated constraints against a full scan.
+     */
+    private void checkTracker(ConstraintIndex index) {
+        ViolationTracker tracker = new ViolationTracker(index);
+        int[] expected = new int[index.nConstrs()];
+        Random rnd = new Random(5);
+        for (int k = 0; k < 100; ++k) {
+            boolean[] assignment = assignment(rnd.nextInt(8));
+            int nviolated = index.violated(assignment, expected);
+            assertEquals(nviolated, k % 10 == 0 ? tracker.load(assignment) : tracker.update(assignment));
+            assertEquals(nviolated, tracker.nViolated());
+            int[] violated = Arrays.copyOf(tracker.getViolated(), nviolated);
+            Arrays.sort(violated);
+            assertTrue(Arrays.equals(Arrays.copyOf(expected, nviolated), violated));
+        }
+    }
+    
+    @Test
+    public void testTracker() {
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        ViolationTracker tracker = new ViolationTracker(index);
+        assertEquals(3, tracker.update(new boolean[] { true, false, false }));
+        assertEquals(2, tracker.update(new boolean[] { true, true, false }));
+        assertEquals(1, tracker.update(new boolean[] { false, true, false }));
+        assertEquals(1, tracker.getViolated()[0]);
+        checkTracker(index);
+    }
+    
+    @Test
+    public void testTrackerUncompiled() {
+        addHugeConstr();
+        ConstraintIndex index = new ConstraintIndex(this.moco);
+        assertTrue(index.isCompiled(0));
+        assertFalse(index.isCompiled(3));
+        checkTracker(index);
+    }
+    
+}
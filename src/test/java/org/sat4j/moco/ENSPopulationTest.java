@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.moeaframework.core.FastNondominatedSorting;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.comparator.ParetoDominanceComparator;
+import org.sat4j.moco.algorithm.ENSPopulation;
+
+public class ENSPopulationTest {
+
+    private Random rand;
+    
+    @Before
+    public void setUp() {
+        this.rand = new Random(7);
+    }
+    
+    private Solution randomSolution(int nobjs, int ncons, int range) {
+        Solution s = new Solution(0, nobjs, ncons);
+        for (int i = 0; i < nobjs; ++i) {
+            s.setObjective(i, range > 0 ? this.rand.nextInt(range) : this.rand.nextDouble());
+        }
+        for (int i = 0; i < ncons; ++i) {
+            s.setConstraint(i, this.rand.nextInt(3) == 0 ? this.rand.nextInt(3) : 0.0);
+        }
+        return s;
+    }
+    
+    /**
+     * Ranks a random population with both sorts and compares the results. If {@code range} is 0, objective
+     * values are drawn from [0, 1) and crowding distances are compared as well. Otherwise, they are integers
+     * in [0, {@code range}), and crowding distances may differ where the extremes of an objective are tied.
+     */
+    private void checkAgainstFastNondominatedSorting(int nobjs, int ncons, int range, int size) {
+        ENSPopulation ens = new ENSPopulation();
+        Population ref = new Population();
+        for (int i = 0; i < size; ++i) {
+            Solution s = randomSolution(nobjs, ncons, range);
+            ens.add(s);
+            ref.add(s.copy());
+        }
+        ens.update();
+        new FastNondominatedSorting(new ParetoDominanceComparator()).evaluate(ref);
+        for (int i = 0; i < size; ++i) {
+            Solution s = ens.get(i), r = ref.get(i);
+            assertEquals(r.getAttribute(FastNondominatedSorting.RANK_ATTRIBUTE),
+                         s.getAttribute(FastNondominatedSorting.RANK_ATTRIBUTE));
+            if (range == 0) {
+                assertEquals((Double)r.getAttribute(FastNondominatedSorting.CROWDING_ATTRIBUTE),
+                             (Double)s.getAttribute(FastNondominatedSorting.CROWDING_ATTRIBUTE), 1e-9);
+            }
+        }
+    }
+    
+    @Test
+    public void testEmpty() {
+        ENSPopulation ens = new ENSPopulation();
+        ens.update();
+        assertEquals(0, ens.size());
+    }
+    
+    @Test
+    public void testBiObjective() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstFastNondominatedSorting(2, 0, 20, 60);
+        }
+    }
+    
+    @Test
+    public void testCrowdingDistances() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstFastNondominatedSorting(2, 0, 0, 60);
+            checkAgainstFastNondominatedSorting(3, 1, 0, 60);
+        }
+    }
+    
+    @Test
+    public void testManyObjectives() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstFastNondominatedSorting(4, 0, 5, 60);
+        }
+    }
+    
+    @Test
+    public void testDuplicates() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstFastNondominatedSorting(2, 0, 3, 30);
+        }
+    }
+    
+    @Test
+    public void testConstraintViolations() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstFastNondominatedSorting(3, 2, 10, 60);
+        }
+    }
+    
+}
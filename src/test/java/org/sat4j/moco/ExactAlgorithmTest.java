@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+
+/**
+ * Checks that an exact MOCO algorithm finds the Pareto front of small instances with known fronts.
+ * Subclasses choose the algorithm.
+ */
+public abstract class ExactAlgorithmTest {
+
+    /**
+     * Cost vectors of the items in the bi-objective choice instance. Every item is Pareto-optimal, (1, 7) is not
+     * supported and (4, 2) is only weakly supported.
+     */
+    protected static final double[][] CHOICE_FRONT = new double[][] {
+        { 0.0, 8.0 }, { 1.0, 7.0 }, { 2.0, 4.0 }, { 4.0, 2.0 }, { 6.0, 0.0 }
+    };
+
+    protected Instance moco;
+    protected LinearObj main_obj;
+    
+    /**
+     * Solves a given MOCO instance with the algorithm under test.
+     * @param m The instance.
+     * @return The result of the algorithm.
+     */
+    protected abstract Result solve(Instance m);
+    
+    /**
+     * Checks if the algorithm under test proves that the solutions it finds form the Pareto front.
+     * @return True if satisfiable instances are expected to be flagged as solved, false otherwise.
+     */
+    protected boolean provesFront() { return true; }
+    
+    /**
+     * Builds an instance where exactly one item must be chosen, and each objective is the cost of the chosen
+     * item. The solutions are the items, so every item whose cost vector is nondominated is Pareto-optimal.
+     * @param costs The cost vector of each item, where {@code costs[j]} is the cost vector of variable
+     * {@code j+1}.
+     * @return The instance.
+     */
+    protected static Instance mkChoiceInstance(double[][] costs) {
+        Instance m = new Instance();
+        int[] items = new int[costs.length];
+        for (int j = 0; j < items.length; ++j) {
+            items[j] = j+1;
+        }
+        m.addConstr(PBFactory.instance().mkEQ(new VecInt(items), 1));
+        for (int k = 0; k < costs[0].length; ++k) {
+            VecInt lits = new VecInt();
+            Vec<Real> coeffs = new Vec<Real>();
+            for (int j = 0; j < costs.length; ++j) {
+                if (costs[j][k] != 0.0) {
+                    lits.push(j+1);
+                    coeffs.push(new Real(costs[j][k]));
+                }
+            }
+            m.addObj(new LinearObj(lits, coeffs));
+        }
+        return m;
+    }
+    
+    /**
+     * Checks if a result has a solution with a given cost vector.
+     * @param result The result.
+     * @param costs The cost vector.
+     * @return True if some solution in {@code result} has cost vector {@code costs}, false otherwise.
+     */
+    protected static boolean hasCosts(Result result, double[] costs) {
+        for (int i = 0; i < result.nSolutions(); ++i) {
+            if (Arrays.equals(result.getCosts(i), costs)) { return true; }
+        }
+        return false;
+    }
+    
+    /**
+     * Builds a parameters object from given command line arguments.
+     * @param args The arguments.
+     * @return The parameters.
+     */
+    protected static Params parseParams(String... args) {
+        try {
+            return new Params(new DefaultParser().parse(Params.buildOpts(), args));
+        }
+        catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        this.moco = new Instance();
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        this.main_obj = new LinearObj(new VecInt(new int[] { 1, 2 }),
+                                      new Vec<Real>(new Real[] { new Real(2), Real.ONE }));
+        this.moco.addObj(this.main_obj);
+    }
+    
+    protected void addOtherObj() {
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { -2, 3 }),
+                                       new Vec<Real>(new Real[] { new Real(2), new Real(2) })));
+    }
+    
+    @Test
+    public void testSingleObjective() {
+        Result result = solve(this.moco);
+        assertEquals(provesFront(), result.isParetoFront());
+        assertEquals(1, result.nSolutions());
+        boolean[] solution = result.getAssignment(0);
+        assertEquals(3, solution.length);
+        assertFalse(solution[0]);
+        assertTrue(solution[1]);
+        assertTrue(solution[2]);
+        assertTrue(result.getCosts(0)[0] == 1.0);
+    }
+    
+    @Test
+    public void testUnsat() {
+        addOtherObj();
+        this.moco.addConstr(PBFactory.instance().mkLE(new VecInt(new int[] { 1, 2, 3 }), 1));
+        Result result = solve(this.moco);
+        assertTrue(result.isParetoFront());
+        assertEquals(0, result.nSolutions());
+    }
+    
+    @Test
+    public void testBiObjective() {
+        addOtherObj();
+        Result result = solve(this.moco);
+        assertEquals(provesFront(), result.isParetoFront());
+        assertEquals(2, result.nSolutions());
+        for (int i = 0; i < result.nSolutions(); ++i) {
+            double[] costs = result.getCosts(i);
+            boolean[] solution = result.getAssignment(i);
+            if (costs[0] == 1.0) {
+                assertTrue(costs[1] == 2.0);
+                assertTrue(!solution[0] && solution[1] && solution[2]);
+            }
+            else {
+                assertTrue(costs[0] == 3.0 && costs[1] == 0.0);
+                assertTrue(solution[0] && solution[1] && !solution[2]);
+            }
+        }
+    }
+    
+    @Test
+    public void testChoiceFront() {
+        Result result = solve(mkChoiceInstance(CHOICE_FRONT));
+        assertEquals(provesFront(), result.isParetoFront());
+        assertEquals(CHOICE_FRONT.length, result.nSolutions());
+        for (int i = 0; i < CHOICE_FRONT.length; ++i) {
+            assertTrue(hasCosts(result, CHOICE_FRONT[i]));
+        }
+    }
+    
+}
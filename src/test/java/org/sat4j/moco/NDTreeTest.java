@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.moco.analysis.NDTree;
+
+public class NDTreeTest {
+
+    private NDTree<Integer> tree;
+    private List<double[]> archive;
+    private Random rand;
+    
+    @Before
+    public void setUp() {
+        this.tree = new NDTree<Integer>();
+        this.archive = new ArrayList<double[]>();
+        this.rand = new Random(42);
+    }
+    
+    private static boolean weaklyDominates(double[] a, double[] b) {
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] > b[i]) { return false; }
+        }
+        return true;
+    }
+    
+    private boolean bruteIsWeaklyDominated(double[] y) {
+        for (int i = 0; i < this.archive.size(); ++i) {
+            if (weaklyDominates(this.archive.get(i), y)) { return true; }
+        }
+        return false;
+    }
+    
+    private boolean bruteAdd(double[] y) {
+        if (bruteIsWeaklyDominated(y)) { return false; }
+        for (int i = this.archive.size() - 1; i >= 0; --i) {
+            if (weaklyDominates(y, this.archive.get(i))) { this.archive.remove(i); }
+        }
+        this.archive.add(y);
+        return true;
+    }
+    
+    private double[] randomPoint(int nobjs, int range) {
+        double[] y = new double[nobjs];
+        for (int i = 0; i < nobjs; ++i) {
+            y[i] = this.rand.nextInt(range);
+        }
+        return y;
+    }
+    
+    /**
+     * Generates a point close to the hyperplane where the coordinates sum to {@code range}, so that most
+     * points are mutually nondominated and the tree grows large enough to split its leaves.
+     */
+    private double[] conflictingPoint(int nobjs, int range) {
+        double[] y = new double[nobjs];
+        double rest = range;
+        for (int i = 0; i < nobjs - 1; ++i) {
+            y[i] = this.rand.nextInt((int)rest + 1);
+            rest -= y[i];
+        }
+        y[nobjs-1] = rest + this.rand.nextInt(3);
+        return y;
+    }
+    
+    private void assertSameArchive() {
+        assertEquals(this.archive.size(), this.tree.size());
+        for (int i = 0; i < this.tree.size(); ++i) {
+            assertTrue(this.archive.contains(this.tree.getPoint(i)));
+            assertTrue(this.tree.get(i).intValue() == (int)this.tree.getPoint(i)[0]);
+        }
+    }
+    
+    private void checkRandomOperations(int nobjs, int range, int nops, boolean conflicting) {
+        for (int op = 0; op < nops; ++op) {
+            double[] y = conflicting ? conflictingPoint(nobjs, range) : randomPoint(nobjs, range);
+            if (this.tree.size() > 0 && this.rand.nextInt(4) == 0) {
+                int i = this.rand.nextInt(this.tree.size());
+                double[] removed = this.tree.getPoint(i);
+                assertTrue(this.tree.remove(i).intValue() == (int)removed[0]);
+                assertTrue(this.archive.remove(removed));
+            }
+            else {
+                assertEquals(bruteAdd(y), this.tree.add(y, Integer.valueOf((int)y[0])));
+            }
+            assertSameArchive();
+            double[] q = randomPoint(nobjs, range);
+            assertEquals(bruteIsWeaklyDominated(q), this.tree.isWeaklyDominated(q));
+        }
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertTrue(this.tree.size() == 0);
+        assertFalse(this.tree.isWeaklyDominated(new double[] { 0.0, 0.0 }));
+    }
+    
+    @Test
+    public void testDuplicateRejected() {
+        assertTrue(this.tree.add(new double[] { 1.0, 2.0 }, 1));
+        assertFalse(this.tree.add(new double[] { 1.0, 2.0 }, 1));
+        assertTrue(this.tree.isWeaklyDominated(new double[] { 1.0, 2.0 }));
+        assertTrue(this.tree.size() == 1);
+    }
+    
+    @Test
+    public void testDominatedRemoved() {
+        assertTrue(this.tree.add(new double[] { 3.0, 3.0 }, 3));
+        assertTrue(this.tree.add(new double[] { 1.0, 4.0 }, 1));
+        assertTrue(this.tree.add(new double[] { 2.0, 2.0 }, 2));
+        assertTrue(this.tree.size() == 2);
+        assertFalse(this.tree.isWeaklyDominated(new double[] { 0.0, 5.0 }));
+        assertTrue(this.tree.isWeaklyDominated(new double[] { 3.0, 3.0 }));
+    }
+    
+    @Test
+    public void testRemoveAll() {
+        assertTrue(this.tree.add(new double[] { 1.0, 2.0 }, 1));
+        assertTrue(this.tree.add(new double[] { 2.0, 1.0 }, 2));
+        this.tree.remove(0);
+        this.tree.remove(0);
+        assertTrue(this.tree.size() == 0);
+        assertFalse(this.tree.isWeaklyDominated(new double[] { 5.0, 5.0 }));
+        assertTrue(this.tree.add(new double[] { 5.0, 5.0 }, 5));
+    }
+    
+    @Test
+    public void testBiObjectiveAgainstBruteForce() {
+        checkRandomOperations(2, 1000, 3000, false);
+    }
+    
+    @Test
+    public void testManyObjectivesAgainstBruteForce() {
+        checkRandomOperations(4, 20, 3000, false);
+    }
+    
+    @Test
+    public void testLargeFrontAgainstBruteForce() {
+        checkRandomOperations(3, 100, 3000, true);
+        assertTrue(this.tree.size() > 100);
+    }
+    
+    @Test
+    public void testClear() {
+        checkRandomOperations(3, 50, 200, false);
+        this.tree.clear();
+        this.archive.clear();
+        assertSameArchive();
+        checkRandomOperations(3, 50, 200, false);
+    }
+    
+}
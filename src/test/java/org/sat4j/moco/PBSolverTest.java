@@ -137,4 +137,23 @@ public class PBSolverTest {
         assertTrue(this.solver.isSolved() && !this.solver.isSat() && this.solver.isUnsat());
     }
     
+    @Test
+    public void testSelectable() throws ContradictionException {
+        ConstrID id1 = this.solver.addSelectableConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2 }), 2));
+        ConstrID id2 = this.solver.addSelectableConstr(PBFactory.instance().mkGE(new VecInt(new int[] { -1, -2 }), 2));
+        this.solver.check();
+        assertTrue(this.solver.isSolved() && this.solver.isSat());
+        // selectors are not assumed, so incompatible selectable constraints only conflict when both are forced
+        this.solver.addConstr(PBFactory.instance().mkClause(new VecInt(new int[] { this.solver.getSelector(id1),
+                                                                                    this.solver.getSelector(id2) })));
+        this.solver.check();
+        assertTrue(this.solver.isSolved() && this.solver.isSat());
+        assertTrue(this.solver.modelValue(1) == this.solver.modelValue(2));
+        this.solver.removeConstr(id1);
+        this.solver.check();
+        assertTrue(this.solver.isSolved() && this.solver.isSat());
+        assertFalse(this.solver.modelValue(1));
+        assertFalse(this.solver.modelValue(2));
+    }
+    
 }
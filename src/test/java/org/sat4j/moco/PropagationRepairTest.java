@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.algorithm.PropagationRepair;
+import org.sat4j.moco.analysis.ConstraintIndex;
+import org.sat4j.moco.analysis.MOCOProblem;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+
+public class PropagationRepairTest {
+
+    private Instance moco;
+    
+    @Before
+    public void setUp() {
+        PRNG.setSeed(3);
+        this.moco = new Instance();
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        this.moco.addConstr(PBFactory.instance().mkLE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        this.moco.addConstr(PBFactory.instance().mkEQ(new VecInt(new int[] { 4, 5, 6 }), 1));
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { 1, 2, 4 }),
+                                       new Vec<Real>(new Real[] { new Real(2), Real.ONE, Real.ONE })));
+    }
+    
+    private static boolean[] assignment(int a) {
+        boolean[] values = new boolean[6];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (a & (1 << i)) != 0;
+        }
+        return values;
+    }
+    
+    private Solution mkSolution(MOCOProblem problem, boolean[] a) {
+        Solution s = problem.newSolution();
+        problem.setAssignment(s, a);
+        return s;
+    }
+    
+    @Test
+    public void testRepairsEveryAssignment() {
+        MOCOProblem problem = new MOCOProblem(this.moco, false, false, null);
+        ConstraintIndex index = problem.getConstraintIndex();
+        PropagationRepair repair = new PropagationRepair(1.0, problem);
+        int[] violated = new int[index.nConstrs()];
+        for (int a = 0; a < 64; ++a) {
+            Solution parent = mkSolution(problem, assignment(a));
+            Solution child = repair.evolve(new Solution[] { parent })[0];
+            assertEquals(0, index.violated(problem.getAssignment(child), violated));
+            if (index.violated(assignment(a), violated) > 0) {
+                assertTrue(child != parent);
+            }
+            else {
+                assertTrue(child == parent);
+            }
+        }
+    }
+    
+    @Test
+    public void testKeepsSatisfiedGroup() {
+        MOCOProblem problem = new MOCOProblem(this.moco, false, false, null);
+        PropagationRepair repair = new PropagationRepair(1.0, problem);
+        // only the second group is violated, and the first one is already satisfied
+        boolean[] a = new boolean[] { true, false, true, true, true, false };
+        boolean[] repaired = problem.getAssignment(repair.evolve(new Solution[] { mkSolution(problem, a) })[0]);
+        assertTrue(repaired[0] && !repaired[1] && repaired[2]);
+        assertTrue(repaired[3] != repaired[4]);
+        assertTrue(!repaired[5]);
+    }
+    
+    @Test
+    public void testZeroProbability() {
+        MOCOProblem problem = new MOCOProblem(this.moco, false, false, null);
+        PropagationRepair repair = new PropagationRepair(0.0, problem);
+        Solution parent = mkSolution(problem, assignment(0));
+        assertTrue(repair.evolve(new Solution[] { parent })[0] == parent);
+    }
+    
+}
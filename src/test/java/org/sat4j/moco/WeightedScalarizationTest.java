@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.sat4j.moco.algorithm.WeightedScalarization;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.problem.Instance;
+
+public class WeightedScalarizationTest extends ExactAlgorithmTest {
+
+    /**
+     * Cost vectors of the items in the tri-objective choice instance. The first four are supported, and the
+     * last one is dominated by the fourth.
+     */
+    private static final double[][] TRI_CHOICE = new double[][] {
+        { 0.0, 5.0, 5.0 }, { 5.0, 0.0, 5.0 }, { 5.0, 5.0, 0.0 }, { 2.0, 2.0, 2.0 }, { 3.0, 3.0, 3.0 }
+    };
+
+    private Params params = new Params();
+    
+    @Override
+    protected Result solve(Instance m) {
+        WeightedScalarization solver = new WeightedScalarization(m);
+        solver.updtParams(this.params);
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    @Override
+    protected boolean provesFront() { return false; }
+    
+    /**
+     * Checks that every solution in a given result has one of the first {@code n} cost vectors in a given
+     * set.
+     */
+    private static void assertCostsIn(Result result, double[][] costs, int n) {
+        for (int i = 0; i < result.nSolutions(); ++i) {
+            boolean found = false;
+            for (int j = 0; j < n; ++j) {
+                found = found || Arrays.equals(result.getCosts(i), costs[j]);
+            }
+            assertTrue(found);
+        }
+    }
+    
+    /**
+     * Dichotomic search finds every extreme supported point, but the non-supported point (1, 7) and the weakly
+     * supported point (4, 2) are only kept if the linear searches happen to pass through them.
+     */
+    @Test
+    @Override
+    public void testChoiceFront() {
+        Result result = solve(mkChoiceInstance(CHOICE_FRONT));
+        assertFalse(result.isParetoFront());
+        assertTrue(hasCosts(result, CHOICE_FRONT[0]));
+        assertTrue(hasCosts(result, CHOICE_FRONT[2]));
+        assertTrue(hasCosts(result, CHOICE_FRONT[4]));
+        assertCostsIn(result, CHOICE_FRONT, CHOICE_FRONT.length);
+    }
+    
+    @Test
+    public void testWeightGrid() {
+        Result result = solve(mkChoiceInstance(TRI_CHOICE));
+        assertFalse(result.isParetoFront());
+        for (int j = 0; j < 4; ++j) {
+            assertTrue(hasCosts(result, TRI_CHOICE[j]));
+        }
+        assertCostsIn(result, TRI_CHOICE, 4);
+    }
+    
+    @Test
+    public void testUnitWeights() {
+        // with a single division, only the unit weight vectors are used, and ties on the zero weights are
+        // broken by the unweighted sum
+        this.params = parseParams("-wd", "1");
+        Result result = solve(mkChoiceInstance(TRI_CHOICE));
+        for (int j = 0; j < 3; ++j) {
+            assertTrue(hasCosts(result, TRI_CHOICE[j]));
+        }
+        assertCostsIn(result, TRI_CHOICE, 4);
+    }
+    
+}
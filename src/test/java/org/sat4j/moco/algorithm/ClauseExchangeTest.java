@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.IVec;
+import org.sat4j.specs.IVecInt;
+
+public class ClauseExchangeTest {
+
+    private ClauseExchange exchange;
+    
+    @Before
+    public void setUp() {
+        this.exchange = new ClauseExchange();
+        this.exchange.publish(0, new VecInt(new int[] { 1, -2 }));
+        this.exchange.publish(1, new VecInt(new int[] { 2, 3 }));
+        this.exchange.publish(0, new VecInt(new int[] { -1, -3 }));
+    }
+    
+    private static boolean isClause(IVecInt clause, int... lits) {
+        if (clause.size() != lits.length) { return false; }
+        for (int i = 0; i < lits.length; ++i) {
+            if (clause.get(i) != lits[i]) { return false; }
+        }
+        return true;
+    }
+    
+    @Test
+    public void testFetchSkipsOwnClauses() {
+        assertEquals(3, this.exchange.size());
+        IVec<IVecInt> out = new Vec<IVecInt>();
+        assertEquals(3, this.exchange.fetch(0, 0, out));
+        assertEquals(1, out.size());
+        assertTrue(isClause(out.get(0), 2, 3));
+        out.clear();
+        assertEquals(3, this.exchange.fetch(1, 0, out));
+        assertEquals(2, out.size());
+        assertTrue(isClause(out.get(0), 1, -2));
+        assertTrue(isClause(out.get(1), -1, -3));
+    }
+    
+    @Test
+    public void testCursor() {
+        IVec<IVecInt> out = new Vec<IVecInt>();
+        int cursor = this.exchange.fetch(1, 0, out);
+        out.clear();
+        assertEquals(cursor, this.exchange.fetch(1, cursor, out));
+        assertEquals(0, out.size());
+        this.exchange.publish(0, new VecInt(new int[] { 3 }));
+        this.exchange.publish(1, new VecInt(new int[] { -3 }));
+        cursor = this.exchange.fetch(1, cursor, out);
+        assertEquals(5, cursor);
+        assertEquals(1, out.size());
+        assertTrue(isClause(out.get(0), 3));
+    }
+    
+    @Test
+    public void testLateWorker() {
+        // a worker that starts after every publication still receives all of them
+        IVec<IVecInt> out = new Vec<IVecInt>();
+        this.exchange.fetch(2, 0, out);
+        assertEquals(3, out.size());
+    }
+    
+    @Test
+    public void testPublishCopies() {
+        IVecInt clause = new VecInt(new int[] { 4, 5 });
+        this.exchange.publish(1, clause);
+        clause.set(0, -4);
+        clause.push(6);
+        IVec<IVecInt> out = new Vec<IVecInt>();
+        this.exchange.fetch(0, 3, out);
+        assertEquals(1, out.size());
+        assertTrue(isClause(out.get(0), 4, 5));
+    }
+    
+}
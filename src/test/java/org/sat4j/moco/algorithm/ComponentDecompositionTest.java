@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.algorithm.ComponentDecomposition.Combination;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+
+public class ComponentDecompositionTest {
+
+    private Instance moco;
+    private Random rand;
+    
+    @Before
+    public void setUp() {
+        this.moco = new Instance();
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 4, 5 }), 1));
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { 1, 2, 4, 5 }),
+                                       new Vec<Real>(new Real[] { new Real(2), Real.ONE, Real.ONE, new Real(3) })));
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { -2, 3, -4 }),
+                                       new Vec<Real>(new Real[] { new Real(2), new Real(2), new Real(2) })));
+        this.rand = new Random(11);
+    }
+    
+    private static Combination combination(double... costs) {
+        return new Combination(costs, new int[0]);
+    }
+    
+    private static boolean weaklyDominates(double[] a, double[] b) {
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] > b[i]) { return false; }
+        }
+        return true;
+    }
+    
+    private void checkAgainstBruteForce(int nobjs, int range, int size) {
+        List<Combination> sums = new ArrayList<Combination>();
+        List<double[]> costs = new ArrayList<double[]>();
+        for (int i = 0; i < size; ++i) {
+            double[] y = new double[nobjs];
+            for (int k = 0; k < nobjs; ++k) {
+                y[k] = this.rand.nextInt(range);
+            }
+            sums.add(combination(y));
+            costs.add(y);
+        }
+        List<Combination> kept = ComponentDecomposition.nondominated(sums);
+        List<double[]> kept_costs = new ArrayList<double[]>();
+        for (int i = 0; i < kept.size(); ++i) {
+            kept_costs.add(costs.get(sums.indexOf(kept.get(i))));
+        }
+        for (int i = 0; i < costs.size(); ++i) {
+            double[] y = costs.get(i);
+            boolean dominated = false, present = false;
+            for (int j = 0; j < costs.size(); ++j) {
+                dominated = dominated || (weaklyDominates(costs.get(j), y) && !Arrays.equals(costs.get(j), y));
+            }
+            for (int j = 0; j < kept_costs.size(); ++j) {
+                present = present || Arrays.equals(kept_costs.get(j), y);
+            }
+            assertEquals(!dominated, present);
+        }
+        for (int i = 0; i < kept_costs.size(); ++i) {
+            for (int j = i+1; j < kept_costs.size(); ++j) {
+                assertFalse(Arrays.equals(kept_costs.get(i), kept_costs.get(j)));
+            }
+        }
+    }
+    
+    @Test
+    public void testBiObjectiveFilter() {
+        Combination a = combination(1.0, 5.0), b = combination(2.0, 2.0), c = combination(2.0, 3.0);
+        Combination d = combination(1.0, 5.0), e = combination(4.0, 1.0), f = combination(5.0, 1.0);
+        List<Combination> kept = ComponentDecomposition.nondominated(Arrays.asList(c, f, a, e, d, b));
+        assertEquals(3, kept.size());
+        assertTrue(kept.get(0) == a || kept.get(0) == d);
+        assertTrue(kept.get(1) == b);
+        assertTrue(kept.get(2) == e);
+    }
+    
+    @Test
+    public void testTriObjectiveFilter() {
+        Combination a = combination(1.0, 2.0, 3.0), b = combination(1.0, 3.0, 2.0), c = combination(1.0, 3.0, 3.0);
+        Combination d = combination(2.0, 1.0, 1.0), e = combination(2.0, 1.0, 1.0);
+        List<Combination> kept = ComponentDecomposition.nondominated(Arrays.asList(e, c, b, a, d));
+        assertEquals(3, kept.size());
+        assertTrue(kept.contains(a));
+        assertTrue(kept.contains(b));
+        assertFalse(kept.contains(c));
+        assertTrue(kept.contains(d) != kept.contains(e));
+    }
+    
+    @Test
+    public void testFilterAgainstBruteForce() {
+        for (int n = 0; n < 50; ++n) {
+            checkAgainstBruteForce(2, 20, 100);
+            checkAgainstBruteForce(3, 8, 100);
+        }
+    }
+    
+    @Test
+    public void testSameFrontAsWholeInstance() {
+        assertTrue(ComponentDecomposition.supports(this.moco));
+        ComponentDecomposition solver = new ComponentDecomposition(this.moco);
+        solver.solve();
+        Result result = solver.getResult();
+        ParetoMCS reference = new ParetoMCS(this.moco);
+        reference.solve();
+        Result expected = reference.getResult();
+        assertTrue(result.isParetoFront());
+        assertEquals(expected.nSolutions(), result.nSolutions());
+        for (int i = 0; i < result.nSolutions(); ++i) {
+            boolean found = false;
+            for (int j = 0; j < expected.nSolutions(); ++j) {
+                found = found || Arrays.equals(expected.getCosts(j), result.getCosts(i));
+            }
+            assertTrue(found);
+        }
+    }
+    
+}
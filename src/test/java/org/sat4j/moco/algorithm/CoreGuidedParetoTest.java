@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.ExactAlgorithmTest;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+
+public class CoreGuidedParetoTest extends ExactAlgorithmTest {
+
+    @Override
+    protected Result solve(Instance m) {
+        CoreGuidedPareto solver = new CoreGuidedPareto(m);
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    @Test
+    public void testLowerBoundHit() {
+        // choosing the item with cost 0 satisfies every assumption, so no core is needed
+        CoreGuidedPareto solver = new CoreGuidedPareto(mkChoiceInstance(CHOICE_FRONT));
+        assertEquals(0.0, solver.minimize(0).asDouble(), 0.0);
+        assertEquals(0, solver.ncores);
+        assertEquals(1, solver.nlb_hits);
+    }
+    
+    @Test
+    public void testStratification() {
+        // 5 x1 + 3 x2 + x3 subject to x1 + x2 + x3 >= 2, where the expensive stratum {~x1, ~x2} alone is a core
+        Instance m = new Instance();
+        m.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        m.addObj(new LinearObj(new VecInt(new int[] { 1, 2, 3 }),
+                               new Vec<Real>(new Real[] { new Real(5), new Real(3), Real.ONE })));
+        CoreGuidedPareto solver = new CoreGuidedPareto(m);
+        Real[] bounds = solver.coreLowerBound(0);
+        assertEquals(3.0, bounds[0].asDouble(), 0.0);
+        assertEquals(1, solver.ncores);
+        assertEquals(4.0, solver.minimize(0).asDouble(), 0.0);
+        assertEquals(0, solver.nlb_hits);
+    }
+    
+    @Test
+    public void testNegativeCoefficients() {
+        // -2 x1 + x2 subject to x1 + x2 + x3 >= 2 has optimum -2, reached by the lower bound alone
+        Instance m = new Instance();
+        m.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        m.addObj(new LinearObj(new VecInt(new int[] { 1, 2 }), new Vec<Real>(new Real[] { new Real(-2), Real.ONE })));
+        CoreGuidedPareto solver = new CoreGuidedPareto(m);
+        assertEquals(-2.0, solver.minimize(0).asDouble(), 0.0);
+        assertEquals(0, solver.ncores);
+        assertEquals(1, solver.nlb_hits);
+    }
+    
+}
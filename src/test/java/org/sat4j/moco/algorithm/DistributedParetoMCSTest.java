@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.junit.Test;
+import org.sat4j.moco.ExactAlgorithmTest;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.problem.Instance;
+
+public class DistributedParetoMCSTest extends ExactAlgorithmTest {
+
+    /**
+     * Process that does nothing, standing in for a worker process.
+     */
+    private static class IdleProcess extends Process {
+        
+        public OutputStream getOutputStream() { return new ByteArrayOutputStream(); }
+        
+        public InputStream getInputStream() { return new ByteArrayInputStream(new byte[0]); }
+        
+        public InputStream getErrorStream() { return new ByteArrayInputStream(new byte[0]); }
+        
+        public int waitFor() { return 0; }
+        
+        public int exitValue() { throw new IllegalThreadStateException(); }
+        
+        public void destroy() {}
+        
+    }
+
+    @Override
+    protected Result solve(Instance m) {
+        String[] args;
+        try {
+            File f = File.createTempFile("moco", ".opb");
+            f.deleteOnExit();
+            Writer w = new FileWriter(f);
+            m.dump(w);
+            w.close();
+            args = new String[] { "-alg", "PMCSE", "-wp", "2", f.getPath() };
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        DistributedParetoMCS solver = new DistributedParetoMCS(m, args);
+        solver.updtParams(parseParams(args));
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    /**
+     * Creates a worker slot of a given coordinator that launches idle processes instead of worker processes.
+     */
+    private static DistributedParetoMCS.Slot mkSlot(DistributedParetoMCS solver) {
+        DistributedParetoMCS.Slot slot = solver.new Slot(0) {
+            @Override
+            void launch(int port) { this.process = new IdleProcess(); }
+        };
+        solver.slots = new DistributedParetoMCS.Slot[] { slot };
+        return slot;
+    }
+    
+    @Test
+    public void testRestart() throws IOException {
+        Instance m = mkChoiceInstance(CHOICE_FRONT);
+        DistributedParetoMCS solver = new DistributedParetoMCS(m, new String[0]);
+        solver.pending.addAll(Subspace.cubes(m, 2));
+        solver.nleft = solver.pending.size();
+        DistributedParetoMCS.Slot slot = mkSlot(solver);
+        slot.launch(0);
+        Subspace task = solver.pending.removeFirst();
+        slot.task = task;
+        Process first = slot.process;
+        slot.fail(first);
+        // the subspace is handed back first in line, and the process is replaced
+        assertNull(slot.task);
+        assertEquals(2, solver.pending.size());
+        assertTrue(solver.pending.getFirst() == task);
+        assertEquals(1, slot.restarts);
+        assertNotNull(slot.process);
+        assertFalse(slot.process == first);
+        // late failure reports of the replaced process are ignored
+        slot.fail(first);
+        assertEquals(1, slot.restarts);
+        assertFalse(solver.finished());
+        for (int i = 1; i <= DistributedParetoMCS.MAX_RESTARTS; ++i) {
+            slot.fail(slot.process);
+        }
+        assertEquals(DistributedParetoMCS.MAX_RESTARTS + 1, slot.restarts);
+        assertNull(slot.process);
+        assertTrue(solver.finished());
+    }
+    
+    @Test
+    public void testNoRestartWhenFinished() throws IOException {
+        Instance m = mkChoiceInstance(CHOICE_FRONT);
+        DistributedParetoMCS solver = new DistributedParetoMCS(m, new String[0]);
+        DistributedParetoMCS.Slot slot = mkSlot(solver);
+        slot.launch(0);
+        slot.fail(slot.process);
+        assertEquals(0, slot.restarts);
+        assertNull(slot.process);
+        assertTrue(solver.finished());
+    }
+    
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.ExactAlgorithmTest;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.util.Real;
+
+public class GuidedImprovementTest extends ExactAlgorithmTest {
+
+    @Override
+    protected Result solve(Instance m) {
+        GuidedImprovement solver = new GuidedImprovement(m);
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    @Test
+    public void testImproveOnSingleObjective() {
+        // with x1 fixed, the feasible points are (3, 0), (2, 4) and (3, 2), and the only move that improves
+        // (3, 2) keeps the first objective
+        addOtherObj();
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1 }), 1));
+        GuidedImprovement solver = new GuidedImprovement(this.moco);
+        Real[] point = solver.improveFrom(new VecInt(new int[] { 1, 2, 3 }));
+        assertEquals(3.0, point[0].asDouble(), 0.0);
+        assertEquals(0.0, point[1].asDouble(), 0.0);
+        Result result = solver.getResult();
+        assertEquals(1, result.nSolutions());
+        assertTrue(hasCosts(result, new double[] { 3.0, 0.0 }));
+    }
+    
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class MessageWriterTest {
+
+    private static final String NL = System.getProperty("line.separator");
+
+    /**
+     * Stream that blocks every write until it is opened.
+     */
+    private static class GateStream extends OutputStream {
+        
+        private CountDownLatch entered = new CountDownLatch(1);
+        private CountDownLatch open = new CountDownLatch(1);
+        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        private void pass() {
+            this.entered.countDown();
+            boolean interrupted = false;
+            while (this.open.getCount() > 0) {
+                try {
+                    this.open.await();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) { Thread.currentThread().interrupt(); }
+        }
+        
+        @Override
+        public void write(int b) {
+            pass();
+            synchronized (this.out) { this.out.write(b); }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            pass();
+            synchronized (this.out) { this.out.write(b, off, len); }
+        }
+        
+        String written() {
+            synchronized (this.out) { return new String(this.out.toByteArray()); }
+        }
+        
+    }
+    
+    @Test
+    public void testOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageWriter writer = new MessageWriter(out);
+        writer.send("TASK 0 1,-2 -");
+        writer.send("CLAUSE 1 -3");
+        writer.send("QUIT");
+        writer.close(5000);
+        assertEquals("TASK 0 1,-2 -" + NL + "CLAUSE 1 -3" + NL + "QUIT" + NL, new String(out.toByteArray(), "UTF-8"));
+    }
+    
+    @Test
+    public void testSendDoesNotBlock() throws Exception {
+        GateStream out = new GateStream();
+        MessageWriter writer = new MessageWriter(out);
+        writer.send("MODEL 1");
+        out.entered.await();
+        // the writer thread is stuck on the connection, but senders are not
+        for (int i = 0; i < 1000; ++i) {
+            writer.send("CLAUSE " + i);
+        }
+        out.open.countDown();
+        writer.close(5000);
+        assertEquals(1001, out.written().split(NL).length);
+    }
+    
+    @Test
+    public void testDiscard() throws Exception {
+        GateStream out = new GateStream();
+        MessageWriter writer = new MessageWriter(out);
+        writer.send("MODEL 1");
+        out.entered.await();
+        writer.send("MODEL 2");
+        writer.send("MODEL 3");
+        writer.discard();
+        out.open.countDown();
+        for (int i = 0; i < 50 && out.written().isEmpty(); ++i) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals("MODEL 1" + NL, out.written());
+    }
+    
+}
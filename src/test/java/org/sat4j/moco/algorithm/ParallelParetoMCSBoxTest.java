@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.sat4j.moco.ExactAlgorithmTest;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.problem.Instance;
+
+public class ParallelParetoMCSBoxTest extends ExactAlgorithmTest {
+
+    @Override
+    protected Result solve(Instance m) {
+        ParallelParetoMCS solver = new ParallelParetoMCS(m);
+        solver.updtParams(parseParams("-split", "box", "-nt", "2"));
+        solver.solve();
+        return solver.getResult();
+    }
+    
+    private static boolean[] item(int j) {
+        boolean[] a = new boolean[CHOICE_FRONT.length];
+        a[j] = true;
+        return a;
+    }
+    
+    @Test
+    public void testCancelDominated() {
+        Instance m = mkChoiceInstance(CHOICE_FRONT);
+        ParallelParetoMCS solver = new ParallelParetoMCS(m);
+        List<ParallelParetoMCS.SubspaceTask> tasks = new ArrayList<ParallelParetoMCS.SubspaceTask>();
+        List<Subspace> boxes = Subspace.boxes(m, 4);
+        for (int i = 0; i < boxes.size(); ++i) {
+            tasks.add(solver.new SubspaceTask(boxes.get(i)));
+        }
+        // the objectives range over [0, 13] and [0, 21], split in halves
+        assertEquals(4, tasks.size());
+        assertTrue(Arrays.equals(new double[] { 0.0, 0.0 }, boxes.get(0).getCorner()));
+        assertTrue(Arrays.equals(new double[] { 7.0, 0.0 }, boxes.get(1).getCorner()));
+        assertTrue(Arrays.equals(new double[] { 0.0, 11.0 }, boxes.get(2).getCorner()));
+        assertTrue(Arrays.equals(new double[] { 7.0, 11.0 }, boxes.get(3).getCorner()));
+        solver.cancelDominated(tasks);
+        for (int i = 0; i < tasks.size(); ++i) {
+            assertFalse(tasks.get(i).cancelled);
+        }
+        solver.getResult().saveAssignment(item(2));
+        solver.cancelDominated(tasks);
+        assertFalse(tasks.get(0).cancelled);
+        assertFalse(tasks.get(1).cancelled);
+        assertFalse(tasks.get(2).cancelled);
+        assertTrue(tasks.get(3).cancelled);
+        solver.getResult().saveAssignment(item(4));
+        solver.cancelDominated(tasks);
+        assertFalse(tasks.get(0).cancelled);
+        assertTrue(tasks.get(1).cancelled);
+        assertFalse(tasks.get(2).cancelled);
+        // a cancelled box is done without being enumerated
+        assertTrue(tasks.get(1).call());
+        assertTrue(tasks.get(3).call());
+    }
+    
+}
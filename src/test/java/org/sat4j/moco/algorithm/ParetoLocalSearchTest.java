@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.cli.DefaultParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.analysis.Result;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+
+public class ParetoLocalSearchTest {
+
+    /**
+     * Cost vectors of the items in the choice instance, all Pareto-optimal.
+     */
+    private static final double[][] CHOICE = new double[][] {
+        { 0.0, 8.0 }, { 1.0, 7.0 }, { 2.0, 4.0 }, { 4.0, 2.0 }, { 6.0, 0.0 }
+    };
+
+    private Instance moco;
+    private Instance choice;
+    
+    @Before
+    public void setUp() {
+        this.moco = new Instance();
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        // 3 x1 + 2 x2 + x4 <= 4
+        this.moco.addConstr(PBFactory.instance().mkLE(new VecInt(new int[] { 1, 2, 4 }),
+                                                      new Vec<Real>(new Real[] { new Real(3), new Real(2), Real.ONE }),
+                                                      new Real(4)));
+        this.moco.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { -3, 4 }), 1));
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { 1, 2, 4 }),
+                                       new Vec<Real>(new Real[] { new Real(2), Real.ONE, Real.ONE })));
+        this.moco.addObj(new LinearObj(new VecInt(new int[] { -2, 3 }),
+                                       new Vec<Real>(new Real[] { new Real(2), new Real(2) })));
+        this.choice = new Instance();
+        this.choice.addConstr(PBFactory.instance().mkEQ(new VecInt(new int[] { 1, 2, 3, 4, 5 }), 1));
+        for (int k = 0; k < 2; ++k) {
+            VecInt lits = new VecInt();
+            Vec<Real> coeffs = new Vec<Real>();
+            for (int j = 0; j < CHOICE.length; ++j) {
+                if (CHOICE[j][k] != 0.0) {
+                    lits.push(j+1);
+                    coeffs.push(new Real(CHOICE[j][k]));
+                }
+            }
+            this.choice.addObj(new LinearObj(lits, coeffs));
+        }
+    }
+    
+    private static ParetoLocalSearch mkSearch(Instance m, String... args) throws Exception {
+        ParetoLocalSearch pls = new ParetoLocalSearch(m);
+        pls.updtParams(new Params(new DefaultParser().parse(Params.buildOpts(), args)));
+        pls.initQueues();
+        return pls;
+    }
+    
+    private static boolean hasCosts(Result result, double[] costs) {
+        for (int i = 0; i < result.nSolutions(); ++i) {
+            if (Arrays.equals(result.getCosts(i), costs)) { return true; }
+        }
+        return false;
+    }
+    
+    private static boolean[] item(int j) {
+        boolean[] a = new boolean[CHOICE.length];
+        a[j] = true;
+        return a;
+    }
+    
+    @Test
+    public void testGroups() throws Exception {
+        ParetoLocalSearch pls = mkSearch(this.choice, "-nt", "1");
+        assertEquals(1, pls.groups.size());
+        int[] group = pls.groups.get(0).clone();
+        Arrays.sort(group);
+        assertTrue(Arrays.equals(new int[] { 1, 2, 3, 4, 5 }, group));
+        assertTrue(mkSearch(this.moco, "-nt", "1").groups.isEmpty());
+    }
+    
+    @Test
+    public void testSwapNeighbours() throws Exception {
+        ParetoLocalSearch pls = mkSearch(this.choice, "-nt", "1");
+        ParetoLocalSearch.Worker w = pls.new Worker(0);
+        pls.getResult().saveAssignment(item(0));
+        w.load(item(0));
+        w.explore();
+        // every flip violates the one-hot constraint, so only swaps reach the other items
+        for (int j = 0; j < CHOICE.length; ++j) {
+            assertTrue(hasCosts(pls.getResult(), CHOICE[j]));
+        }
+        assertEquals(CHOICE.length - 1, pls.pending.get());
+        assertEquals(CHOICE.length - 1, pls.queues.get(0).size());
+        // the current assignment is restored after exploring
+        assertTrue(Arrays.equals(item(0), w.a));
+        assertEquals(0, w.nviolated);
+    }
+    
+    @Test
+    public void testIncrementalFlip() throws Exception {
+        ParetoLocalSearch pls = mkSearch(this.moco, "-nt", "1");
+        ParetoLocalSearch.Worker w = pls.new Worker(0);
+        ParetoLocalSearch.Worker fresh = pls.new Worker(0);
+        Random rnd = new Random(7);
+        w.load(new boolean[4]);
+        for (int i = 0; i < 200; ++i) {
+            int v = 1 + rnd.nextInt(4);
+            int nviolated = w.nviolated;
+            int breaks = w.breaks(v);
+            w.flip(v);
+            assertEquals(nviolated + breaks, w.nviolated);
+            fresh.load(w.a);
+            assertTrue(Arrays.equals(fresh.lhs, w.lhs));
+            assertEquals(fresh.nviolated, w.nviolated);
+            assertTrue(Arrays.equals(fresh.costs, w.costs));
+        }
+    }
+    
+    @Test
+    public void testRestartRepair() throws Exception {
+        ParetoLocalSearch pls = mkSearch(this.moco, "-nt", "1", "-seed", "3");
+        ParetoLocalSearch.Worker w = pls.new Worker(0);
+        ParetoLocalSearch.Worker check = pls.new Worker(0);
+        pls.getResult().saveAssignment(new boolean[] { false, true, true, true });
+        for (int i = 0; i < 50; ++i) {
+            w.restart();
+            assertEquals(0, w.nviolated);
+        }
+        for (int i = 0; i < pls.getResult().nSolutions(); ++i) {
+            check.load(pls.getResult().getAssignment(i));
+            assertEquals(0, check.nviolated);
+        }
+    }
+    
+    @Test
+    public void testWorkersTerminate() throws Exception {
+        ParetoLocalSearch pls = mkSearch(this.choice, "-nt", "3");
+        pls.search(item(2));
+        assertEquals(0, pls.pending.get());
+        for (int i = 0; i < pls.queues.size(); ++i) {
+            assertTrue(pls.queues.get(i).isEmpty());
+        }
+        assertEquals(CHOICE.length, pls.getResult().nSolutions());
+        assertFalse(pls.getResult().isParetoFront());
+    }
+    
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.algorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.sat4j.core.Vec;
+import org.sat4j.core.VecInt;
+import org.sat4j.moco.pb.PBFactory;
+import org.sat4j.moco.problem.Instance;
+import org.sat4j.moco.problem.LinearObj;
+import org.sat4j.moco.util.Real;
+import org.sat4j.specs.IVecInt;
+
+public class SubspaceTest {
+
+    private static Instance mkInstance() {
+        Instance m = new Instance();
+        m.addConstr(PBFactory.instance().mkGE(new VecInt(new int[] { 1, 2, 3 }), 2));
+        m.addObj(new LinearObj(new VecInt(new int[] { 1, 2, 3 }),
+                               new Vec<Real>(new Real[] { new Real("2.5"), new Real(-4), Real.ONE })));
+        m.addObj(new LinearObj(new VecInt(new int[] { -2, 3 }), new Vec<Real>(new Real[] { new Real(2), new Real(3) })));
+        return m;
+    }
+    
+    private static boolean sameAssumptions(IVecInt a, IVecInt b) {
+        if (a.size() != b.size()) { return false; }
+        for (int i = 0; i < a.size(); ++i) {
+            if (a.get(i) != b.get(i)) { return false; }
+        }
+        return true;
+    }
+    
+    /**
+     * Checks if two encoded subspaces are equal, up to the number of decimal places of their bounds.
+     */
+    private static boolean sameEncoding(String a, String b) {
+        String[] ta = a.split("[ ,:]"), tb = b.split("[ ,:]");
+        if (ta.length != tb.length) { return false; }
+        for (int i = 0; i < ta.length; ++i) {
+            if (!ta[i].equals(tb[i]) &&
+                (ta[i].equals("-") || tb[i].equals("-") || Double.parseDouble(ta[i]) != Double.parseDouble(tb[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void assertRoundTrip(List<Subspace> subs) {
+        for (int i = 0; i < subs.size(); ++i) {
+            Subspace sub = subs.get(i);
+            Subspace cpy = Subspace.decode(sub.encode());
+            assertEquals(sub.getId(), cpy.getId());
+            assertTrue(sameAssumptions(sub.getAssumptions(), cpy.getAssumptions()));
+            assertTrue(sameEncoding(sub.encode(), cpy.encode()));
+            assertNull(cpy.getCorner());
+        }
+    }
+    
+    @Test
+    public void testCubes() {
+        List<Subspace> cubes = Subspace.cubes(mkInstance(), 4);
+        assertEquals(4, cubes.size());
+        for (int i = 0; i < cubes.size(); ++i) {
+            assertEquals(2, cubes.get(i).getAssumptions().size());
+            assertNull(cubes.get(i).getCorner());
+        }
+        assertRoundTrip(cubes);
+    }
+    
+    @Test
+    public void testBoxes() {
+        List<Subspace> boxes = Subspace.boxes(mkInstance(), 4);
+        assertEquals(4, boxes.size());
+        for (int i = 0; i < boxes.size(); ++i) {
+            assertTrue(boxes.get(i).getAssumptions().isEmpty());
+        }
+        assertRoundTrip(boxes);
+    }
+    
+    @Test
+    public void testSingleSubspace() {
+        assertRoundTrip(Subspace.cubes(mkInstance(), 1));
+        assertEquals("0 - -", Subspace.cubes(mkInstance(), 1).get(0).encode());
+    }
+    
+    @Test
+    public void testDecode() {
+        Subspace sub = Subspace.decode("7 3,-1 0:-4:-1.5,1:0:2\n");
+        assertEquals(7, sub.getId());
+        assertTrue(sameAssumptions(new VecInt(new int[] { 3, -1 }), sub.getAssumptions()));
+        assertTrue(sameEncoding("7 3,-1 0:-4:-1.5,1:0:2", sub.encode()));
+    }
+    
+    private static boolean isInvalid(String s) {
+        try {
+            Subspace.decode(s);
+        }
+        catch (NumberFormatException e) {
+            return true;
+        }
+        return false;
+    }
+    
+    @Test
+    public void testDecodeInvalid() {
+        assertTrue(isInvalid("7 3,-1"));
+        assertTrue(isInvalid("7 x -"));
+        assertTrue(isInvalid("7 - 0:1"));
+    }
+    
+}
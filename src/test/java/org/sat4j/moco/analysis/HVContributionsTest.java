@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HVContributionsTest {
+
+    private static final double EPS = 1e-9;
+
+    private NDTree<Object> archive;
+    private HVContributions hv;
+    
+    @Before
+    public void setUp() {
+        this.archive = new NDTree<Object>();
+        this.hv = new HVContributions();
+    }
+    
+    private void add(double... y) {
+        assertTrue(this.archive.add(y, null));
+        this.hv.update(this.archive, y);
+    }
+    
+    private double contributionOf(double... y) {
+        double[] c = this.hv.contributions(this.archive);
+        for (int i = 0; i < this.archive.size(); ++i) {
+            double[] p = this.archive.getPoint(i);
+            boolean same = true;
+            for (int k = 0; k < p.length; ++k) {
+                same = same && p[k] == y[k];
+            }
+            if (same) { return c[i]; }
+        }
+        throw new AssertionError();
+    }
+    
+    @Test
+    public void testSinglePoint() {
+        add(2.0, 3.0);
+        assertEquals(1.0, contributionOf(2.0, 3.0), EPS);
+        this.hv.clear();
+        this.archive.clear();
+        add(1.0, 2.0, 3.0, 4.0);
+        assertEquals(1.0, contributionOf(1.0, 2.0, 3.0, 4.0), EPS);
+    }
+    
+    @Test
+    public void testBiObjective() {
+        // reference point (11, 11)
+        add(0.0, 10.0);
+        add(3.0, 5.0);
+        add(10.0, 0.0);
+        assertEquals(3.0, contributionOf(0.0, 10.0), EPS);
+        assertEquals(35.0, contributionOf(3.0, 5.0), EPS);
+        assertEquals(5.0, contributionOf(10.0, 0.0), EPS);
+        assertEquals(0.0, this.archive.getPoint(this.hv.selectVictim(this.archive))[0], EPS);
+    }
+    
+    @Test
+    public void testBiObjectiveUpdate() {
+        add(0.0, 10.0);
+        add(10.0, 0.0);
+        // reference point (11, 11)
+        assertEquals(10.0, contributionOf(0.0, 10.0), EPS);
+        assertEquals(10.0, contributionOf(10.0, 0.0), EPS);
+        add(5.0, 5.0);
+        assertEquals(5.0, contributionOf(0.0, 10.0), EPS);
+        assertEquals(25.0, contributionOf(5.0, 5.0), EPS);
+        assertEquals(5.0, contributionOf(10.0, 0.0), EPS);
+        add(-10.0, 20.0);
+        // reference point (12, 22)
+        assertEquals(20.0, contributionOf(-10.0, 20.0), EPS);
+        assertEquals(50.0, contributionOf(0.0, 10.0), EPS);
+        assertEquals(25.0, contributionOf(5.0, 5.0), EPS);
+        assertEquals(10.0, contributionOf(10.0, 0.0), EPS);
+    }
+    
+    @Test
+    public void testTriObjective() {
+        // reference point (11, 11, 11)
+        add(0.0, 0.0, 10.0);
+        add(0.0, 10.0, 0.0);
+        add(10.0, 0.0, 0.0);
+        assertEquals(100.0, contributionOf(0.0, 0.0, 10.0), EPS);
+        assertEquals(100.0, contributionOf(0.0, 10.0, 0.0), EPS);
+        assertEquals(100.0, contributionOf(10.0, 0.0, 0.0), EPS);
+        add(4.0, 5.0, 5.0);
+        assertEquals(70.0, contributionOf(0.0, 0.0, 10.0), EPS);
+        assertEquals(70.0, contributionOf(0.0, 10.0, 0.0), EPS);
+        assertEquals(75.0, contributionOf(10.0, 0.0, 0.0), EPS);
+        assertEquals(150.0, contributionOf(4.0, 5.0, 5.0), EPS);
+        this.archive.remove(this.hv.selectVictim(this.archive));
+        assertEquals(3, this.archive.size());
+    }
+    
+    @Test
+    public void testTriObjectiveRemoval() {
+        add(0.0, 0.0, 10.0);
+        add(0.0, 10.0, 0.0);
+        add(10.0, 0.0, 0.0);
+        add(4.0, 5.0, 5.0);
+        assertEquals(150.0, contributionOf(4.0, 5.0, 5.0), EPS);
+        double[] removed = this.archive.getPoint(3);
+        this.archive.remove(3);
+        this.hv.update(this.archive, removed);
+        assertEquals(100.0, contributionOf(0.0, 0.0, 10.0), EPS);
+        assertEquals(100.0, contributionOf(0.0, 10.0, 0.0), EPS);
+        assertEquals(100.0, contributionOf(10.0, 0.0, 0.0), EPS);
+    }
+    
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * SAT4J: a SATisfiability library for Java Copyright (C) 2004, 2012 Artois University and CNRS
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU Lesser General Public License Version 2.1 or later (the
+ * "LGPL"), in which case the provisions of the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of the LGPL, and not to allow others to use your version of
+ * this file under the terms of the EPL, indicate your decision by deleting
+ * the provisions above and replace them with the notice and other provisions
+ * required by the LGPL. If you do not delete the provisions above, a recipient
+ * may use your version of this file under the terms of the EPL or the LGPL.
+ *
+ * Contributors:
+ *   CRIL - initial API and implementation
+ *   Miguel Terra-Neves, Ines Lynce and Vasco Manquinho - MOCO solver
+ *******************************************************************************/
+package org.sat4j.moco.mcs;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sat4j.moco.Params;
+import org.sat4j.moco.util.Clock;
+
+public class ConflictBudgetTest {
+
+    private static ConflictBudget mkBudget(String... args) {
+        ConflictBudget budget = new ConflictBudget();
+        try {
+            budget.updtParams(new Params(new DefaultParser().parse(Params.buildOpts(), args)));
+        }
+        catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+        return budget;
+    }
+    
+    @Before
+    public void setUp() {
+        Clock.instance().reset();
+    }
+    
+    @After
+    public void tearDown() {
+        Clock.instance().setTimeout(-1);
+    }
+    
+    @Test
+    public void testLuby() {
+        long[] expected = new long[] { 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1 };
+        for (int i = 0; i < expected.length; ++i) {
+            assertTrue(ConflictBudget.luby(i+1) == expected[i]);
+        }
+    }
+    
+    @Test
+    public void testFixed() {
+        ConflictBudget budget = mkBudget("-pmc", "5000");
+        assertTrue(budget.nextLimit(0, 3) == 5000);
+        budget.record(0, 5000, 5000, 1.0, true);
+        budget.record(0, 5000, 5000, 1.0, true);
+        assertTrue(budget.nextLimit(0, 3) == 5000);
+        Clock.instance().setTimeout(1);
+        assertTrue(budget.nextLimit(0, 3) == 5000);
+        assertTrue(mkBudget("-pmc", "5000", "-cbs", "none").nextLimit(1, 2) == 5000);
+    }
+    
+    @Test
+    public void testLubyLimits() {
+        ConflictBudget budget = mkBudget("-pmc", "8000", "-cbs", "luby");
+        long[] expected = new long[] { 1000, 1000, 2000, 1000, 1000, 2000, 4000 };
+        for (int i = 0; i < expected.length; ++i) {
+            int limit = budget.nextLimit(i, expected.length - i);
+            assertTrue(limit == expected[i]);
+            budget.record(i, limit, 0, 0.0, i % 2 == 0);
+        }
+    }
+    
+    @Test
+    public void testGeomLimits() {
+        ConflictBudget budget = mkBudget("-pmc", "16000", "-cbs", "geom");
+        assertTrue(budget.nextLimit(0, 4) == 2000);
+        budget.record(0, 2000, 2000, 0.0, true);
+        assertTrue(budget.nextLimit(1, 3) == 4000);
+        budget.record(1, 4000, 4000, 0.0, true);
+        assertTrue(budget.nextLimit(2, 2) == 8000);
+        budget.record(2, 8000, 10, 0.0, false);
+        assertTrue(budget.nextLimit(3, 1) == 2000);
+    }
+    
+    @Test
+    public void testPositionScaling() {
+        ConflictBudget budget = mkBudget("-pmc", "80000", "-cbs", "geom");
+        budget.record(0, 10000, 10000, 0.0, true);
+        assertTrue(budget.nextLimit(0, 2) == budget.nextLimit(1, 1));
+        budget.record(0, 20000, 20000, 0.0, true);
+        assertTrue(2 * budget.nextLimit(0, 2) == budget.nextLimit(1, 1));
+        budget.record(0, 20000, 15000, 0.0, false);
+        assertTrue(budget.nextLimit(0, 2) == 7500);
+        assertTrue(budget.nextLimit(1, 1) == 10000);
+        for (int i = 0; i < 12; ++i) {
+            budget.record(0, 10000, 10000, 0.0, true);
+        }
+        assertTrue(budget.nextLimit(0, 2) >= 1000);
+        assertTrue(16 * budget.nextLimit(0, 2) == budget.nextLimit(1, 1));
+    }
+    
+    @Test
+    public void testFairShare() {
+        ConflictBudget budget = mkBudget("-pmc", "200000", "-cbs", "luby");
+        budget.record(0, 25000, 1000, 1.0, false);
+        assertTrue(budget.nextLimit(1, 2) == 25000);
+        Clock.instance().setTimeout(10);
+        assertTrue(budget.nextLimit(1, 1) == 10000);
+        assertTrue(budget.nextLimit(1, 2) == 5000);
+        assertTrue(budget.nextLimit(1, 20) == 1000);
+        Clock.instance().setTimeout(-1);
+        assertTrue(budget.nextLimit(1, 2) == 25000);
+    }
+    
+    @Test
+    public void testNoRateNoFairShare() {
+        ConflictBudget budget = mkBudget("-pmc", "200000", "-cbs", "luby");
+        Clock.instance().setTimeout(10);
+        assertTrue(budget.nextLimit(0, 20) == 25000);
+        budget.record(0, 25000, 1000, 0.0, false);
+        assertTrue(budget.nextLimit(1, 20) == 25000);
+    }
+    
+    @Test
+    public void testBinding() {
+        assertTrue(ConflictBudget.isBinding(1000, 1000, false));
+        assertTrue(ConflictBudget.isBinding(1000, 5000, false));
+        assertFalse(ConflictBudget.isBinding(1000, 500, false));
+        assertTrue(ConflictBudget.isBinding(1000, 500, true));
+    }
+    
+}